@@ -0,0 +1,86 @@
+import apiClient from './client';
+
+const STORAGE_KEY = 'library-replica';
+const PAGE_SIZE = 500;
+
+/**
+ * 从 localStorage 读取本地副本，不存在或损坏时返回空副本
+ */
+const loadReplica = () => {
+  try {
+    const saved = JSON.parse(localStorage.getItem(STORAGE_KEY));
+    if (saved && typeof saved.revision === 'number') {
+      return saved;
+    }
+  } catch (e) {
+    // 副本损坏时重新全量同步
+  }
+  return { revision: 0, books: {}, borrowRecords: {} };
+};
+
+const saveReplica = (replica) => {
+  try {
+    localStorage.setItem(STORAGE_KEY, JSON.stringify(replica));
+  } catch (e) {
+    // 存储空间不足时只保留内存副本，下次进入页面重新全量同步
+  }
+};
+
+let pending = null;
+
+/**
+ * 增量同步图书和借阅记录的本地副本
+ * 从上次的修订号开始按页拉取 /api/sync，直到没有更多变更；
+ * 服务端返回 410 表示删除记录已被压缩，清空副本后从头同步
+ *
+ * @returns {Promise<{books: Array, borrowRecords: Array}>} 同步后的图书和借阅记录列表
+ */
+export const syncReplica = () => {
+  // 多个组件同时挂载时共用一次同步
+  if (!pending) {
+    pending = pullChanges().finally(() => {
+      pending = null;
+    });
+  }
+  return pending;
+};
+
+const pullChanges = async () => {
+  let replica = loadReplica();
+  let hasMore = true;
+  while (hasMore) {
+    let page;
+    try {
+      const response = await apiClient.get('/sync', {
+        params: { since: replica.revision, limit: PAGE_SIZE },
+      });
+      page = response.data;
+    } catch (err) {
+      if (err.response?.status === 410) {
+        replica = { revision: 0, books: {}, borrowRecords: {} };
+        continue;
+      }
+      throw err;
+    }
+    page.books.forEach((book) => {
+      replica.books[book.id] = book;
+    });
+    page.borrowRecords.forEach((record) => {
+      replica.borrowRecords[record.id] = record;
+    });
+    page.tombstones.forEach((tombstone) => {
+      if (tombstone.entityType === 'BOOK') {
+        delete replica.books[tombstone.entityId];
+      } else {
+        delete replica.borrowRecords[tombstone.entityId];
+      }
+    });
+    replica.revision = page.revision;
+    hasMore = page.hasMore;
+  }
+  saveReplica(replica);
+  return {
+    books: Object.values(replica.books),
+    borrowRecords: Object.values(replica.borrowRecords),
+  };
+};
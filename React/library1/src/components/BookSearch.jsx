@@ -1,6 +1,7 @@
  6
 import React, { useState, useEffect } from 'react';
 import apiClient from '../api/client';
+import { syncReplica } from '../api/sync';
 
 /**
  * 图书搜索组件
@@ -54,14 +55,15 @@ const BookSearch = () => {
 
   /**
    * 获取所有图书列表
+   * 通过增量同步更新本地副本，只下载上次以来变更的图书
    */
   const fetchAllBooks = async () => {
     setLoading(true);
     setError('');
 
     try {
-      const response = await apiClient.get('/books/getAllBooks');
-      setBooks(response.data);
+      const replica = await syncReplica();
+      setBooks(replica.books);
     } catch (err) {
       setError('获取书籍列表失败，请稍后重试');
     } finally {
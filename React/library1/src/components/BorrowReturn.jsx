@@ -1,6 +1,7 @@
  6
 import React, { useState, useEffect } from 'react';
 import apiClient from '../api/client';
+import { syncReplica } from '../api/sync';
 
 /**
  * 借还书功能组件
@@ -67,14 +68,11 @@ const BorrowReturn = ({ currentUser }) => {
     if (action === 'borrow') {
       setLoading(true);
       try {
-        // 并行获取所有书籍和所有借阅记录
-        const [booksResponse, borrowRecordsResponse] = await Promise.all([
-          apiClient.get('/books/getAllBooks'),
-          apiClient.get('/borrow/all')
-        ]);
+        // 增量同步书籍和借阅记录的本地副本
+        const replica = await syncReplica();
 
-        const allBooks = booksResponse.data || [];
-        const allBorrowRecords = borrowRecordsResponse.data || [];
+        const allBooks = replica.books;
+        const allBorrowRecords = replica.borrowRecords;
 
         // 创建已借书籍ID的集合
         const borrowedBookIds = new Set(allBorrowRecords.map(record => record.bookId));
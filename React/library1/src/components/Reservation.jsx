@@ -1,7 +1,6 @@
  6
 import React, { useState } from 'react';
-// 注意：预约功能需要后端支持，这里仅为前端示例
-// 实际开发中需要添加相应的后端API
+import apiClient from '../api/client';
 
 /**
  * 图书预约组件
@@ -29,8 +28,15 @@ const Reservation = ({ currentUser }) => {
       return;
     }
 
-    // 这里应该调用预约API，但由于后端未提供，仅作示意
-    setMessage(`书籍ID ${bookId} 预约成功！`);
+    try {
+      await apiClient.post('/reservation/add', {
+        bookId: parseInt(bookId),
+        userId: currentUser.id
+      });
+      setMessage(`书籍ID ${bookId} 预约成功！`);
+    } catch (err) {
+      setError(err.response?.data || '预约失败');
+    }
   };
 
   return (
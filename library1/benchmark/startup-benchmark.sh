@@ -0,0 +1,74 @@
+#!/usr/bin/env bash
+#
+# 启动耗时基准：分别以不同模式启动应用，测量从进程启动到第一个 HTTP 响应的时间（time-to-first-request）。
+#
+# 用法：
+#   mvn -Pproduction -DskipTests package             # 生成 jar、AOT 代码和 CDS 归档
+#   mvn -Pproduction,native -DskipTests native:compile  # 可选，生成原生镜像 target/library1
+#   benchmark/startup-benchmark.sh [轮数]
+#
+# 数据源等配置通过环境变量传入，例如 SPRING_DATASOURCE_URL、SPRING_DATASOURCE_PASSWORD。
+# 模式：
+#   jvm     普通 JVM 启动
+#   aot     JVM + -Dspring.aot.enabled=true
+#   cds     JVM + AOT + AppCDS 归档（使用解压后的 target/cds 目录）
+#   native  GraalVM 原生镜像（存在 target/library1 时才测量）
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS="${1:-5}"
+PORT="${BENCHMARK_PORT:-18080}"
+URL="http://localhost:${PORT}/actuator/health"
+JAR="target/library1-0.0.1-SNAPSHOT.jar"
+CDS_JAR="target/cds/library1-0.0.1-SNAPSHOT.jar"
+CDS_ARCHIVE="target/cds/application.jsa"
+NATIVE="target/library1"
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+
+now_ms() {
+  date +%s%3N
+}
+
+# 启动命令，测量到首个响应（任意状态码）的毫秒数
+measure() {
+  local start pid elapsed
+  start=$(now_ms)
+  "$@" --server.port="${PORT}" > /dev/null 2>&1 &
+  pid=$!
+  until curl -s -o /dev/null "${URL}"; do
+    if ! kill -0 "${pid}" 2> /dev/null; then
+      echo "启动失败: $*" >&2
+      return 1
+    fi
+    sleep 0.02
+  done
+  elapsed=$(( $(now_ms) - start ))
+  kill "${pid}"
+  wait "${pid}" 2> /dev/null || true
+  echo "${elapsed}"
+}
+
+report() {
+  local mode=$1
+  shift
+  local samples=()
+  for _ in $(seq "${RUNS}"); do
+    samples+=("$(measure "$@")")
+  done
+  local sorted median
+  sorted=$(printf '%s\n' "${samples[@]}" | sort -n)
+  median=$(echo "${sorted}" | sed -n "$(( (RUNS + 1) / 2 ))p")
+  printf '%-8s median=%6s ms  min=%6s ms  max=%6s ms\n' "${mode}" "${median}" \
+    "$(echo "${sorted}" | head -1)" "$(echo "${sorted}" | tail -1)"
+}
+
+report jvm "${JAVA}" -jar "${JAR}"
+report aot "${JAVA}" -Dspring.aot.enabled=true -jar "${JAR}"
+if [[ -f "${CDS_ARCHIVE}" ]]; then
+  report cds "${JAVA}" -XX:SharedArchiveFile="${CDS_ARCHIVE}" -Dspring.aot.enabled=true -jar "${CDS_JAR}"
+fi
+if [[ -x "${NATIVE}" ]]; then
+  report native "${NATIVE}"
+fi
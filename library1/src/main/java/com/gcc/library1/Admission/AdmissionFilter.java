@@ -0,0 +1,144 @@
+package com.gcc.library1.Admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 准入控制过滤器：对 /api/** 请求依次做
+ * <ol>
+ *     <li>按客户端的令牌桶限流（登录接口单独限流，防止暴力破解）；</li>
+ *     <li>按接口分组的并发隔离（全表扫描类接口限制同时执行数）；</li>
+ *     <li>连接池等待时间超过阈值时对可降级的读请求直接拒绝。</li>
+ * </ol>
+ * 被拒绝的请求返回 429 并带 Retry-After 头，各类拒绝次数以 library.admission.* 指标暴露。
+ */
+@Component
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    enum EndpointGroup {
+        LOGIN, SCAN, STANDARD
+    }
+
+    private final AdmissionProperties properties;
+    private final PoolPressureMonitor poolPressureMonitor;
+    private final Map<EndpointGroup, StripedTokenBucket> buckets = new EnumMap<>(EndpointGroup.class);
+    private final Map<EndpointGroup, Semaphore> bulkheads = new EnumMap<>(EndpointGroup.class);
+    private final Map<EndpointGroup, Counter> admitted = new EnumMap<>(EndpointGroup.class);
+    private final Map<EndpointGroup, Counter> rateLimited = new EnumMap<>(EndpointGroup.class);
+    private final Map<EndpointGroup, Counter> bulkheadRejected = new EnumMap<>(EndpointGroup.class);
+    private final Map<EndpointGroup, Counter> shed = new EnumMap<>(EndpointGroup.class);
+
+    public AdmissionFilter(AdmissionProperties properties, PoolPressureMonitor poolPressureMonitor, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.poolPressureMonitor = poolPressureMonitor;
+        for (EndpointGroup group : EndpointGroup.values()) {
+            AdmissionProperties.Group config = config(group);
+            buckets.put(group, new StripedTokenBucket(properties.getStripes(), config.getCapacity(), config.getRefillPerSecond()));
+            if (config.getMaxConcurrent() > 0) {
+                Semaphore semaphore = new Semaphore(config.getMaxConcurrent());
+                bulkheads.put(group, semaphore);
+                Gauge.builder("library.admission.inflight", semaphore,
+                                s -> config.getMaxConcurrent() - s.availablePermits())
+                        .tag("group", group.name())
+                        .register(meterRegistry);
+            }
+            String tag = group.name();
+            admitted.put(group, meterRegistry.counter("library.admission.admitted", "group", tag));
+            rateLimited.put(group, meterRegistry.counter("library.admission.rejected", "group", tag, "reason", "rate"));
+            bulkheadRejected.put(group, meterRegistry.counter("library.admission.rejected", "group", tag, "reason", "bulkhead"));
+            shed.put(group, meterRegistry.counter("library.admission.rejected", "group", tag, "reason", "shed"));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled() || !request.getRequestURI().startsWith("/api/")
+                || "OPTIONS".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        EndpointGroup group = classify(request);
+
+        long waitMillis = buckets.get(group).tryAcquire(clientKey(request));
+        if (waitMillis > 0) {
+            rateLimited.get(group).increment();
+            reject(response, waitMillis, "请求过于频繁，请稍后重试");
+            return;
+        }
+
+        // 登录和写操作不降级，只对读请求降级
+        if (group != EndpointGroup.LOGIN && "GET".equals(request.getMethod()) && poolPressureMonitor.isOverloaded()) {
+            shed.get(group).increment();
+            reject(response, 1000, "系统繁忙，请稍后重试");
+            return;
+        }
+
+        Semaphore bulkhead = bulkheads.get(group);
+        if (bulkhead != null && !bulkhead.tryAcquire()) {
+            bulkheadRejected.get(group).increment();
+            reject(response, 1000, "系统繁忙，请稍后重试");
+            return;
+        }
+        admitted.get(group).increment();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (bulkhead != null) {
+                bulkhead.release();
+            }
+        }
+    }
+
+    private EndpointGroup classify(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        if (uri.equals("/api/users/login")) {
+            return EndpointGroup.LOGIN;
+        }
+        if (uri.equals("/api/books/getAllBooks") || uri.equals("/api/borrow/all") || uri.equals("/api/users/roster")
+                || uri.equals("/api/borrow/stats")) {
+            return EndpointGroup.SCAN;
+        }
+        return EndpointGroup.STANDARD;
+    }
+
+    private AdmissionProperties.Group config(EndpointGroup group) {
+        return switch (group) {
+            case LOGIN -> properties.getLogin();
+            case SCAN -> properties.getScan();
+            case STANDARD -> properties.getStandard();
+        };
+    }
+
+    // 不直接读 X-Forwarded-For：该头可由客户端任意伪造，每次换一个值就能绕过限流。
+    // 部署在反向代理之后时由 server.forward-headers-strategy=native 的 RemoteIpValve 处理，
+    // 只有来自 server.tomcat.remoteip.internal-proxies 中可信代理的请求才会用转发头改写 remoteAddr
+    private static String clientKey(HttpServletRequest request) {
+        return request.getRemoteAddr();
+    }
+
+    private static void reject(HttpServletResponse response, long waitMillis, String message) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (waitMillis + 999) / 1000)));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write(message);
+    }
+}
@@ -0,0 +1,47 @@
+package com.gcc.library1.Admission;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 准入控制配置，对应 application.properties 中的 library.admission.*。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "library.admission")
+public class AdmissionProperties {
+
+    private boolean enabled = true;
+
+    // 令牌桶分片数，客户端按哈希落到分片上，内存占用固定
+    private int stripes = 4096;
+
+    // 连接池平均等待时间超过该值（毫秒）时开始拒绝可降级请求
+    private long shedWaitMillis = 200;
+
+    private Group login = new Group(5, 0.5, 0);
+
+    private Group scan = new Group(5, 1, 4);
+
+    private Group standard = new Group(100, 50, 0);
+
+    @Data
+    public static class Group {
+        // 令牌桶容量（突发请求数）
+        private int capacity;
+        // 每秒补充的令牌数
+        private double refillPerSecond;
+        // 同时执行的最大请求数，0 表示不限
+        private int maxConcurrent;
+
+        public Group() {
+        }
+
+        public Group(int capacity, double refillPerSecond, int maxConcurrent) {
+            this.capacity = capacity;
+            this.refillPerSecond = refillPerSecond;
+            this.maxConcurrent = maxConcurrent;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.gcc.library1.Admission;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 连接池压力监控。定期读取 Hikari 的连接获取耗时指标（hikaricp.connections.acquire，多个连接池合计），
+ * 以增量计算近期平均等待时间并做指数平滑，供准入过滤器判断是否需要降级。
+ */
+@Component
+public class PoolPressureMonitor {
+
+    private static final long SAMPLE_MILLIS = 500;
+    private static final double ALPHA = 0.3;
+
+    private final MeterRegistry meterRegistry;
+    private final AdmissionProperties properties;
+    private final ScheduledExecutorService sampler;
+    private long lastCount;
+    private double lastTotalMillis;
+    private volatile double averageWaitMillis;
+
+    public PoolPressureMonitor(MeterRegistry meterRegistry, AdmissionProperties properties) {
+        this.meterRegistry = meterRegistry;
+        this.properties = properties;
+        Gauge.builder("library.admission.pool.wait", this, monitor -> monitor.averageWaitMillis)
+                .description("连接池近期平均等待时间（毫秒）")
+                .register(meterRegistry);
+        this.sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "pool-pressure-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleAtFixedRate(this::sample, SAMPLE_MILLIS, SAMPLE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 连接池是否已过载。
+     */
+    public boolean isOverloaded() {
+        return averageWaitMillis > properties.getShedWaitMillis();
+    }
+
+    public double getAverageWaitMillis() {
+        return averageWaitMillis;
+    }
+
+    private void sample() {
+        // 分片部署时每个连接池各有一个计时器，取所有连接池的合计
+        long count = 0;
+        double totalMillis = 0;
+        for (Timer timer : meterRegistry.find("hikaricp.connections.acquire").timers()) {
+            count += timer.count();
+            totalMillis += timer.totalTime(TimeUnit.MILLISECONDS);
+        }
+        long deltaCount = count - lastCount;
+        double recent = deltaCount > 0 ? (totalMillis - lastTotalMillis) / deltaCount : 0;
+        lastCount = count;
+        lastTotalMillis = totalMillis;
+        averageWaitMillis = ALPHA * recent + (1 - ALPHA) * averageWaitMillis;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        sampler.shutdownNow();
+    }
+}
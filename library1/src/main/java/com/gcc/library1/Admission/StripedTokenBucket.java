@@ -0,0 +1,78 @@
+package com.gcc.library1.Admission;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无锁分片令牌桶。
+ * 客户端标识按哈希映射到固定数量的分片，每个分片的状态（上次补充时间 + 剩余令牌）打包在一个 long 中，
+ * 通过 CAS 更新，不加锁也不为每个客户端分配对象。哈希冲突的客户端会共享同一个桶，分片数足够大时影响可以忽略。
+ */
+public class StripedTokenBucket {
+
+    // 每个分片占 8 个 long（64 字节），避免伪共享
+    private static final int PADDING = 8;
+    private static final int TOKEN_BITS = 24;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    // 令牌以千分之一为单位存储
+    private static final long ONE_TOKEN = 1000;
+
+    private final AtomicLongArray state;
+    private final int mask;
+    private final long capacity;
+    private final double refillPerMilli;
+    private final long baseNanos = System.nanoTime();
+
+    /**
+     * @param stripes         分片数，向上取整为 2 的幂
+     * @param capacity        桶容量（令牌数），不超过 16000
+     * @param refillPerSecond 每秒补充的令牌数
+     */
+    public StripedTokenBucket(int stripes, int capacity, double refillPerSecond) {
+        if (capacity <= 0 || capacity * ONE_TOKEN > TOKEN_MASK || refillPerSecond <= 0) {
+            throw new IllegalArgumentException("令牌桶参数不合法: capacity=" + capacity + ", refillPerSecond=" + refillPerSecond);
+        }
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.state = new AtomicLongArray(size * PADDING);
+        this.mask = size - 1;
+        this.capacity = capacity * ONE_TOKEN;
+        // 每毫秒补充的千分之一令牌数
+        this.refillPerMilli = refillPerSecond;
+    }
+
+    /**
+     * 尝试为客户端取一个令牌。
+     *
+     * @param clientKey 客户端标识
+     * @return 0 表示放行；大于 0 表示被限流，值为建议的重试等待毫秒数
+     */
+    public long tryAcquire(String clientKey) {
+        int index = (spread(clientKey.hashCode()) & mask) * PADDING;
+        long now = nowMillis();
+        while (true) {
+            long current = state.get(index);
+            long tokens;
+            if (current == 0) {
+                tokens = capacity;
+            } else {
+                long elapsed = Math.max(0, now - (current >>> TOKEN_BITS));
+                tokens = Math.min(capacity, (current & TOKEN_MASK) + (long) (elapsed * refillPerMilli));
+            }
+            if (tokens < ONE_TOKEN) {
+                return Math.max(1, (long) Math.ceil((ONE_TOKEN - tokens) / refillPerMilli));
+            }
+            long next = (now << TOKEN_BITS) | (tokens - ONE_TOKEN);
+            if (state.compareAndSet(index, current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private long nowMillis() {
+        // +1 保证状态不为 0（0 表示未初始化）
+        return (System.nanoTime() - baseNanos) / 1_000_000 + 1;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
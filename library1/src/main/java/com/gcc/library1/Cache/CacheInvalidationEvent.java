@@ -0,0 +1,12 @@
+package com.gcc.library1.Cache;
+
+/**
+ * 实体变更事件，通过失效总线广播到所有节点。
+ *
+ * @param entityType 实体类型（如 Book、User、BorrowRecord）
+ * @param entityId   实体主键或业务键
+ * @param version    事件版本号，单调递增，用于防止乱序覆盖
+ * @param originNode 事件发出节点的标识
+ */
+public record CacheInvalidationEvent(String entityType, Long entityId, long version, String originNode) {
+}
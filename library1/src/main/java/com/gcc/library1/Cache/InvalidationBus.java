@@ -0,0 +1,167 @@
+package com.gcc.library1.Cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * 分布式缓存失效总线。
+ * 服务层在实体变更后调用 {@link #publish(String, Long)}，事件经 {@link InvalidationTransport} 广播到每个节点，
+ * 各节点据此驱逐对应的 {@link NearCache} 条目。事件版本号采用 Lamport 时钟，收到事件时向前推进，保证跨节点单调；
+ * 缓存条目的版本号则使用本节点的事件接收序号。
+ */
+@Slf4j
+@Component
+public class InvalidationBus {
+
+    public static final String BOOK = "Book";
+    public static final String USER = "User";
+    public static final String BORROW_RECORD = "BorrowRecord";
+    public static final String BOOK_COPY = "BookCopy";
+    public static final String BORROW_HISTORY = "BorrowHistory";
+
+    private final InvalidationTransport transport;
+    private final String nodeId;
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final Map<String, NearCache<?>> caches = new ConcurrentHashMap<>();
+    // 按实体类型（不含分馆后缀）统计收到的事件数，供请求合并判断结果是否跨过了一次写入
+    private final Map<String, AtomicLong> typeSequences = new ConcurrentHashMap<>();
+    // 进行中的缓存加载（含预热）所用的版本号及其数量，取版本与登记在读锁内完成，计算清理下限时加写锁
+    private final ConcurrentSkipListMap<Long, Integer> pinnedVersions = new ConcurrentSkipListMap<>();
+    private final ReentrantReadWriteLock pinLock = new ReentrantReadWriteLock();
+    private final int maxEntries;
+    private final long ttlSeconds;
+
+    public InvalidationBus(InvalidationTransport transport, String nodeId) {
+        this(transport, nodeId, 10_000, 300);
+    }
+
+    @Autowired
+    public InvalidationBus(InvalidationTransport transport,
+                           @Value("${library.cache.node-id:}") String nodeId,
+                           @Value("${library.cache.max-entries:10000}") int maxEntries,
+                           @Value("${library.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.transport = transport;
+        this.nodeId = nodeId.isEmpty() ? UUID.randomUUID().toString() : nodeId;
+        this.maxEntries = maxEntries;
+        this.ttlSeconds = ttlSeconds;
+        transport.subscribe(this::onEvent);
+    }
+
+    /**
+     * 获取（或创建）某实体类型的近端缓存，值按原样返回，只用于不可变的值。
+     */
+    public <V> NearCache<V> cache(String entityType) {
+        return cache(entityType, UnaryOperator.identity());
+    }
+
+    /**
+     * 获取（或创建）某实体类型的近端缓存。缓存的是可变对象（如 JPA 实体）时，读取经 copier 返回副本；
+     * 同一类型的所有调用方应传入同样的 copier，以先创建者为准。
+     */
+    @SuppressWarnings("unchecked")
+    public <V> NearCache<V> cache(String entityType, UnaryOperator<V> copier) {
+        return (NearCache<V>) caches.computeIfAbsent(entityType, type -> new NearCache<>(type, this, copier, maxEntries, ttlSeconds));
+    }
+
+    /**
+     * 本节点已收到的给定实体类型（任一分馆）的事件数之和，单调不减。未给出类型时为全部事件数。
+     * 两次读取之间值不变，说明其间本节点没有收到这些类型的变更。
+     */
+    public long sequence(List<String> entityTypes) {
+        if (entityTypes.isEmpty()) {
+            return received.get();
+        }
+        long sum = 0;
+        for (String entityType : entityTypes) {
+            AtomicLong sequence = typeSequences.get(entityType);
+            sum += sequence == null ? 0 : sequence.get();
+        }
+        return sum;
+    }
+
+    /**
+     * 广播实体变更事件。
+     *
+     * @param entityType 实体类型
+     * @param entityId   实体主键
+     */
+    public void publish(String entityType, Long entityId) {
+        if (entityId == null) {
+            return;
+        }
+        CacheInvalidationEvent event = new CacheInvalidationEvent(entityType, entityId, clock.incrementAndGet(), nodeId);
+        try {
+            transport.publish(event);
+        } catch (Exception e) {
+            // 传输失败时至少保证本节点缓存一致
+            log.warn("缓存失效事件广播失败: " + event, e);
+            onEvent(event);
+        }
+    }
+
+    long currentVersion() {
+        return received.get();
+    }
+
+    /**
+     * 取当前版本号作为一次加载的版本，并登记为进行中，加载结束后必须 {@link #unpinVersion(long)}。
+     */
+    long pinVersion() {
+        pinLock.readLock().lock();
+        try {
+            long version = received.get();
+            pinnedVersions.merge(version, 1, Integer::sum);
+            return version;
+        } finally {
+            pinLock.readLock().unlock();
+        }
+    }
+
+    void unpinVersion(long version) {
+        pinnedVersions.computeIfPresent(version, (key, count) -> count == 1 ? null : count - 1);
+    }
+
+    /**
+     * 最早的进行中加载版本；没有进行中的加载时为当前版本。不大于它的失效标记已不会拒绝任何回填。
+     */
+    long oldestPinnedVersion() {
+        pinLock.writeLock().lock();
+        try {
+            Map.Entry<Long, Integer> oldest = pinnedVersions.firstEntry();
+            return oldest == null ? received.get() : oldest.getKey();
+        } finally {
+            pinLock.writeLock().unlock();
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    private void onEvent(CacheInvalidationEvent event) {
+        clock.accumulateAndGet(event.version(), Math::max);
+        // 先推进类型序号再推进接收序号：取到新接收序号的读者一定看得到新的类型序号，
+        // 不会合并到写入之前开始的查询，把旧值以一个不会再被失效的版本写入缓存
+        String eventType = event.entityType();
+        int at = eventType.indexOf('@');
+        typeSequences.computeIfAbsent(at < 0 ? eventType : eventType.substring(0, at), type -> new AtomicLong())
+                .incrementAndGet();
+        long sequence = received.incrementAndGet();
+        NearCache<?> cache = caches.get(event.entityType());
+        if (cache != null) {
+            cache.invalidate(event.entityId(), sequence);
+        }
+    }
+}
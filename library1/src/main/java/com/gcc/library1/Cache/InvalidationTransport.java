@@ -0,0 +1,25 @@
+package com.gcc.library1.Cache;
+
+import java.util.function.Consumer;
+
+/**
+ * 失效事件的传输层。实现类负责把事件投递到集群中的所有节点（包括本节点）。
+ * 默认使用基于数据库轮询的 {@link JdbcInvalidationTransport}，单实例部署可用 {@link LocalInvalidationTransport}，
+ * 也可替换为 Redis Pub/Sub、Kafka 等实现。
+ */
+public interface InvalidationTransport {
+
+    /**
+     * 广播一条失效事件。
+     *
+     * @param event 失效事件
+     */
+    void publish(CacheInvalidationEvent event);
+
+    /**
+     * 注册事件监听器，收到任意节点发出的事件时回调。
+     *
+     * @param listener 事件监听器
+     */
+    void subscribe(Consumer<CacheInvalidationEvent> listener);
+}
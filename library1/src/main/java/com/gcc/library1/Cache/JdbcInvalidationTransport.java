@@ -0,0 +1,167 @@
+package com.gcc.library1.Cache;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 基于数据库轮询的跨节点失效传输，默认实现。
+ * 事件写入默认数据源的 cache_invalidation 表并同步投递给本进程；后台线程每隔 library.cache.poll-millis
+ * 按自增 id 读取其他节点写入的事件。自增 id 的提交顺序不一定与分配顺序一致，读到的 id 不连续时，
+ * 缺失的 id 在一段时间内（{@link #GAP_TIMEOUT_SECONDS}）继续补查，晚提交的事件不会漏掉；
+ * 回滚或自增步长留下的空洞到期后放弃。
+ * 启动时回放最近 {@link #REPLAY_SECONDS} 秒的事件，覆盖轮询开始之前已加载的缓存。
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "library.cache.transport", havingValue = "jdbc", matchIfMissing = true)
+public class JdbcInvalidationTransport implements InvalidationTransport {
+
+    static final long GAP_TIMEOUT_SECONDS = 10;
+    static final long REPLAY_SECONDS = 60;
+    private static final int POLL_LIMIT = 1000;
+    // 单次跳跃超过该数量时视为自增步长变化而非并发写入，不逐个补查
+    private static final int MAX_GAP = 1000;
+    private static final String SELECT = "select id, entity_type, entity_id, version, origin_node, sender from cache_invalidation ";
+
+    private record Row(long id, String sender, CacheInvalidationEvent event) {
+    }
+
+    private static final RowMapper<Row> ROW_MAPPER = (rs, rowNum) -> new Row(rs.getLong("id"), rs.getString("sender"),
+            new CacheInvalidationEvent(rs.getString("entity_type"), rs.getLong("entity_id"), rs.getLong("version"),
+                    rs.getString("origin_node")));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long retentionMinutes;
+    // 本进程实例标识，区分轮询到的事件是否由自己写入（节点ID可能被配置成相同值）
+    private final String sender = UUID.randomUUID().toString();
+    private final List<Consumer<CacheInvalidationEvent>> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService poller;
+
+    // 以下字段只由 poller 线程访问
+    private long lastSeen = -1;
+    // 尚未读到的 id → 放弃补查的时间（nanoTime）
+    private final TreeMap<Long, Long> gaps = new TreeMap<>();
+
+    public JdbcInvalidationTransport(@Qualifier("invalidationDataSource") DataSource dataSource,
+                                     @Value("${library.cache.poll-millis:200}") long pollMillis,
+                                     @Value("${library.cache.retention-minutes:60}") long retentionMinutes) {
+        // 专用连接池上自动提交，不加入调用方的事务，也不占业务连接
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.retentionMinutes = retentionMinutes;
+        this.poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-invalidation-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(this::poll, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+        poller.scheduleWithFixedDelay(this::purge, 1, 1, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public void publish(CacheInvalidationEvent event) {
+        // 先落库再本地投递：落库失败时由总线退化为只失效本节点
+        jdbcTemplate.update("insert into cache_invalidation (entity_type, entity_id, version, origin_node, sender, created_at) "
+                        + "values (?, ?, ?, ?, ?, current_timestamp(6))",
+                event.entityType(), event.entityId(), event.version(), event.originNode(), sender);
+        deliver(event);
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheInvalidationEvent> listener) {
+        listeners.add(listener);
+    }
+
+    private void deliver(CacheInvalidationEvent event) {
+        for (Consumer<CacheInvalidationEvent> listener : listeners) {
+            listener.accept(event);
+        }
+    }
+
+    // 迁移完成前表不存在，失败后下一轮重试
+    void poll() {
+        try {
+            if (lastSeen < 0) {
+                lastSeen = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from cache_invalidation "
+                        + "where created_at < timestampadd(second, ?, current_timestamp(6))", Long.class, -REPLAY_SECONDS);
+            }
+            List<Row> rows;
+            do {
+                rows = jdbcTemplate.query(SELECT + "where id > ? order by id limit " + POLL_LIMIT, ROW_MAPPER, lastSeen);
+                long now = System.nanoTime();
+                for (Row row : rows) {
+                    long id = row.id();
+                    if (id - lastSeen - 1 <= MAX_GAP) {
+                        for (long missing = lastSeen + 1; missing < id; missing++) {
+                            gaps.put(missing, now + TimeUnit.SECONDS.toNanos(GAP_TIMEOUT_SECONDS));
+                        }
+                    }
+                    lastSeen = id;
+                    accept(row);
+                }
+            } while (rows.size() == POLL_LIMIT);
+            pollGaps();
+        } catch (RuntimeException e) {
+            log.debug("缓存失效事件轮询失败", e);
+        }
+    }
+
+    private void pollGaps() {
+        if (gaps.isEmpty()) {
+            return;
+        }
+        long now = System.nanoTime();
+        gaps.values().removeIf(deadline -> deadline - now < 0);
+        List<Long> ids = new ArrayList<>();
+        Iterator<Long> it = gaps.keySet().iterator();
+        while (it.hasNext() && ids.size() < POLL_LIMIT) {
+            ids.add(it.next());
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        for (Row row : jdbcTemplate.query(SELECT + "where id in (" + placeholders + ")", ROW_MAPPER, ids.toArray())) {
+            gaps.remove(row.id());
+            accept(row);
+        }
+    }
+
+    private void accept(Row row) {
+        if (!sender.equals(row.sender())) {
+            deliver(row.event());
+        }
+    }
+
+    private void purge() {
+        try {
+            jdbcTemplate.update("delete from cache_invalidation where created_at < timestampadd(minute, ?, current_timestamp(6))",
+                    -retentionMinutes);
+        } catch (RuntimeException e) {
+            log.warn("清理过期的缓存失效事件失败", e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        poller.shutdownNow();
+    }
+}
@@ -0,0 +1,32 @@
+package com.gcc.library1.Cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * JVM 内的失效传输实现，只在当前进程内同步投递事件。
+ * 只适用于单实例部署和测试（library.cache.transport=local）：其他节点的写入不会驱逐本节点的缓存，
+ * 只能等近端缓存的 TTL 到期。默认使用 {@link JdbcInvalidationTransport}。
+ */
+@Component
+@ConditionalOnProperty(name = "library.cache.transport", havingValue = "local")
+public class LocalInvalidationTransport implements InvalidationTransport {
+
+    private final List<Consumer<CacheInvalidationEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(CacheInvalidationEvent event) {
+        for (Consumer<CacheInvalidationEvent> listener : listeners) {
+            listener.accept(event);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheInvalidationEvent> listener) {
+        listeners.add(listener);
+    }
+}
@@ -0,0 +1,213 @@
+package com.gcc.library1.Cache;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * 节点本地的近端缓存，条目带版本号。
+ * 版本号取自本节点的事件接收序号：加载前记录当前序号，若加载期间该key收到了失效事件，
+ * 加载结果会被拒绝写入，从而避免“先失效、后回填旧值”的乱序脏读。
+ * <p>
+ * 条目数超过上限时按 CLOCK（近似 LRU）淘汰；读取时通过 copier 返回副本，调用方修改返回值不会污染缓存。
+ * 条目在 TTL 到期后重新加载，失效事件丢失或传输滞后时，陈旧数据最多保留一个 TTL。
+ *
+ * @param <V> 缓存值类型
+ */
+public class NearCache<V> {
+
+    // 失效标记数量超过该值时清理一次，之后阈值随剩余数量翻倍
+    private static final int MIN_PRUNE_THRESHOLD = 1024;
+
+    private static final class Entry<V> {
+        final long version;
+        final V value;
+        final long loadedAt = System.nanoTime();
+        // CLOCK 访问位：命中时置位，淘汰扫描时清除，扫描到未置位的条目才淘汰
+        volatile boolean referenced;
+
+        Entry(long version, V value) {
+            this.version = version;
+            this.value = value;
+        }
+    }
+
+    private final String entityType;
+    private final InvalidationBus bus;
+    private final UnaryOperator<V> copier;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final ConcurrentHashMap<Long, Entry<V>> entries = new ConcurrentHashMap<>();
+    // 每个key最近一次失效的版本号，用于拒绝过期的回填；早于所有进行中加载的标记不再有用，会被清理
+    private final ConcurrentHashMap<Long, Long> invalidatedAt = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private volatile int pruneThreshold = MIN_PRUNE_THRESHOLD;
+
+    NearCache(String entityType, InvalidationBus bus, UnaryOperator<V> copier, int maxEntries, long ttlSeconds) {
+        this.entityType = entityType;
+        this.bus = bus;
+        this.copier = copier;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(Math.max(1, ttlSeconds));
+    }
+
+    /**
+     * 逐个复制列表元素的 copier，返回的列表不可修改。
+     */
+    public static <T> UnaryOperator<List<T>> listCopier(UnaryOperator<T> elementCopier) {
+        return list -> {
+            List<T> copy = new ArrayList<>(list.size());
+            for (T element : list) {
+                copy.add(elementCopier.apply(element));
+            }
+            return List.copyOf(copy);
+        };
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    /**
+     * 读取缓存，未命中时调用 loader 加载并回填。
+     *
+     * @param id     实体主键
+     * @param loader 加载函数
+     * @return 缓存或新加载的值的副本
+     */
+    public V get(Long id, Function<Long, V> loader) {
+        Entry<V> entry = entries.get(id);
+        if (entry != null && System.nanoTime() - entry.loadedAt < ttlNanos) {
+            entry.referenced = true;
+            return copy(entry.value);
+        }
+        long version = bus.pinVersion();
+        try {
+            V value = loader.apply(id);
+            put(id, version, value);
+            return copy(value);
+        } finally {
+            bus.unpinVersion(version);
+        }
+    }
+
+    private V copy(V value) {
+        return value == null ? null : copier.apply(value);
+    }
+
+    /**
+     * 以指定版本写入缓存。若该key在此版本之后被失效过，或已有更新的条目，则忽略。
+     */
+    void put(Long id, long version, V value) {
+        if (isStale(id, version)) {
+            return;
+        }
+        Entry<V> entry = new Entry<>(version, value);
+        entries.merge(id, entry, (oldEntry, newEntry) -> newEntry.version >= oldEntry.version ? newEntry : oldEntry);
+        // 写入后再次检查，防止与并发的失效交错
+        if (isStale(id, version)) {
+            entries.remove(id, entry);
+        }
+        evictIfFull();
+    }
+
+    /**
+     * 按版本失效某个条目，并记录失效版本。
+     */
+    void invalidate(Long id, long version) {
+        invalidatedAt.merge(id, version, Math::max);
+        entries.computeIfPresent(id, (key, entry) -> entry.version < version ? null : entry);
+        if (invalidatedAt.size() > pruneThreshold) {
+            pruneInvalidations();
+        }
+    }
+
+    private boolean isStale(Long id, long version) {
+        Long invalidVersion = invalidatedAt.get(id);
+        return invalidVersion != null && invalidVersion > version;
+    }
+
+    // 标记只会拒绝版本更早的回填；不晚于所有进行中加载版本的标记，之后的加载也不会再用到
+    private void pruneInvalidations() {
+        long floor = bus.oldestPinnedVersion();
+        invalidatedAt.values().removeIf(version -> version <= floor);
+        pruneThreshold = Math.max(MIN_PRUNE_THRESHOLD, invalidatedAt.size() * 2);
+    }
+
+    // 超过上限时淘汰到上限的 90%，同一时间只有一个线程扫描
+    private void evictIfFull() {
+        if (entries.size() <= maxEntries || !evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int target = maxEntries - maxEntries / 10;
+            int passes = 0;
+            Iterator<Map.Entry<Long, Entry<V>>> it = entries.entrySet().iterator();
+            while (entries.size() > target) {
+                if (!it.hasNext()) {
+                    it = entries.entrySet().iterator();
+                    passes++;
+                    continue;
+                }
+                Map.Entry<Long, Entry<V>> candidate = it.next();
+                Entry<V> entry = candidate.getValue();
+                // 扫过两轮仍全是热条目（并发命中不断置位）时不再看访问位
+                if (entry.referenced && passes < 2) {
+                    entry.referenced = false;
+                } else {
+                    entries.remove(candidate.getKey(), entry);
+                }
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    /**
+     * 预热用的版本号，须在读取预热数据之前获取，并在 {@link #preload(Map, long)} 之后（或放弃预热时）
+     * 调用 {@link #releasePreloadVersion(long)}。此后收到失效事件的key在预热时会被跳过。
+     */
+    public long preloadVersion() {
+        return bus.pinVersion();
+    }
+
+    public void releasePreloadVersion(long version) {
+        bus.unpinVersion(version);
+    }
+
+    /**
+     * 批量写入预热数据，用于启动时从快照恢复。
+     *
+     * @param values  预热数据
+     * @param version 读取数据前通过 {@link #preloadVersion()} 获取的版本号
+     */
+    public void preload(Map<Long, V> values, long version) {
+        values.forEach((id, value) -> put(id, version, value));
+    }
+
+    /**
+     * 当前缓存的key，即本节点的热点集合。
+     */
+    public Set<Long> keys() {
+        return Set.copyOf(entries.keySet());
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    int invalidationMarkers() {
+        return invalidatedAt.size();
+    }
+}
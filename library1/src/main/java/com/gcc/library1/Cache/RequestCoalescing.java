@@ -0,0 +1,71 @@
+package com.gcc.library1.Cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 服务层的请求合并入口，按名称创建 {@link SingleFlight}，统一复用窗口和指标。
+ * 每次查询记录所依赖实体类型的失效序号（{@link InvalidationBus#sequence}），只合并序号相同的查询：
+ * 本节点收到这些类型（任一分馆、任一节点）的失效事件后，之前开始的查询和复用结果不再被合并，复用窗口不会跨过一次写入。
+ * <p>
+ * 指标：library.coalesce.requests、library.coalesce.executions 以及合并比例 library.coalesce.ratio，按 name 标签区分。
+ */
+@Component
+public class RequestCoalescing {
+
+    private final InvalidationBus invalidationBus;
+    private final long reuseMillis;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final Map<String, SingleFlight<?, ?>> flights = new ConcurrentHashMap<>();
+
+    public RequestCoalescing(InvalidationBus invalidationBus,
+                             ObjectProvider<MeterRegistry> meterRegistry,
+                             @Value("${library.coalesce.reuse-millis:200}") long reuseMillis) {
+        this.invalidationBus = invalidationBus;
+        this.reuseMillis = reuseMillis;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 获取（或创建）一个合并器。
+     *
+     * @param name        合并器名称，同时作为指标标签
+     * @param entityTypes 查询结果依赖的实体类型，如 {@link InvalidationBus#BOOK}；不给出时任何失效事件都会隔断合并
+     */
+    @SuppressWarnings("unchecked")
+    public <K, V> SingleFlight<K, V> flight(String name, String... entityTypes) {
+        return (SingleFlight<K, V>) flights.computeIfAbsent(name, key -> {
+            List<String> dependencies = List.of(entityTypes);
+            SingleFlight<K, V> flight = new SingleFlight<>(key, reuseMillis, () -> invalidationBus.sequence(dependencies));
+            meterRegistry.ifAvailable(registry -> register(registry, flight));
+            return flight;
+        });
+    }
+
+    public Map<String, SingleFlight<?, ?>> getFlights() {
+        return Map.copyOf(flights);
+    }
+
+    private static void register(MeterRegistry registry, SingleFlight<?, ?> flight) {
+        FunctionCounter.builder("library.coalesce.requests", flight, SingleFlight::getRequests)
+                .tag("name", flight.getName())
+                .description("进入合并器的请求数")
+                .register(registry);
+        FunctionCounter.builder("library.coalesce.executions", flight, SingleFlight::getExecutions)
+                .tag("name", flight.getName())
+                .description("实际执行查询的次数")
+                .register(registry);
+        Gauge.builder("library.coalesce.ratio", flight, SingleFlight::coalescingRatio)
+                .tag("name", flight.getName())
+                .description("被合并的请求占比")
+                .register(registry);
+    }
+}
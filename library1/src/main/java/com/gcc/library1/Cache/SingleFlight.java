@@ -0,0 +1,151 @@
+package com.gcc.library1.Cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 相同参数的并发查询合并为一次执行。
+ * 第一个到达的请求在自己的线程中执行查询（保留分馆上下文和事务），同一key的后续请求等待它的结果；
+ * 查询完成后的一小段复用窗口内到达的请求直接复用结果。失败不复用，等待中的请求收到同一个异常。
+ * 每次查询在开始时记录失效序号，请求只合并序号不小于自己的查询：收到相关实体的失效事件后，
+ * 之前开始的查询不会再被合并。由 {@link RequestCoalescing} 创建。
+ *
+ * @param <K> 归一化后的查询参数
+ * @param <V> 查询结果
+ */
+public class SingleFlight<K, V> {
+
+    // 超过该数量时顺带清理已过复用窗口的结果，避免检索词很分散时无限增长
+    private static final int SWEEP_THRESHOLD = 1024;
+
+    private static final class Flight<V> {
+        // 开始查询前读取的失效序号
+        private final long sequence;
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+        // 完成时间（nanoTime），在 future 完成前写入
+        private volatile long completedAt;
+
+        private Flight(long sequence) {
+            this.sequence = sequence;
+        }
+    }
+
+    private final String name;
+    private final long reuseNanos;
+    private final LongSupplier sequence;
+    private final ConcurrentHashMap<K, Flight<V>> flights = new ConcurrentHashMap<>();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder executions = new LongAdder();
+
+    SingleFlight(String name, long reuseMillis, LongSupplier sequence) {
+        this.name = name;
+        this.reuseNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, reuseMillis));
+        this.sequence = sequence;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 执行查询，与进行中或复用窗口内的相同查询合并。
+     *
+     * @param key    归一化后的查询参数，须包含影响结果的全部条件（如分馆）
+     * @param loader 查询函数
+     * @return 查询结果，合并的请求之间共享同一个对象
+     */
+    public V execute(K key, Supplier<V> loader) {
+        requests.increment();
+        Flight<V> mine = new Flight<>(sequence.getAsLong());
+        while (true) {
+            Flight<V> current = flights.putIfAbsent(key, mine);
+            if (current == null) {
+                break;
+            }
+            if (joinable(current, mine.sequence)) {
+                return await(current);
+            }
+            if (flights.replace(key, current, mine)) {
+                break;
+            }
+        }
+        executions.increment();
+        V value;
+        try {
+            value = loader.get();
+        } catch (RuntimeException | Error e) {
+            flights.remove(key, mine);
+            mine.future.completeExceptionally(e);
+            throw e;
+        }
+        mine.completedAt = System.nanoTime();
+        mine.future.complete(value);
+        if (reuseNanos == 0) {
+            flights.remove(key, mine);
+        } else if (flights.size() > SWEEP_THRESHOLD) {
+            sweep();
+        }
+        return value;
+    }
+
+    /**
+     * 丢弃全部进行中查询和复用结果。进行中的查询照常返回给已在等待的请求，但不再被新请求合并。
+     */
+    public void clear() {
+        flights.clear();
+    }
+
+    /**
+     * @return 请求总数
+     */
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    /**
+     * @return 实际执行查询的次数
+     */
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    /**
+     * @return 被合并（未执行查询）的请求占比
+     */
+    public double coalescingRatio() {
+        long total = requests.sum();
+        return total == 0 ? 0 : (double) (total - executions.sum()) / total;
+    }
+
+    private boolean joinable(Flight<V> flight, long sequence) {
+        if (flight.sequence < sequence) {
+            return false;
+        }
+        return !flight.future.isDone()
+                || (!flight.future.isCompletedExceptionally() && System.nanoTime() - flight.completedAt < reuseNanos);
+    }
+
+    private void sweep() {
+        long now = System.nanoTime();
+        flights.values().removeIf(flight -> flight.future.isDone() && now - flight.completedAt >= reuseNanos);
+    }
+
+    private static <V> V await(Flight<V> flight) {
+        try {
+            return flight.future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.gcc.library1.Config;
+
+import com.gcc.library1.Model.Book;
+import com.gcc.library1.Model.BookCopy;
+import com.gcc.library1.Model.BookHoldings;
+import com.gcc.library1.Model.BorrowHistory;
+import com.gcc.library1.Model.BorrowRecord;
+import com.gcc.library1.Model.ClosedLoan;
+import com.gcc.library1.Model.LoanStats;
+import com.gcc.library1.Model.Reservation;
+import com.gcc.library1.Model.SyncTombstone;
+import com.gcc.library1.Model.User;
+import com.gcc.library1.Roster.RosterSyncReport;
+import com.gcc.library1.Sync.SyncPage;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * GraalVM 原生镜像的反射和资源提示。
+ * 控制器多以 ResponseEntity&lt;?&gt; 返回实体，AOT 无法推断 Jackson 需要的 Lombok 访问器，这里显式注册。
+ */
+public class LibraryRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final Class<?>[] ENTITIES = {
+            Book.class, BookCopy.class, BookHoldings.class, User.class, BorrowRecord.class, ClosedLoan.class, LoanStats.class, BorrowHistory.class, Reservation.class, Reservation.Status.class,
+            SyncTombstone.class, SyncTombstone.Type.class, SyncPage.class, RosterSyncReport.class
+    };
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (Class<?> entity : ENTITIES) {
+            hints.reflection().registerType(entity,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_PUBLIC_METHODS,
+                    MemberCategory.DECLARED_FIELDS);
+        }
+        hints.resources().registerPattern("loan-policy.properties");
+        hints.resources().registerPattern("db/migration/*.sql");
+    }
+}
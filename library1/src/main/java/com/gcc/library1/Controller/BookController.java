@@ -2,10 +2,10 @@ package com.gcc.library1.Controller;
 
 import com.gcc.library1.Model.Book;
 import com.gcc.library1.Service.BookService;
-import com.gcc.library1.Service.BorrowRecordService;
 import com.gcc.library1.Service.UserService;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -24,7 +24,6 @@ import java.util.List;
 public class BookController {
     private final BookService bookService;
     private final UserService userService;
-    private final BorrowRecordService borrowService;
 
     /**
      * 添加一本新书到系统中。
@@ -104,7 +103,8 @@ public class BookController {
 
         try {
             // 调用服务层根据书名查询书籍
-            List<Book> books = bookService.getBooksByTitleLike("%"+title+"%");
+            // 去掉首尾空白，相同检索词的并发请求在服务层合并
+            List<Book> books = bookService.getBooksByTitleLike("%"+title.strip()+"%");
 
             // 检查查询结果是否为空
             if (books.isEmpty()) {
@@ -135,16 +135,44 @@ public class BookController {
             return new ResponseEntity<>("bookId不能为空", HttpStatus.BAD_REQUEST);
         }
 
+        // 任一副本在借都不能删除，在删除事务中检查
         try {
-            borrowService.getBorrowBookByBookId(id);
-            return new ResponseEntity<>(id+"该书已经借出", HttpStatus.NOT_ACCEPTABLE);
+            bookService.deleteBook(id);
+            return new ResponseEntity<>("bookid为" + id + "已删除", HttpStatus.OK);
+        } catch (EntityNotFoundException e1) {
+            return new ResponseEntity<>(e1.getMessage(), HttpStatus.NOT_FOUND);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(id + e.getMessage(), HttpStatus.NOT_ACCEPTABLE);
+        }
+    }
+
+    /**
+     * 查询一本书的馆藏副本及可借数。
+     */
+    @PostMapping("/book/{id}/copies")
+    public ResponseEntity<?> getCopies(@PathVariable Long id) {
+        try {
+            return new ResponseEntity<>(bookService.getHoldings(id), HttpStatus.OK);
         } catch (EntityNotFoundException e) {
-            try {
-                bookService.deleteBook(id);
-                return new ResponseEntity<>("bookid为" + id + "已删除", HttpStatus.OK);
-            } catch (EntityNotFoundException e1) {
-                return new ResponseEntity<>(e1.getMessage(), HttpStatus.NOT_FOUND);
-            }
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        }
+    }
+
+    /**
+     * 为一本书增加副本。
+     *
+     * @param id    图书ID
+     * @param count 增加的副本数，默认1
+     * @return 增加后的馆藏情况
+     */
+    @PostMapping("/book/{id}/copies/add")
+    public ResponseEntity<?> addCopies(@PathVariable Long id, @RequestParam(defaultValue = "1") int count) {
+        try {
+            return new ResponseEntity<>(bookService.addCopies(id, count), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (EntityNotFoundException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
         }
     }
 
@@ -166,6 +194,8 @@ public class BookController {
             book = bookService.updateBook(inputBook.getId(), inputBook);
         } catch (EntityNotFoundException e) {
             return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        } catch (OptimisticLockingFailureException e) {
+            return new ResponseEntity<>(inputBook.getId() + "，该书已被其他人修改，请刷新后重试", HttpStatus.CONFLICT);
         }
         return new ResponseEntity<>(book, HttpStatus.OK);
     }
@@ -1,12 +1,21 @@
 package com.gcc.library1.Controller;
 
+import com.gcc.library1.Model.Book;
 import com.gcc.library1.Model.BorrowRecord;
+import com.gcc.library1.Model.ClosedLoan;
+import com.gcc.library1.Model.LoanStats;
+import com.gcc.library1.Model.User;
+import com.gcc.library1.Policy.LoanRule;
 import com.gcc.library1.Service.BookService;
 import com.gcc.library1.Service.BorrowHistoryService;
 import com.gcc.library1.Service.BorrowRecordService;
+import com.gcc.library1.Service.LoanPolicyService;
+import com.gcc.library1.Service.ReservationService;
 import com.gcc.library1.Service.UserService;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -28,6 +37,8 @@ public class BorrowRecordController {
     private final BookService bookService;
     private final UserService userService;
     private final BorrowHistoryService borrowHistoryService;
+    private final ReservationService reservationService;
+    private final LoanPolicyService loanPolicyService;
 
     /**
      * 添加一条新的借阅记录（即借书操作）。
@@ -37,7 +48,8 @@ public class BorrowRecordController {
      *         - 成功时返回HttpStatus.OK，并附带成功信息；
      *         - 参数缺失时返回HttpStatus.BAD_REQUEST；
      *         - 用户或书籍不存在时返回HttpStatus.NOT_FOUND；
-     *         - 书籍已被借出时返回HttpStatus.CONFLICT。
+     *         - 用户已停用时返回HttpStatus.FORBIDDEN；
+     *         - 书籍副本已全部借出、正为其他用户预留或该用户已借阅该书时返回HttpStatus.CONFLICT。
      */
     @PostMapping("/add")
     public ResponseEntity<?> registerBorrow(@RequestBody BorrowRecord inputBorrowRecord) {
@@ -50,32 +62,53 @@ public class BorrowRecordController {
         }
 
         // 用户存在性检查
+        User user;
         try {
-            userService.getUserById(userId);
+            user = userService.getUserById(userId);
         } catch (EntityNotFoundException e) {
             return new ResponseEntity<>(userId + "，借书失败，用户不存在", HttpStatus.NOT_FOUND);
         }
+        // 已停用的用户（不在名单中，如已离校）不能借书
+        if (!user.isActive()) {
+            return new ResponseEntity<>(userId + "，借书失败，用户已停用", HttpStatus.FORBIDDEN);
+        }
 
         // 图书存在性检查
+        Book book;
         try {
-            bookService.getBookById(bookId);
+            book = bookService.getBookById(bookId);
         } catch (EntityNotFoundException e) {
             return new ResponseEntity<>(bookId + "，已借失败，该书不存在", HttpStatus.NOT_FOUND);
         }
 
-        // 判断图书是否已经被借出
-        try {
-            borrowService.getBorrowBookByBookId(bookId);
+        // 同一读者不能同时借同一本书的两个副本
+        if (borrowService.getBorrowsByBookId(bookId).stream().anyMatch(record -> userId.equals(record.getUserId()))) {
+            return new ResponseEntity<>(bookId + "，已借失败，您已借阅该书", HttpStatus.CONFLICT);
+        }
+        // 判断是否还有可借副本
+        if (bookService.availableCopies(bookId) == 0) {
             return new ResponseEntity<>(bookId + "，已借失败，该书已被借", HttpStatus.CONFLICT); // 更准确的状态码
-        } catch (EntityNotFoundException e) {
-            // 如果没找到，则说明尚未借出，可以继续执行借阅逻辑
-            LocalDate borrowDate = LocalDate.now();
-            LocalDate returnDate = borrowDate.plusDays(90); // TODO: 后续可通过配置获取天数
+        }
+        // 有可借副本，再检查是否为其他用户预留
+        if (!reservationService.checkHold(bookId, userId)) {
+            return new ResponseEntity<>(bookId + "，已借失败，该书已为其他用户预留", HttpStatus.CONFLICT);
+        }
+        // 借阅天数由借阅策略按用户类型和图书分类决定
+        LoanRule rule = loanPolicyService.ruleFor(user.getUserType(), book.getCategory());
+        LocalDate borrowDate = LocalDate.now();
+        LocalDate returnDate = rule.dueDate(borrowDate);
 
+        try {
             borrowService.addBorrow(bookId, userId, borrowDate, returnDate);
-            borrowHistoryService.addBorrowHistory(bookId, userId, "借书90天");
-            return new ResponseEntity<>(userId + "," + bookId + "," + "已借成功", HttpStatus.OK);
+        } catch (IllegalStateException conflict) {
+            // 并发借同一本书时，可借数的条件递减只放行与副本数相同的借阅；预约保留在借书事务中按数据库再次判断
+            return new ResponseEntity<>(bookId + "，已借失败，" + conflict.getMessage(), HttpStatus.CONFLICT);
+        } catch (DataIntegrityViolationException conflict) {
+            // 同一读者的重复借阅由唯一索引拦截
+            return new ResponseEntity<>(bookId + "，已借失败，该书已被借", HttpStatus.CONFLICT);
         }
+        borrowHistoryService.addBorrowHistory(bookId, userId, rule.getBorrowBehaviour());
+        return new ResponseEntity<>(userId + "," + bookId + "," + "已借成功", HttpStatus.OK);
     }
 
     /**
@@ -86,6 +119,8 @@ public class BorrowRecordController {
      *         - 成功时返回HttpStatus.OK，并附带新归还日期；
      *         - 找不到对应借阅记录时返回HttpStatus.NOT_FOUND；
      *         - 用户ID与原借阅人不符时返回HttpStatus.NOT_FOUND；
+     *         - 用户已停用时返回HttpStatus.FORBIDDEN；
+     *         - 并发续借冲突且重试失败、或续借次数已达上限时返回HttpStatus.CONFLICT；
      *         - 出现异常时返回HttpStatus.INTERNAL_SERVER_ERROR。
      */
     @PostMapping("/updateBorrow")
@@ -94,33 +129,43 @@ public class BorrowRecordController {
         Long userId = inputBorrowRecord.getUserId();
 
         try {
-            BorrowRecord borrowRecord = borrowService.getBorrowBookByBookId(bookId);
+            List<BorrowRecord> borrows = borrowService.getBorrowsByBookId(bookId);
 
-            if (borrowRecord == null) {
+            if (borrows.isEmpty()) {
                 return new ResponseEntity<>(bookId + "，更新失败，请检查书籍id是否正确", HttpStatus.NOT_FOUND);
             }
 
-            LocalDate returnDate = borrowRecord.getReturnDate().plusDays(90);
-            if (Objects.equals(borrowRecord.getUserId(), userId)) {
-                borrowService.updateBorrow(bookId, borrowRecord.getUserId(), returnDate);
-                borrowHistoryService.addBorrowHistory(bookId, userId, "续借90天");
+            if (borrows.stream().anyMatch(record -> Objects.equals(record.getUserId(), userId))) {
+                User user = userService.getUserById(userId);
+                if (!user.isActive()) {
+                    return new ResponseEntity<>(userId + "，续借失败，用户已停用", HttpStatus.FORBIDDEN);
+                }
+                LoanRule rule = loanPolicyService.ruleFor(user.getUserType(),
+                        bookService.getBookById(bookId).getCategory());
+                // 在服务层原子地顺延归还日期，避免并发续借互相覆盖
+                LocalDate returnDate = borrowService.renewBorrow(bookId, userId, rule).getReturnDate();
+                borrowHistoryService.addBorrowHistory(bookId, userId, rule.getRenewBehaviour());
                 return new ResponseEntity<>(bookId+"归还日期已更改为"+returnDate, HttpStatus.OK);
             } else {
                 return new ResponseEntity<>(userId + "，更新失败，请检查用户id是否正确", HttpStatus.NOT_FOUND);
             }
+        } catch (OptimisticLockingFailureException e) {
+            return new ResponseEntity<>(bookId + "，续借冲突，请稍后重试", HttpStatus.CONFLICT);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(bookId + "，续借失败，" + e.getMessage(), HttpStatus.CONFLICT);
         } catch (Exception e) {
             return new ResponseEntity<>("系统异常：" + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
     /**
-     * 删除指定书籍的借阅记录（即还书操作）。
+     * 删除指定书籍的借阅记录（即还书操作），记录归档为已归还借阅。
      *
-     * @param inputBorrowRecord 包含bookId的借阅信息对象
+     * @param inputBorrowRecord 包含bookId的借阅信息对象；该书有多本副本在借时需同时提供userId
      * @return ResponseEntity<?> 返回操作结果状态及消息：
      *         - 成功时返回HttpStatus.OK，并提示“已还成功”；
-     *         - 请求体为空或书籍ID为空时返回HttpStatus.BAD_REQUEST；
-     *         - 借阅记录未找到时返回HttpStatus.NOT_FOUND；
+     *         - 请求体为空、书籍ID为空，或多本副本在借而未提供userId时返回HttpStatus.BAD_REQUEST；
+     *         - 借阅记录未找到或已被并发归还时返回HttpStatus.NOT_FOUND；
      *         - 其他异常情况返回HttpStatus.INTERNAL_SERVER_ERROR。
      */
     @DeleteMapping("/back")
@@ -137,13 +182,21 @@ public class BorrowRecordController {
             return new ResponseEntity<>("书籍ID不能为空", HttpStatus.BAD_REQUEST);
         }
         try {
-            BorrowRecord borrowRecord = borrowService.getBorrowBookByBookId(bookId);
+            // 一本书有多本副本在借时需要带上借阅人
+            BorrowRecord borrowRecord = borrowService.getBorrowRecord(bookId, inputBorrowRecord.getUserId());
             Long userId = borrowRecord.getUserId();
-            borrowService.deleteBorrow(bookId);
+            borrowService.deleteBorrow(bookId, userId);
             borrowHistoryService.addBorrowHistory(bookId, userId, "还书");
+            // 通知预约队列，为下一位预约者保留
+            reservationService.onBookReturned(bookId);
             return new ResponseEntity<>(bookId + "已还成功", HttpStatus.OK);
         } catch (EntityNotFoundException e) {
             return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        } catch (OptimisticLockingFailureException e) {
+            // 同一本书被并发归还，记录已由另一请求删除
+            return new ResponseEntity<>(bookId + "，还书失败，该书已归还", HttpStatus.NOT_FOUND);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(bookId + "，还书失败，" + e.getMessage(), HttpStatus.BAD_REQUEST);
         } catch (Exception e) {
             // 捕获其他可能的异常，避免500错误
             return new ResponseEntity<>("还书失败，请稍后重试", HttpStatus.INTERNAL_SERVER_ERROR);
@@ -224,6 +277,57 @@ public class BorrowRecordController {
             return new ResponseEntity<>("查询失败，请稍后重试", HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
+    /**
+     * 根据用户ID查询其已归还的借阅记录，包含借出日期、应还日期、实际归还日期和续借次数。
+     *
+     * @param inputBorrowRecord 包含userId的请求体数据
+     * @return ResponseEntity<?> 返回操作结果状态及消息：
+     *         - 成功时返回HttpStatus.OK，并携带已归还借阅列表；
+     *         - 用户ID为空时返回HttpStatus.BAD_REQUEST；
+     *         - 用户不存在时返回HttpStatus.NOT_FOUND；
+     *         - 查询过程中发生异常则返回HttpStatus.INTERNAL_SERVER_ERROR。
+     */
+    @PostMapping("/closed")
+    public ResponseEntity<?> getClosedLoansByUserId(@RequestBody BorrowRecord inputBorrowRecord) {
+        Long userId = inputBorrowRecord.getUserId();
+        if (userId == null) {
+            return new ResponseEntity<>("用户ID不能为空", HttpStatus.BAD_REQUEST);
+        }
+
+        try {
+            // 验证用户是否存在
+            userService.getUserById(userId);
+        } catch (EntityNotFoundException e) {
+            return new ResponseEntity<>("用户不存在", HttpStatus.NOT_FOUND);
+        }
+
+        try {
+            List<ClosedLoan> closedLoans = borrowService.getClosedLoansByUserId(userId);
+            return new ResponseEntity<>(closedLoans, HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>("查询失败，请稍后重试", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * 已归还借阅的时长与逾期统计，只读取已归还借阅，不访问在借记录。
+     *
+     * @param inputBorrowRecord 可选的bookId；提供时统计当前分馆该书，否则统计所有分馆
+     * @return ResponseEntity<?> 返回操作结果状态及消息：
+     *         - 成功时返回HttpStatus.OK，并携带统计结果；
+     *         - 查询过程中发生异常则返回HttpStatus.INTERNAL_SERVER_ERROR。
+     */
+    @PostMapping("/stats")
+    public ResponseEntity<?> getLoanStats(@RequestBody(required = false) BorrowRecord inputBorrowRecord) {
+        Long bookId = inputBorrowRecord == null ? null : inputBorrowRecord.getBookId();
+        try {
+            LoanStats stats = bookId == null ? borrowService.getLoanStats() : borrowService.getLoanStatsByBookId(bookId);
+            return new ResponseEntity<>(stats, HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>("查询失败，请稍后重试", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     /**
      * 获取所有借书记录
      *
@@ -0,0 +1,53 @@
+package com.gcc.library1.Controller;
+
+import com.gcc.library1.Model.Book;
+import com.gcc.library1.Recommend.CoOccurrenceSnapshot;
+import com.gcc.library1.Service.BookService;
+import com.gcc.library1.Service.RecommendationService;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 图书推荐控制器，提供“借过这本书的读者还借过”查询。
+ */
+@RestController
+@RequestMapping("/api/recommend")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class RecommendationController {
+
+    private static final int DEFAULT_LIMIT = 10;
+
+    private final RecommendationService recommendationService;
+    private final BookService bookService;
+
+    /**
+     * 根据书籍ID获取相关推荐。
+     *
+     * @param id    书籍ID
+     * @param limit 最多返回数量，默认10
+     * @return 按共现次数降序排列的书籍列表；书籍ID无效时返回HttpStatus.BAD_REQUEST
+     */
+    @GetMapping("/book/{id}")
+    public ResponseEntity<?> recommendByBook(@PathVariable Long id,
+                                             @RequestParam(defaultValue = "" + DEFAULT_LIMIT) int limit) {
+        if (id == null || limit <= 0) {
+            return new ResponseEntity<>("参数不合法", HttpStatus.BAD_REQUEST);
+        }
+        List<Book> books = new ArrayList<>();
+        for (CoOccurrenceSnapshot.Neighbour neighbour : recommendationService.recommend(id, limit)) {
+            try {
+                books.add(bookService.getBookById(neighbour.bookId()));
+            } catch (EntityNotFoundException e) {
+                // 书籍已删除，跳过
+            }
+        }
+        return new ResponseEntity<>(books, HttpStatus.OK);
+    }
+}
@@ -0,0 +1,145 @@
+package com.gcc.library1.Controller;
+
+import com.gcc.library1.Model.Reservation;
+import com.gcc.library1.Model.User;
+import com.gcc.library1.Service.BookService;
+import com.gcc.library1.Service.BorrowRecordService;
+import com.gcc.library1.Service.ReservationService;
+import com.gcc.library1.Service.UserService;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * 预约控制器类，用于处理图书预约、取消预约和预约查询相关的HTTP请求。
+ */
+@RestController
+@RequestMapping("/api/reservation")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class ReservationController {
+
+    private final ReservationService reservationService;
+    private final BorrowRecordService borrowService;
+    private final BookService bookService;
+    private final UserService userService;
+
+    /**
+     * 预约一本可借副本已全部借出或已为他人保留的书。
+     *
+     * @param inputReservation 包含bookId和userId的预约信息对象
+     * @return ResponseEntity<?> 返回操作结果状态及消息：
+     *         - 成功时返回HttpStatus.OK，并附带预约记录；
+     *         - 参数缺失时返回HttpStatus.BAD_REQUEST；
+     *         - 用户或书籍不存在时返回HttpStatus.NOT_FOUND；
+     *         - 用户已停用时返回HttpStatus.FORBIDDEN；
+     *         - 书籍还有未被保留的可借副本、或用户已预约/已借阅该书时返回HttpStatus.CONFLICT。
+     */
+    @PostMapping("/add")
+    public ResponseEntity<?> addReservation(@RequestBody Reservation inputReservation) {
+        Long bookId = inputReservation.getBookId();
+        Long userId = inputReservation.getUserId();
+
+        if (bookId == null || userId == null) {
+            return new ResponseEntity<>("bookId或者userId参数缺失", HttpStatus.BAD_REQUEST);
+        }
+
+        User user;
+        try {
+            user = userService.getUserById(userId);
+        } catch (EntityNotFoundException e) {
+            return new ResponseEntity<>(userId + "，预约失败，用户不存在", HttpStatus.NOT_FOUND);
+        }
+        if (!user.isActive()) {
+            return new ResponseEntity<>(userId + "，预约失败，用户已停用", HttpStatus.FORBIDDEN);
+        }
+
+        try {
+            bookService.getBookById(bookId);
+        } catch (EntityNotFoundException e) {
+            return new ResponseEntity<>(bookId + "，预约失败，该书不存在", HttpStatus.NOT_FOUND);
+        }
+
+        if (borrowService.getBorrowsByBookId(bookId).stream().anyMatch(record -> userId.equals(record.getUserId()))) {
+            return new ResponseEntity<>(bookId + "，预约失败，您已借阅该书", HttpStatus.CONFLICT);
+        }
+        // 已为其他预约保留的副本不算可借
+        if (reservationService.freeCopies(bookId) > 0) {
+            return new ResponseEntity<>(bookId + "，该书当前可借，无需预约", HttpStatus.CONFLICT);
+        }
+
+        try {
+            Reservation reservation = reservationService.reserve(bookId, userId);
+            return new ResponseEntity<>(reservation, HttpStatus.OK);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
+        } catch (DataIntegrityViolationException e) {
+            // 多个节点并发提交同一读者的预约，由有效预约唯一索引拦截
+            return new ResponseEntity<>("用户 " + userId + " 已预约书籍 " + bookId, HttpStatus.CONFLICT);
+        } catch (Exception e) {
+            return new ResponseEntity<>("预约失败，请稍后重试", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * 取消预约。
+     *
+     * @param inputReservation 包含bookId和userId的预约信息对象
+     * @return ResponseEntity<?> 返回操作结果状态及消息：
+     *         - 成功时返回HttpStatus.OK；
+     *         - 参数缺失时返回HttpStatus.BAD_REQUEST；
+     *         - 预约不存在时返回HttpStatus.NOT_FOUND。
+     */
+    @DeleteMapping("/cancel")
+    public ResponseEntity<?> cancelReservation(@RequestBody Reservation inputReservation) {
+        Long bookId = inputReservation.getBookId();
+        Long userId = inputReservation.getUserId();
+
+        if (bookId == null || userId == null) {
+            return new ResponseEntity<>("bookId或者userId参数缺失", HttpStatus.BAD_REQUEST);
+        }
+
+        try {
+            reservationService.cancel(bookId, userId);
+            return new ResponseEntity<>(bookId + "预约已取消", HttpStatus.OK);
+        } catch (EntityNotFoundException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        }
+    }
+
+    /**
+     * 根据用户ID查询其所有预约记录。
+     *
+     * @param inputReservation 包含userId的请求体数据
+     * @return ResponseEntity<?> 成功时返回预约记录列表，用户ID为空时返回HttpStatus.BAD_REQUEST
+     */
+    @PostMapping("/user")
+    public ResponseEntity<?> getReservationsByUserId(@RequestBody Reservation inputReservation) {
+        Long userId = inputReservation.getUserId();
+        if (userId == null) {
+            return new ResponseEntity<>("用户ID不能为空", HttpStatus.BAD_REQUEST);
+        }
+        List<Reservation> reservations = reservationService.getReservationsByUserId(userId);
+        return new ResponseEntity<>(reservations, HttpStatus.OK);
+    }
+
+    /**
+     * 查询某本书当前的预约队列。
+     *
+     * @param inputReservation 包含bookId的请求体数据
+     * @return ResponseEntity<?> 成功时返回按先后排序的预约列表，书籍ID为空时返回HttpStatus.BAD_REQUEST
+     */
+    @PostMapping("/book")
+    public ResponseEntity<?> getQueueByBookId(@RequestBody Reservation inputReservation) {
+        Long bookId = inputReservation.getBookId();
+        if (bookId == null) {
+            return new ResponseEntity<>("书籍ID不能为空", HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(reservationService.getQueueByBookId(bookId), HttpStatus.OK);
+    }
+}
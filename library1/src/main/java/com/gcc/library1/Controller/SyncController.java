@@ -0,0 +1,45 @@
+package com.gcc.library1.Controller;
+
+import com.gcc.library1.Service.SyncService;
+import com.gcc.library1.Sync.SyncPage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 增量同步控制器。客户端保存本地副本和上次同步的修订号，只拉取之后的变更。
+ */
+@RestController
+@RequestMapping("/api/sync")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class SyncController {
+
+    private static final int DEFAULT_LIMIT = 500;
+
+    private final SyncService syncService;
+
+    /**
+     * 获取当前分馆自 since 以来的图书和借阅记录变更。
+     *
+     * @param since 上次同步返回的 revision，首次同步传0
+     * @param limit 每页最多条数，默认500
+     * @return ResponseEntity<?> 返回操作结果状态及消息：
+     *         - 成功时返回HttpStatus.OK，并携带一页变更；hasMore为true时应以返回的revision继续请求；
+     *         - 参数不合法时返回HttpStatus.BAD_REQUEST；
+     *         - 同步点早于已压缩的删除记录时返回HttpStatus.GONE，客户端需清空本地副本后从since=0重新同步。
+     */
+    @GetMapping
+    public ResponseEntity<?> sync(@RequestParam(defaultValue = "0") long since,
+                                  @RequestParam(defaultValue = "" + DEFAULT_LIMIT) int limit) {
+        if (since < 0 || limit <= 0) {
+            return new ResponseEntity<>("参数不合法", HttpStatus.BAD_REQUEST);
+        }
+        SyncPage page = syncService.changesSince(since, limit);
+        if (page.resetRequired()) {
+            return new ResponseEntity<>(page, HttpStatus.GONE);
+        }
+        return new ResponseEntity<>(page, HttpStatus.OK);
+    }
+}
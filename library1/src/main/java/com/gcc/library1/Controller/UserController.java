@@ -1,17 +1,25 @@
 package com.gcc.library1.Controller;
 
 import com.gcc.library1.Model.User;
+import com.gcc.library1.Roster.RosterSyncReport;
 import com.gcc.library1.Service.BorrowRecordService;
 import com.gcc.library1.Service.UserService;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
 
 /**
- * 用户控制器，提供用户注册、登录和删除功能。
+ * 用户控制器，提供用户注册、登录、修改和删除功能。
  */
 @RestController
 @RequestMapping("/api/users")
@@ -62,6 +70,36 @@ public class UserController {
     }
 
 
+    /**
+     * 修改用户名和密码。
+     *
+     * @param user 包含ID、新用户名和新密码的用户对象，可携带version用于冲突检测
+     * @return 修改成功返回用户信息；用户不存在返回NOT_FOUND；并发修改冲突或新用户名已被占用返回CONFLICT
+     */
+    @PostMapping("/update")
+    public ResponseEntity<?> updateUser(@RequestBody User user) {
+        if (user == null || user.getId() == null) {
+            return new ResponseEntity<>("用户信息不完整", HttpStatus.BAD_REQUEST);
+        }
+        if (user.getName() == null || user.getName().trim().isEmpty()) {
+            return new ResponseEntity<>("用户名不能为空", HttpStatus.BAD_REQUEST);
+        }
+        if (user.getPassword() == null || user.getPassword().trim().isEmpty()) {
+            return new ResponseEntity<>("密码不能为空", HttpStatus.BAD_REQUEST);
+        }
+
+        try {
+            return new ResponseEntity<>(userService.updateUser(user.getId(), user), HttpStatus.OK);
+        } catch (EntityNotFoundException e) {
+            return new ResponseEntity<>("找不到用户", HttpStatus.NOT_FOUND);
+        } catch (OptimisticLockingFailureException e) {
+            return new ResponseEntity<>("用户信息已被修改，请刷新后重试", HttpStatus.CONFLICT);
+        } catch (DataIntegrityViolationException e) {
+            // 用户名唯一约束，由数据库判定，避免先查后改的竞态
+            return new ResponseEntity<>("用户名已存在", HttpStatus.CONFLICT);
+        }
+    }
+
     /**
      * 删除指定用户。
      *
@@ -101,6 +139,31 @@ public class UserController {
     }
 
 
+    /**
+     * 按教务处名单批量同步用户，请求体为 UTF-8 编码的 CSV（name,password,userType），边读边比对。
+     * 只写入新增、变化和需停用的用户；失败后重新提交同一份名单即可。
+     * 要停用的用户超过上限比例时返回 409，确认名单完整后带 allowMassDeactivation=true 重新提交。
+     *
+     * @param roster                名单内容
+     * @param allowMassDeactivation 是否允许停用超过上限比例的用户
+     * @return 同步结果统计
+     */
+    @PostMapping(value = "/roster", consumes = {"text/csv", "text/plain"})
+    public ResponseEntity<?> syncRoster(InputStream roster,
+                                        @RequestParam(defaultValue = "false") boolean allowMassDeactivation) {
+        try {
+            RosterSyncReport report = userService.syncRoster(new InputStreamReader(roster, StandardCharsets.UTF_8),
+                    allowMassDeactivation);
+            return new ResponseEntity<>(report, HttpStatus.OK);
+        } catch (IOException e) {
+            return new ResponseEntity<>("名单读取失败", HttpStatus.BAD_REQUEST);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>("名单同步已停止，" + e.getMessage(), HttpStatus.CONFLICT);
+        } catch (DataIntegrityViolationException e) {
+            // 同步期间有同名用户注册，已提交的批次保留，重新同步即可
+            return new ResponseEntity<>("名单同步冲突，请重新提交", HttpStatus.CONFLICT);
+        }
+    }
 
     /**
      * 用户登录验证。
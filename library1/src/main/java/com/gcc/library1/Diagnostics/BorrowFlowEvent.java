@@ -0,0 +1,34 @@
+package com.gcc.library1.Diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 借阅流程事件，覆盖借书、续借、还书三个接口的控制器方法（不含响应序列化）。
+ */
+@Name("com.gcc.library1.BorrowFlow")
+@Label("Borrow Flow")
+@Category({"Library", "Borrow"})
+@Description("借书、续借、还书控制器方法的耗时和结果")
+@StackTrace(false)
+class BorrowFlowEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Book Id")
+    long bookId;
+
+    @Label("User Id")
+    long userId;
+
+    @Label("HTTP Status")
+    int status;
+
+    @Label("Outcome")
+    @Description("OK、CONFLICT、NOT_FOUND 等状态名，抛出异常时为异常类名")
+    String outcome;
+}
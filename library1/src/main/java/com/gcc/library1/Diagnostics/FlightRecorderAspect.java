@@ -0,0 +1,106 @@
+package com.gcc.library1.Diagnostics;
+
+import com.gcc.library1.Model.BorrowRecord;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+/**
+ * 为借阅接口、服务层和仓库层方法发出 JFR 事件。
+ * 没有录制时 shouldCommit() 为 false，只有事件对象的创建和两次时间戳读取，字段在确定提交后才填充。
+ */
+@Aspect
+@Component
+public class FlightRecorderAspect {
+
+    @Around("execution(* com.gcc.library1.Controller.BorrowRecordController.registerBorrow(..))"
+            + " || execution(* com.gcc.library1.Controller.BorrowRecordController.updateBorrow(..))"
+            + " || execution(* com.gcc.library1.Controller.BorrowRecordController.BackBook(..))")
+    public Object borrowFlow(ProceedingJoinPoint joinPoint) throws Throwable {
+        BorrowFlowEvent event = new BorrowFlowEvent();
+        event.begin();
+        Object result = null;
+        Throwable failure = null;
+        try {
+            result = joinPoint.proceed();
+            return result;
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = joinPoint.getSignature().getName();
+                if (joinPoint.getArgs().length > 0 && joinPoint.getArgs()[0] instanceof BorrowRecord input) {
+                    event.bookId = input.getBookId() == null ? 0 : input.getBookId();
+                    event.userId = input.getUserId() == null ? 0 : input.getUserId();
+                }
+                if (result instanceof ResponseEntity<?> response) {
+                    event.status = response.getStatusCode().value();
+                    HttpStatus status = HttpStatus.resolve(event.status);
+                    event.outcome = status == null ? String.valueOf(event.status) : status.name();
+                } else if (failure != null) {
+                    event.outcome = failure.getClass().getSimpleName();
+                }
+                event.commit();
+            }
+        }
+    }
+
+    @Around("within(com.gcc.library1.Service..*) && execution(public * *(..))")
+    public Object serviceCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        return call("service", joinPoint);
+    }
+
+    @Around("target(org.springframework.data.repository.Repository)")
+    public Object repositoryCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        return call("repository", joinPoint);
+    }
+
+    private static Object call(String layer, ProceedingJoinPoint joinPoint) throws Throwable {
+        ServiceCallEvent event = new ServiceCallEvent();
+        event.begin();
+        Throwable failure = null;
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.layer = layer;
+                event.component = componentName(joinPoint);
+                event.method = joinPoint.getSignature().getName();
+                event.id = firstId(joinPoint.getArgs());
+                event.outcome = failure == null ? "OK" : failure.getClass().getSimpleName();
+                event.commit();
+            }
+        }
+    }
+
+    // 仓库代理的类名是 $ProxyNN，取其实现的业务接口名
+    private static String componentName(ProceedingJoinPoint joinPoint) {
+        Class<?> type = joinPoint.getTarget() != null ? joinPoint.getTarget().getClass() : joinPoint.getSignature().getDeclaringType();
+        for (Class<?> candidate : type.getInterfaces()) {
+            if (candidate.getName().startsWith("com.gcc.library1.")) {
+                return candidate.getSimpleName();
+            }
+        }
+        String name = type.getSimpleName();
+        int proxy = name.indexOf("$$");
+        return proxy > 0 ? name.substring(0, proxy) : name;
+    }
+
+    private static long firstId(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof Long id) {
+                return id;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,151 @@
+package com.gcc.library1.Diagnostics;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JFR 录制端点（id 为 jfr），只通过 JMX 暴露（management.endpoints.jmx.exposure.include），不走 HTTP：
+ * 录制会写磁盘、占用 CPU，不能交给未经认证的外部请求。
+ * <ul>
+ *     <li>GET：当前录制状态；</li>
+ *     <li>POST /start：开始录制，可指定 settings（default/profile）、maxAgeSeconds、maxSizeMb；</li>
+ *     <li>POST /dump：把当前录制内容写入 library.jfr.dump-dir，录制继续；</li>
+ *     <li>POST /stop：写入文件后停止录制。</li>
+ * </ul>
+ * 录制始终有时长和大小上限（环形缓冲），请求的值超过 library.jfr.max-age-limit-seconds / max-size-limit-mb 时取上限；
+ * 同一时间只有一个录制；文件只写入配置目录，不接受外部路径。
+ */
+@Slf4j
+@Component
+@Endpoint(id = "jfr")
+public class FlightRecorderEndpoint {
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Path dumpDir;
+    private final long defaultMaxAgeSeconds;
+    private final long defaultMaxSizeMb;
+    private final long maxAgeLimitSeconds;
+    private final long maxSizeLimitMb;
+    private final boolean startOnBoot;
+    private Recording recording;
+
+    public FlightRecorderEndpoint(@Value("${library.jfr.dump-dir:jfr}") String dumpDir,
+                                  @Value("${library.jfr.max-age-seconds:600}") long defaultMaxAgeSeconds,
+                                  @Value("${library.jfr.max-size-mb:64}") long defaultMaxSizeMb,
+                                  @Value("${library.jfr.max-age-limit-seconds:3600}") long maxAgeLimitSeconds,
+                                  @Value("${library.jfr.max-size-limit-mb:256}") long maxSizeLimitMb,
+                                  @Value("${library.jfr.start-on-boot:false}") boolean startOnBoot) {
+        this.dumpDir = Path.of(dumpDir);
+        this.defaultMaxAgeSeconds = defaultMaxAgeSeconds;
+        this.defaultMaxSizeMb = defaultMaxSizeMb;
+        this.maxAgeLimitSeconds = maxAgeLimitSeconds;
+        this.maxSizeLimitMb = maxSizeLimitMb;
+        this.startOnBoot = startOnBoot;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void startOnBoot() throws IOException, ParseException {
+        if (startOnBoot) {
+            start("default", null, null);
+        }
+    }
+
+    @ReadOperation
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        if (recording == null) {
+            status.put("state", "NONE");
+            return status;
+        }
+        status.put("state", recording.getState().name());
+        status.put("name", recording.getName());
+        status.put("startTime", String.valueOf(recording.getStartTime()));
+        status.put("maxAgeSeconds", recording.getMaxAge() == null ? null : recording.getMaxAge().toSeconds());
+        status.put("maxSizeBytes", recording.getMaxSize());
+        status.put("sizeBytes", recording.getSize());
+        return status;
+    }
+
+    @WriteOperation
+    public synchronized Map<String, Object> control(@Selector String action, @Nullable String settings,
+                                                    @Nullable Long maxAgeSeconds, @Nullable Long maxSizeMb)
+            throws IOException, ParseException {
+        return switch (action) {
+            case "start" -> start(settings == null ? "default" : settings, maxAgeSeconds, maxSizeMb);
+            case "dump" -> Map.of("file", dump().toString());
+            case "stop" -> {
+                Path file = dump();
+                recording.close();
+                recording = null;
+                yield Map.of("file", file.toString());
+            }
+            default -> throw new InvalidEndpointRequestException("不支持的操作: " + action, "可选 start、dump、stop");
+        };
+    }
+
+    private synchronized Map<String, Object> start(String settings, @Nullable Long maxAgeSeconds, @Nullable Long maxSizeMb)
+            throws IOException, ParseException {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            throw new InvalidEndpointRequestException("已有录制在进行中", "先 stop 再 start");
+        }
+        if (!"default".equals(settings) && !"profile".equals(settings)) {
+            throw new InvalidEndpointRequestException("不支持的 settings: " + settings, "settings 只能是 default 或 profile");
+        }
+        Recording started = new Recording(Configuration.getConfiguration(settings));
+        started.setName("library-" + LocalDateTime.now().format(FILE_TIME));
+        started.setToDisk(true);
+        started.setMaxAge(Duration.ofSeconds(clamp(maxAgeSeconds == null ? defaultMaxAgeSeconds : maxAgeSeconds, maxAgeLimitSeconds)));
+        started.setMaxSize(clamp(maxSizeMb == null ? defaultMaxSizeMb : maxSizeMb, maxSizeLimitMb) * 1024 * 1024);
+        started.start();
+        recording = started;
+        log.info("JFR 录制已开始: {}（settings={}）", started.getName(), settings);
+        return status();
+    }
+
+    // 非正数或超过上限的值都会让录制失去边界，统一落到 [1, limit]
+    private static long clamp(long value, long limit) {
+        return Math.max(1, Math.min(value, limit));
+    }
+
+    private Path dump() throws IOException {
+        if (recording == null) {
+            throw new InvalidEndpointRequestException("当前没有录制", "先 start");
+        }
+        Files.createDirectories(dumpDir);
+        Path file = dumpDir.resolve(recording.getName() + "-" + LocalDateTime.now().format(FILE_TIME) + ".jfr").toAbsolutePath();
+        recording.dump(file);
+        log.info("JFR 录制已写入: {}", file);
+        return file;
+    }
+
+    @PreDestroy
+    synchronized void shutdown() {
+        if (recording != null) {
+            recording.close();
+        }
+    }
+}
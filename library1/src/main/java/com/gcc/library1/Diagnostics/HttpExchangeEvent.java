@@ -0,0 +1,25 @@
+package com.gcc.library1.Diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 一次 /api 请求的完整处理时间（含过滤器和响应序列化），与 {@link BorrowFlowEvent} 的差值即控制器之外的开销。
+ */
+@Name("com.gcc.library1.HttpExchange")
+@Label("HTTP Exchange")
+@Category({"Library", "HTTP"})
+@StackTrace(false)
+class HttpExchangeEvent extends jdk.jfr.Event {
+
+    @Label("Method")
+    String method;
+
+    @Label("Path")
+    String path;
+
+    @Label("HTTP Status")
+    int status;
+}
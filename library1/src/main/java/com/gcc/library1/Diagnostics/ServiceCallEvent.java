@@ -0,0 +1,37 @@
+package com.gcc.library1.Diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * 服务层和仓库层方法调用事件。调用频繁，默认只记录超过 1 毫秒的调用且不采集调用栈。
+ */
+@Name("com.gcc.library1.ServiceCall")
+@Label("Service Call")
+@Category({"Library", "Call"})
+@Description("服务层、仓库层方法的耗时和结果")
+@Threshold("1 ms")
+@StackTrace(false)
+class ServiceCallEvent extends jdk.jfr.Event {
+
+    @Label("Layer")
+    String layer;
+
+    @Label("Component")
+    String component;
+
+    @Label("Method")
+    String method;
+
+    @Label("Id")
+    @Description("第一个 Long 类型参数（通常是 bookId、userId 或主键），没有时为 0")
+    long id;
+
+    @Label("Outcome")
+    @Description("正常返回为 OK，抛出异常时为异常类名")
+    String outcome;
+}
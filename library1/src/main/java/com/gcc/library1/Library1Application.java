@@ -1,9 +1,12 @@
 package com.gcc.library1;
 
+import com.gcc.library1.Config.LibraryRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(LibraryRuntimeHints.class)
 public class Library1Application {
 
     public static void main(String[] args) {
@@ -4,6 +4,8 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.TenantId;
 
 
 @Entity
@@ -23,5 +25,27 @@ public class Book {
 
     @Column(length = 2000) // 设置简介字段的最大长度
     private String description; // 图书简介
-    // Getters and Setters
-}
\ No newline at end of file
+
+    private String category; // 图书分类，用于匹配借阅策略
+
+    // 乐观锁版本号，并发修改图书信息时用于检测冲突
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    // 同步修订号，每次变更由服务层分配，客户端据此增量同步
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long revision;
+
+    // 所属分馆，插入时按当前分馆自动填充，查询时自动按分馆过滤
+    @TenantId
+    @Column(length = 32, nullable = false)
+    private String branch;
+
+    // 近端缓存按副本返回，调用方修改返回值不会影响缓存
+    public Book copy() {
+        return new Book(Id, title, author, description, category, version, revision, branch);
+    }
+}
@@ -0,0 +1,50 @@
+package com.gcc.library1.Model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.TenantId;
+
+/**
+ * 图书的一本实体副本。同一本书（books 一行）可以有多本副本，借书时借出其中任意一本可借的副本。
+ */
+@Entity
+@Table(name = "book_copy")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookCopy {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long bookId;
+
+    // 副本条码，默认为 图书ID-序号
+    @Column(length = 64)
+    private String barcode;
+
+    // 是否已借出
+    @ColumnDefault("false")
+    @Column(nullable = false)
+    private boolean onLoan;
+
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    // 所属分馆，插入时按当前分馆自动填充，查询时自动按分馆过滤
+    @TenantId
+    @Column(length = 32, nullable = false)
+    private String branch;
+
+    // 副本列表缓存返回时逐个复制
+    public BookCopy copy() {
+        return new BookCopy(id, bookId, barcode, onLoan, version, branch);
+    }
+}
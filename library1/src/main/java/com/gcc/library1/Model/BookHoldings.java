@@ -0,0 +1,19 @@
+package com.gcc.library1.Model;
+
+import java.util.List;
+
+/**
+ * 一本书的馆藏情况。
+ *
+ * @param bookId          图书ID
+ * @param totalCopies     副本总数
+ * @param availableCopies 可借副本数
+ * @param copies          全部副本
+ */
+public record BookHoldings(Long bookId, int totalCopies, int availableCopies, List<BookCopy> copies) {
+
+    public static BookHoldings of(Long bookId, List<BookCopy> copies) {
+        int available = (int) copies.stream().filter(copy -> !copy.isOnLoan()).count();
+        return new BookHoldings(bookId, copies.size(), available, copies);
+    }
+}
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.TenantId;
 
 import java.time.LocalDate;
 
@@ -25,4 +26,9 @@ public class BorrowHistory {
 
     @Column(nullable = false)
     private String behavour;
+
+    // 所属分馆，插入时按当前分馆自动填充，查询时自动按分馆过滤
+    @TenantId
+    @Column(length = 32, nullable = false)
+    private String branch;
 }
@@ -3,6 +3,8 @@ package com.gcc.library1.Model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.TenantId;
 
 import java.time.LocalDate;
 
@@ -19,10 +21,38 @@ public class BorrowRecord {
 
     private Long bookId;
 
+    // 借出的副本
+    private Long copyId;
+
     private Long userId;
 
     private LocalDate borrowDate;
 
     private LocalDate returnDate;
 
-}
\ No newline at end of file
+    // 已续借次数
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private int renewCount;
+
+    // 版本号，续借等并发更新时用于检测冲突
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    // 同步修订号，每次变更由服务层分配，客户端据此增量同步
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long revision;
+
+    // 所属分馆，插入时按当前分馆自动填充，查询时自动按分馆过滤
+    @TenantId
+    @Column(length = 32, nullable = false)
+    private String branch;
+
+    // 在借列表缓存返回时逐条复制
+    public BorrowRecord copy() {
+        return new BorrowRecord(id, bookId, copyId, userId, borrowDate, returnDate, renewCount, version, revision, branch);
+    }
+}
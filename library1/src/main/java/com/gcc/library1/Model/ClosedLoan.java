@@ -0,0 +1,67 @@
+package com.gcc.library1.Model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.TenantId;
+
+import java.time.LocalDate;
+
+/**
+ * 一次已归还的借阅。还书时由在借记录搬移而来，只追加不修改，用于借阅时长和逾期统计。
+ */
+@Entity
+@Immutable
+@Table(name = "closed_loan")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClosedLoan {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // 原在借记录的ID
+    @Column(nullable = false)
+    private Long loanId;
+
+    @Column(nullable = false)
+    private Long bookId;
+
+    private Long copyId;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    private LocalDate borrowDate;
+
+    // 归还前最后一次确定的应还日期（含续借顺延）
+    private LocalDate dueDate;
+
+    // 实际归还日期
+    @Column(nullable = false)
+    private LocalDate returnedDate;
+
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private int renewCount;
+
+    // 借阅天数，借出当天归还为0
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private int loanDays;
+
+    // 逾期天数，按时归还为0
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private int lateDays;
+
+    // 所属分馆，插入时按当前分馆自动填充，查询时自动按分馆过滤
+    @TenantId
+    @Column(length = 32, nullable = false)
+    private String branch;
+}
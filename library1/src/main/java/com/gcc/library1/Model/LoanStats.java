@@ -0,0 +1,24 @@
+package com.gcc.library1.Model;
+
+/**
+ * 已归还借阅的时长与逾期统计。
+ *
+ * @param loans           已归还的借阅数
+ * @param averageLoanDays 平均借阅天数
+ * @param lateLoans       逾期归还的借阅数
+ * @param lateRate        逾期归还占比
+ * @param averageLateDays 逾期归还的平均逾期天数
+ */
+public record LoanStats(long loans, double averageLoanDays, long lateLoans, double lateRate, double averageLateDays) {
+
+    /**
+     * 由合计值计算统计结果，跨分馆统计时先把各分馆的合计值相加。
+     */
+    public static LoanStats of(long loans, long loanDays, long lateLoans, long lateDays) {
+        return new LoanStats(loans,
+                loans == 0 ? 0 : (double) loanDays / loans,
+                lateLoans,
+                loans == 0 ? 0 : (double) lateLoans / loans,
+                lateLoans == 0 ? 0 : (double) lateDays / lateLoans);
+    }
+}
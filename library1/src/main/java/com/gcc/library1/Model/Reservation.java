@@ -0,0 +1,55 @@
+package com.gcc.library1.Model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.TenantId;
+
+import java.time.LocalDateTime;
+
+/**
+ * 图书预约记录。同一本书的预约按 id 先后组成 FIFO 队列。
+ */
+@Entity
+@Table(name = "reservation")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Reservation {
+
+    public enum Status {
+        // 排队等待中
+        WAITING,
+        // 书已归还，为该用户保留，等待取书
+        READY,
+        // 用户已借走
+        FULFILLED,
+        // 保留期内未取书
+        EXPIRED,
+        // 用户取消
+        CANCELLED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long bookId;
+
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    private LocalDateTime createdAt;
+
+    // 进入READY状态后的保留截止时间
+    private LocalDateTime expireAt;
+
+    // 所属分馆，插入时按当前分馆自动填充，查询时自动按分馆过滤
+    @TenantId
+    @Column(length = 32, nullable = false)
+    private String branch;
+}
@@ -0,0 +1,44 @@
+package com.gcc.library1.Model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.TenantId;
+
+import java.time.LocalDateTime;
+
+/**
+ * 删除墓碑：记录被删除实体的类型和主键，供增量同步的客户端删除本地副本。
+ * 超过保留期后由压缩任务清理。
+ */
+@Entity
+@Table(name = "sync_tombstone")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncTombstone {
+
+    public enum Type {
+        BOOK, BORROW_RECORD
+    }
+
+    // 删除操作分配的修订号
+    @Id
+    private Long revision;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16, nullable = false)
+    private Type entityType;
+
+    @Column(nullable = false)
+    private Long entityId;
+
+    @Column(nullable = false)
+    private LocalDateTime deletedAt;
+
+    // 所属分馆，插入时按当前分馆自动填充，查询时自动按分馆过滤
+    @TenantId
+    @Column(length = 32, nullable = false)
+    private String branch;
+}
@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
 @Table(name = "users")
@@ -23,4 +24,26 @@ public class User {
     private String password;
 
     private String BorrowBook;
+
+    // 用户类型（如 STUDENT、TEACHER），用于匹配借阅策略
+    private String userType;
+
+    // 最近一次名单同步时该行内容的哈希，只有通过名单导入的用户才有值
+    private String rosterHash;
+
+    // 是否启用；已不在最新名单中的学生会被停用（不删除，保留借阅关联），停用后不能登录
+    @ColumnDefault("true")
+    @Column(nullable = false)
+    private boolean active = true;
+
+    // 乐观锁版本号
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    // 用户缓存返回副本，调用方改动返回的对象不会写回缓存
+    public User copy() {
+        return new User(Id, name, password, BorrowBook, userType, rosterHash, active, version);
+    }
 }
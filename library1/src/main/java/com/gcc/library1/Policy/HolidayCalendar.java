@@ -0,0 +1,44 @@
+package com.gcc.library1.Policy;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * 闭馆日历。节假日以 epochDay 升序存储，并预先计算每个节假日之后的第一个开馆日，
+ * 查询只需一次二分查找，不产生对象分配。
+ */
+public final class HolidayCalendar {
+
+    public static final HolidayCalendar EMPTY = new HolidayCalendar(new long[0]);
+
+    private final long[] holidays;
+    // nextOpen[i] 为 holidays[i] 之后（含连续假期）的第一个开馆日
+    private final long[] nextOpen;
+
+    private HolidayCalendar(long[] sortedHolidays) {
+        this.holidays = sortedHolidays;
+        this.nextOpen = new long[sortedHolidays.length];
+        for (int i = sortedHolidays.length - 1; i >= 0; i--) {
+            boolean consecutive = i + 1 < sortedHolidays.length && sortedHolidays[i + 1] == sortedHolidays[i] + 1;
+            nextOpen[i] = consecutive ? nextOpen[i + 1] : sortedHolidays[i] + 1;
+        }
+    }
+
+    public static HolidayCalendar of(Collection<LocalDate> dates) {
+        long[] days = dates.stream().mapToLong(LocalDate::toEpochDay).sorted().distinct().toArray();
+        return days.length == 0 ? EMPTY : new HolidayCalendar(days);
+    }
+
+    /**
+     * 若给定日期是闭馆日，返回其后第一个开馆日，否则原样返回。
+     */
+    public long nextOpenDay(long epochDay) {
+        int index = Arrays.binarySearch(holidays, epochDay);
+        return index >= 0 ? nextOpen[index] : epochDay;
+    }
+
+    public int size() {
+        return holidays.length;
+    }
+}
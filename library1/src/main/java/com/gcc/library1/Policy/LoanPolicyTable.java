@@ -0,0 +1,138 @@
+package com.gcc.library1.Policy;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * 借阅策略查找表，由配置一次性编译而成，不可变，可被多线程无锁读取。
+ * <p>
+ * 配置格式（properties）：
+ * <pre>
+ * rule.&lt;用户类型&gt;.&lt;图书分类&gt;.loan-days=90
+ * rule.&lt;用户类型&gt;.&lt;图书分类&gt;.renew-days=90
+ * rule.&lt;用户类型&gt;.&lt;图书分类&gt;.max-renewals=2   （-1 表示不限）
+ * holidays=2026-10-01,2026-10-02
+ * </pre>
+ * 用户类型和图书分类可用 * 表示任意。每个字段按“精确匹配 → 用户类型.* → *.图书分类 → *.*”的顺序取值。
+ */
+public final class LoanPolicyTable {
+
+    private static final String WILDCARD = "*";
+    private static final String[] FIELDS = {"loan-days", "renew-days", "max-renewals"};
+    private static final int[] FALLBACK = {90, 90, LoanRule.UNLIMITED};
+
+    private final Map<String, Integer> userTypeIndex;
+    private final Map<String, Integer> categoryIndex;
+    // rules[用户类型下标][图书分类下标]，下标0表示未配置的类型/分类
+    private final LoanRule[][] rules;
+
+    private LoanPolicyTable(Map<String, Integer> userTypeIndex, Map<String, Integer> categoryIndex, LoanRule[][] rules) {
+        this.userTypeIndex = userTypeIndex;
+        this.categoryIndex = categoryIndex;
+        this.rules = rules;
+    }
+
+    /**
+     * 查找规则，不分配对象。
+     *
+     * @param userType 用户类型，可为空
+     * @param category 图书分类，可为空
+     */
+    public LoanRule lookup(String userType, String category) {
+        int u = userType == null ? 0 : userTypeIndex.getOrDefault(userType, 0);
+        int c = category == null ? 0 : categoryIndex.getOrDefault(category, 0);
+        return rules[u][c];
+    }
+
+    /**
+     * 把配置编译为查找表。
+     *
+     * @throws IllegalArgumentException 配置格式错误时抛出
+     */
+    public static LoanPolicyTable compile(Properties properties) {
+        Map<String, Map<String, int[]>> specs = new HashMap<>();
+        Set<String> userTypes = new LinkedHashSet<>();
+        Set<String> categories = new LinkedHashSet<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (!key.startsWith("rule.")) {
+                continue;
+            }
+            String[] parts = key.split("\\.");
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("借阅规则配置格式错误: " + key);
+            }
+            int field = fieldIndex(parts[3], key);
+            int value = Integer.parseInt(properties.getProperty(key).trim());
+            specs.computeIfAbsent(parts[1], k -> new HashMap<>())
+                    .computeIfAbsent(parts[2], k -> new int[]{Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE})[field] = value;
+            if (!WILDCARD.equals(parts[1])) {
+                userTypes.add(parts[1]);
+            }
+            if (!WILDCARD.equals(parts[2])) {
+                categories.add(parts[2]);
+            }
+        }
+
+        HolidayCalendar calendar = parseHolidays(properties.getProperty("holidays", ""));
+        List<String> userTypeList = new ArrayList<>(userTypes);
+        List<String> categoryList = new ArrayList<>(categories);
+        LoanRule[][] rules = new LoanRule[userTypeList.size() + 1][categoryList.size() + 1];
+        for (int u = 0; u <= userTypeList.size(); u++) {
+            String userType = u == 0 ? WILDCARD : userTypeList.get(u - 1);
+            for (int c = 0; c <= categoryList.size(); c++) {
+                String category = c == 0 ? WILDCARD : categoryList.get(c - 1);
+                int[] resolved = new int[FIELDS.length];
+                for (int f = 0; f < FIELDS.length; f++) {
+                    resolved[f] = resolve(specs, userType, category, f);
+                }
+                rules[u][c] = new LoanRule(resolved[0], resolved[1], resolved[2], calendar);
+            }
+        }
+        return new LoanPolicyTable(index(userTypeList), index(categoryList), rules);
+    }
+
+    private static int resolve(Map<String, Map<String, int[]>> specs, String userType, String category, int field) {
+        String[][] chain = {{userType, category}, {userType, WILDCARD}, {WILDCARD, category}, {WILDCARD, WILDCARD}};
+        for (String[] candidate : chain) {
+            int[] spec = specs.getOrDefault(candidate[0], Collections.emptyMap()).get(candidate[1]);
+            if (spec != null && spec[field] != Integer.MIN_VALUE) {
+                return spec[field];
+            }
+        }
+        return FALLBACK[field];
+    }
+
+    private static int fieldIndex(String name, String key) {
+        for (int i = 0; i < FIELDS.length; i++) {
+            if (FIELDS[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("未知的借阅规则字段: " + key);
+    }
+
+    private static HolidayCalendar parseHolidays(String value) {
+        List<LocalDate> dates = new ArrayList<>();
+        for (String item : value.split(",")) {
+            if (!item.isBlank()) {
+                dates.add(LocalDate.parse(item.trim()));
+            }
+        }
+        return HolidayCalendar.of(dates);
+    }
+
+    private static Map<String, Integer> index(List<String> names) {
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            index.put(names.get(i), i + 1);
+        }
+        return Collections.unmodifiableMap(index);
+    }
+}
@@ -0,0 +1,66 @@
+package com.gcc.library1.Policy;
+
+import java.time.LocalDate;
+
+/**
+ * 编译后的单条借阅规则，不可变。借阅历史中使用的描述文本在编译时生成，借书路径上不再拼接字符串。
+ */
+public final class LoanRule {
+
+    // 不限续借次数
+    public static final int UNLIMITED = -1;
+
+    private final int loanDays;
+    private final int renewDays;
+    private final int maxRenewals;
+    private final HolidayCalendar calendar;
+    private final String borrowBehaviour;
+    private final String renewBehaviour;
+
+    public LoanRule(int loanDays, int renewDays, int maxRenewals, HolidayCalendar calendar) {
+        this.loanDays = loanDays;
+        this.renewDays = renewDays;
+        this.maxRenewals = maxRenewals;
+        this.calendar = calendar;
+        this.borrowBehaviour = "借书" + loanDays + "天";
+        this.renewBehaviour = "续借" + renewDays + "天";
+    }
+
+    /**
+     * 计算借书的应还日期，遇闭馆日顺延。
+     */
+    public LocalDate dueDate(LocalDate borrowDate) {
+        return LocalDate.ofEpochDay(calendar.nextOpenDay(borrowDate.toEpochDay() + loanDays));
+    }
+
+    /**
+     * 计算续借后的应还日期，遇闭馆日顺延。
+     */
+    public LocalDate renewedDueDate(LocalDate currentDueDate) {
+        return LocalDate.ofEpochDay(calendar.nextOpenDay(currentDueDate.toEpochDay() + renewDays));
+    }
+
+    public boolean canRenew(int renewCount) {
+        return maxRenewals == UNLIMITED || renewCount < maxRenewals;
+    }
+
+    public int getLoanDays() {
+        return loanDays;
+    }
+
+    public int getRenewDays() {
+        return renewDays;
+    }
+
+    public int getMaxRenewals() {
+        return maxRenewals;
+    }
+
+    public String getBorrowBehaviour() {
+        return borrowBehaviour;
+    }
+
+    public String getRenewBehaviour() {
+        return renewBehaviour;
+    }
+}
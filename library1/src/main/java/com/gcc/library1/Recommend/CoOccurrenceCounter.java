@@ -0,0 +1,97 @@
+package com.gcc.library1.Recommend;
+
+import com.gcc.library1.Util.LongIntHashMap;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 基于 Fork/Join 的共现计数。
+ * 输入为按用户分组的借阅书籍（CSR 格式：userOffsets[u]..userOffsets[u+1] 为第 u 个用户借过的书），
+ * 输出每对书籍被同一用户借阅的次数，键为 {@link #pairKey(long, long)}。
+ */
+public final class CoOccurrenceCounter {
+
+    // 叶子任务处理的用户数
+    private static final int LEAF_USERS = 2048;
+
+    private CoOccurrenceCounter() {
+    }
+
+    /**
+     * 无序书籍对的键（小ID在高32位），书籍ID须小于 2^31。
+     */
+    public static long pairKey(long bookA, long bookB) {
+        return bookA < bookB ? (bookA << 32) | bookB : (bookB << 32) | bookA;
+    }
+
+    public static long first(long pairKey) {
+        return pairKey >>> 32;
+    }
+
+    public static long second(long pairKey) {
+        return pairKey & 0xFFFFFFFFL;
+    }
+
+    /**
+     * 并行统计全部用户的共现次数。
+     *
+     * @param userOffsets 长度为用户数+1 的偏移数组
+     * @param books       所有用户借阅书籍的拼接数组，同一用户内不重复
+     */
+    public static LongIntHashMap count(int[] userOffsets, long[] books) {
+        int users = userOffsets.length - 1;
+        if (users <= 0) {
+            return new LongIntHashMap();
+        }
+        return ForkJoinPool.commonPool().invoke(new CountTask(userOffsets, books, 0, users));
+    }
+
+    /**
+     * 把单个用户的书籍两两组合后累加到计数表。
+     */
+    public static void countUser(long[] books, int from, int to, LongIntHashMap counts) {
+        for (int i = from; i < to; i++) {
+            for (int j = i + 1; j < to; j++) {
+                counts.addTo(pairKey(books[i], books[j]), 1);
+            }
+        }
+    }
+
+    private static final class CountTask extends RecursiveTask<LongIntHashMap> {
+        private final int[] userOffsets;
+        private final long[] books;
+        private final int fromUser;
+        private final int toUser;
+
+        private CountTask(int[] userOffsets, long[] books, int fromUser, int toUser) {
+            this.userOffsets = userOffsets;
+            this.books = books;
+            this.fromUser = fromUser;
+            this.toUser = toUser;
+        }
+
+        @Override
+        protected LongIntHashMap compute() {
+            if (toUser - fromUser <= LEAF_USERS) {
+                LongIntHashMap counts = new LongIntHashMap(1024);
+                for (int u = fromUser; u < toUser; u++) {
+                    countUser(books, userOffsets[u], userOffsets[u + 1], counts);
+                }
+                return counts;
+            }
+            int middle = (fromUser + toUser) >>> 1;
+            CountTask left = new CountTask(userOffsets, books, fromUser, middle);
+            left.fork();
+            LongIntHashMap right = new CountTask(userOffsets, books, middle, toUser).compute();
+            LongIntHashMap merged = left.join();
+            // 把较小的表合并进较大的表
+            if (merged.size() < right.size()) {
+                right.addAll(merged);
+                return right;
+            }
+            merged.addAll(right);
+            return merged;
+        }
+    }
+}
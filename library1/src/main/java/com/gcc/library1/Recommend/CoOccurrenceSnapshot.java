@@ -0,0 +1,153 @@
+package com.gcc.library1.Recommend;
+
+import com.gcc.library1.Util.LongIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * 不可变的 Top-K 共现快照，以 CSR 数组紧凑存储：
+ * bookIds 升序，第 i 本书的邻居为 neighbours[offsets[i]..offsets[i+1])，按共现次数降序。
+ * 查询为一次二分查找，快照整体替换，读取无需加锁。
+ */
+public final class CoOccurrenceSnapshot {
+
+    public static final CoOccurrenceSnapshot EMPTY =
+            new CoOccurrenceSnapshot(new long[0], new int[]{0}, new long[0], new int[0]);
+
+    /**
+     * 单个推荐结果。
+     */
+    public record Neighbour(long bookId, int score) {
+    }
+
+    private final long[] bookIds;
+    private final int[] offsets;
+    private final long[] neighbours;
+    private final int[] scores;
+
+    private CoOccurrenceSnapshot(long[] bookIds, int[] offsets, long[] neighbours, int[] scores) {
+        this.bookIds = bookIds;
+        this.offsets = offsets;
+        this.neighbours = neighbours;
+        this.scores = scores;
+    }
+
+    /**
+     * 获取与指定书籍共现次数最多的书籍。
+     *
+     * @param bookId 书籍ID
+     * @param limit  最多返回数量
+     */
+    public List<Neighbour> topK(long bookId, int limit) {
+        int index = Arrays.binarySearch(bookIds, bookId);
+        if (index < 0) {
+            return List.of();
+        }
+        int from = offsets[index];
+        int to = Math.min(offsets[index + 1], from + limit);
+        List<Neighbour> result = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            result.add(new Neighbour(neighbours[i], scores[i]));
+        }
+        return result;
+    }
+
+    public int bookCount() {
+        return bookIds.length;
+    }
+
+    /**
+     * 由共现计数表构建快照，每本书只保留共现次数最高的 k 个邻居。
+     */
+    public static CoOccurrenceSnapshot build(LongIntHashMap pairCounts, int k) {
+        int pairs = pairCounts.size();
+        if (pairs == 0) {
+            return EMPTY;
+        }
+        // 1. 收集并排序出现过的书籍，得到稠密下标
+        long[] endpoints = new long[pairs * 2];
+        int[] cursor = {0};
+        pairCounts.forEach((key, count) -> {
+            endpoints[cursor[0]++] = CoOccurrenceCounter.first(key);
+            endpoints[cursor[0]++] = CoOccurrenceCounter.second(key);
+        });
+        Arrays.parallelSort(endpoints);
+        long[] bookIds = unique(endpoints);
+        int n = bookIds.length;
+
+        // 2. 按书籍分组成 CSR（每对书籍双向各记一次）
+        int[] degree = new int[n + 1];
+        pairCounts.forEach((key, count) -> {
+            degree[Arrays.binarySearch(bookIds, CoOccurrenceCounter.first(key)) + 1]++;
+            degree[Arrays.binarySearch(bookIds, CoOccurrenceCounter.second(key)) + 1]++;
+        });
+        for (int i = 0; i < n; i++) {
+            degree[i + 1] += degree[i];
+        }
+        int[] fill = Arrays.copyOf(degree, n);
+        long[] allNeighbours = new long[pairs * 2];
+        int[] allScores = new int[pairs * 2];
+        pairCounts.forEach((key, count) -> {
+            long a = CoOccurrenceCounter.first(key);
+            long b = CoOccurrenceCounter.second(key);
+            int ia = Arrays.binarySearch(bookIds, a);
+            int ib = Arrays.binarySearch(bookIds, b);
+            allNeighbours[fill[ia]] = b;
+            allScores[fill[ia]++] = count;
+            allNeighbours[fill[ib]] = a;
+            allScores[fill[ib]++] = count;
+        });
+
+        // 3. 每本书并行选出 Top-K，写入紧凑数组
+        int[] kept = new int[n];
+        IntStream.range(0, n).parallel().forEach(i -> kept[i] = selectTopK(allNeighbours, allScores, degree[i], degree[i + 1], k));
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] = offsets[i] + kept[i];
+        }
+        long[] neighbours = new long[offsets[n]];
+        int[] scores = new int[offsets[n]];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(allNeighbours, degree[i], neighbours, offsets[i], kept[i]);
+            System.arraycopy(allScores, degree[i], scores, offsets[i], kept[i]);
+        }
+        return new CoOccurrenceSnapshot(bookIds, offsets, neighbours, scores);
+    }
+
+    /**
+     * 在 [from, to) 区间内做部分选择排序，把分数最高的 k 个（分数相同按书籍ID升序）移到区间前部并排好序。
+     *
+     * @return 保留的数量
+     */
+    private static int selectTopK(long[] ids, int[] scores, int from, int to, int k) {
+        int keep = Math.min(k, to - from);
+        for (int i = from; i < from + keep; i++) {
+            int best = i;
+            for (int j = i + 1; j < to; j++) {
+                if (scores[j] > scores[best] || scores[j] == scores[best] && ids[j] < ids[best]) {
+                    best = j;
+                }
+            }
+            long id = ids[i];
+            ids[i] = ids[best];
+            ids[best] = id;
+            int score = scores[i];
+            scores[i] = scores[best];
+            scores[best] = score;
+        }
+        return keep;
+    }
+
+    private static long[] unique(long[] sorted) {
+        int n = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[n++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, n);
+    }
+}
@@ -0,0 +1,25 @@
+package com.gcc.library1.Repository;
+
+import com.gcc.library1.Model.BookCopy;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BookCopyRepository extends JpaRepository<BookCopy, Long> {
+    List<BookCopy> findByBookIdOrderByIdAsc(Long bookId);
+
+    // 借书时锁定一个未借出的副本：按 (book_id, on_loan) 索引取第一行，并发借同一本书时在该行上排队，不会选中同一副本
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<BookCopy> findFirstByBookIdAndOnLoanFalse(Long bookId);
+
+    long countByBookId(Long bookId);
+
+    boolean existsByBookIdAndOnLoanTrue(Long bookId);
+
+    void deleteByBookId(Long bookId);
+}
@@ -1,6 +1,9 @@
 package com.gcc.library1.Repository;
 import com.gcc.library1.Model.Book;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,4 +14,32 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     List<Book> findByTitle(String title);
 
     List<Book> findByTitleLike(String title);
+
+    // 增量同步：修订号大于同步点的图书，按修订号升序分页
+    List<Book> findByRevisionGreaterThanOrderByRevisionAsc(Long revision, Limit limit);
+
+    // 删除图书前锁定图书行：借书、还书都会先更新该行的可借数，持锁期间副本的借出状态不会变化
+    @Query(value = "select id from books where id = ?1 for update", nativeQuery = true)
+    Optional<Long> lockById(Long id);
+
+    // 锁定图书行并读取可借数：同一本书的预约提升、取书与借还书都在该行上排队，多个节点之间也是如此
+    @Query(value = "select available_copies from books where id = ?1 for update", nativeQuery = true)
+    Optional<Integer> lockAvailableCopies(Long id);
+
+    // 可借数条件递减，返回0表示没有可借副本。计数列不映射到实体，更新图书信息时不会覆盖
+    @Modifying
+    @Query(value = "update books set available_copies = available_copies - 1 where id = ?1 and available_copies > 0",
+            nativeQuery = true)
+    int takeCopy(Long id);
+
+    // 可借数条件递增，不会超过副本总数
+    @Modifying
+    @Query(value = "update books set available_copies = available_copies + 1 where id = ?1 and available_copies < total_copies",
+            nativeQuery = true)
+    int releaseCopy(Long id);
+
+    @Modifying
+    @Query(value = "update books set total_copies = total_copies + ?2, available_copies = available_copies + ?2 where id = ?1",
+            nativeQuery = true)
+    int addCopies(Long id, int count);
 }
\ No newline at end of file
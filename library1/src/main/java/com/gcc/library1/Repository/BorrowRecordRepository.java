@@ -1,6 +1,7 @@
 package com.gcc.library1.Repository;
 
 import com.gcc.library1.Model.BorrowRecord;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -10,11 +11,16 @@ import java.util.Optional;
 
 @Repository
 public interface BorrowRecordRepository extends JpaRepository<BorrowRecord, Long> {
-    Optional<BorrowRecord> findByBookId(Long bookId);
+    // 一本书的多个副本可以同时借出
+    List<BorrowRecord> findByBookId(Long bookId);
+    // 同一读者同一本书最多一条在借记录
+    Optional<BorrowRecord> findByBookIdAndUserId(Long bookId, Long userId);
     // 文件：BorrowRecordRepository.java
-    List<BorrowRecord> findByUserIdAndReturnDateIsNull(Long userId);
+    boolean existsByUserId(Long userId);
     Optional<List<BorrowRecord>> findByUserId(Long userId);
     // 只查询逾期且未归还的记录
     List<BorrowRecord> findByUserIdAndReturnDateBeforeAndReturnDateIsNotNull(Long userId, LocalDate date);
+    // 增量同步：修订号大于同步点的借阅记录，按修订号升序分页
+    List<BorrowRecord> findByRevisionGreaterThanOrderByRevisionAsc(Long revision, Limit limit);
 
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.gcc.library1.Repository;
+
+import com.gcc.library1.Model.ClosedLoan;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ClosedLoanRepository extends JpaRepository<ClosedLoan, Long> {
+
+    /**
+     * 已归还借阅的合计值，sum 在没有记录时为 null。
+     */
+    interface LoanTotals {
+        Long getLoans();
+
+        Long getLoanDays();
+
+        Long getLateLoans();
+
+        Long getLateDays();
+    }
+
+    List<ClosedLoan> findByUserIdOrderByReturnedDateDesc(Long userId);
+
+    @Query("select count(c) as loans, sum(c.loanDays) as loanDays, "
+            + "sum(case when c.lateDays > 0 then 1 else 0 end) as lateLoans, sum(c.lateDays) as lateDays "
+            + "from ClosedLoan c")
+    LoanTotals totals();
+
+    @Query("select count(c) as loans, sum(c.loanDays) as loanDays, "
+            + "sum(case when c.lateDays > 0 then 1 else 0 end) as lateLoans, sum(c.lateDays) as lateDays "
+            + "from ClosedLoan c where c.bookId = ?1")
+    LoanTotals totalsByBookId(Long bookId);
+}
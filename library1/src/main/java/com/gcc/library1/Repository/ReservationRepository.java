@@ -0,0 +1,19 @@
+package com.gcc.library1.Repository;
+
+import com.gcc.library1.Model.Reservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ReservationRepository extends JpaRepository<Reservation, Long> {
+    List<Reservation> findByUserId(Long userId);
+
+    // 启动时为 READY 预约恢复过期计时
+    List<Reservation> findByStatusInOrderByIdAsc(Collection<Reservation.Status> statuses);
+
+    // 某本书的预约队列，按预约ID先后排序
+    List<Reservation> findByBookIdAndStatusInOrderByIdAsc(Long bookId, Collection<Reservation.Status> statuses);
+}
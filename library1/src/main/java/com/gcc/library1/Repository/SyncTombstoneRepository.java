@@ -0,0 +1,13 @@
+package com.gcc.library1.Repository;
+
+import com.gcc.library1.Model.SyncTombstone;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SyncTombstoneRepository extends JpaRepository<SyncTombstone, Long> {
+    List<SyncTombstone> findByRevisionGreaterThanOrderByRevisionAsc(Long revision, Limit limit);
+}
@@ -0,0 +1,128 @@
+package com.gcc.library1.Roster;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * 逐行读取教务处名单，不把整个文件读入内存。
+ * 格式为 CSV（RFC 4180）：name,password,userType，首行以 name 开头时视为表头；空行跳过，缺少用户名或密码的行计为无效。
+ * 含逗号、引号或换行的字段用双引号括起，字段内的双引号写作两个双引号，例如 {@code "p,w""1"} 表示密码 {@code p,w"1}。
+ * 引号未闭合就到了文件末尾的行计为无效。
+ */
+public class RosterReader {
+
+    public static final String DEFAULT_USER_TYPE = "STUDENT";
+
+    private final BufferedReader reader;
+    private final MessageDigest digest;
+    private boolean firstLine = true;
+    private int invalid;
+
+    public RosterReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 读取下一条有效行。
+     *
+     * @return 名单行，读完时返回 null
+     */
+    public RosterRow next() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            boolean header = firstLine && line.stripLeading().toLowerCase().startsWith("name");
+            firstLine = false;
+            if (header || line.isBlank()) {
+                continue;
+            }
+            List<String> fields = parse(line);
+            if (fields == null) {
+                invalid++;
+                continue;
+            }
+            String name = field(fields, 0);
+            String password = field(fields, 1);
+            if (name.isEmpty() || password.isEmpty()) {
+                invalid++;
+                continue;
+            }
+            String userType = field(fields, 2);
+            if (userType.isEmpty()) {
+                userType = DEFAULT_USER_TYPE;
+            }
+            return new RosterRow(name, password, userType, hash(name, password, userType));
+        }
+        return null;
+    }
+
+    /**
+     * @return 已跳过的无效行数
+     */
+    public int getInvalid() {
+        return invalid;
+    }
+
+    private static String field(List<String> fields, int index) {
+        return index < fields.size() ? fields.get(index).strip() : "";
+    }
+
+    // 拆分一条记录，引号内的换行会继续读取下一行；引号未闭合时返回 null
+    private List<String> parse(String line) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i == line.length()) {
+                if (!quoted) {
+                    break;
+                }
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+                field.append('\n');
+                i = 0;
+                continue;
+            }
+            char c = line.charAt(i++);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i < line.length() && line.charAt(i) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private String hash(String name, String password, String userType) {
+        // 字段间用单元分隔符，避免 "ab,c" 与 "a,bc" 得到相同的输入
+        String content = name + '\u001f' + password + '\u001f' + userType;
+        return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,12 @@
+package com.gcc.library1.Roster;
+
+/**
+ * 名单中的一行。
+ *
+ * @param name     用户名（学号）
+ * @param password 初始密码
+ * @param userType 用户类型，名单未给出时为 STUDENT
+ * @param hash     行内容哈希，与库中 roster_hash 比对判断是否变化
+ */
+public record RosterRow(String name, String password, String userType, String hash) {
+}
@@ -0,0 +1,139 @@
+package com.gcc.library1.Roster;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 名单同步的读写：一次读出全部用户的比对信息，变更按批提交，每批一个事务。
+ * 只在默认数据源（用户所在）上执行，调用方负责路由。
+ */
+@Component
+public class RosterStore {
+
+    /**
+     * 库中用户的比对信息。
+     */
+    public record StoredUser(long id, String rosterHash, boolean active) {
+    }
+
+    public enum Kind {INSERT, UPDATE, DEACTIVATE}
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    /**
+     * 一条待写入的变更。INSERT 时 id 为 null，DEACTIVATE 时 row 为 null。
+     */
+    public record Change(Kind kind, Long id, RosterRow row) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final double maxDeactivateRatio;
+
+    public RosterStore(JdbcTemplate jdbcTemplate,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${library.roster.batch-size:500}") int batchSize,
+                       @Value("${library.roster.max-deactivate-ratio:0.1}") double maxDeactivateRatio) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxDeactivateRatio = maxDeactivateRatio;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * 一次同步最多停用的名单用户比例（相对于当前启用的名单用户），超过时需要显式确认。
+     */
+    public double getMaxDeactivateRatio() {
+        return maxDeactivateRatio;
+    }
+
+    /**
+     * 用户名的比对键。users.name 的唯一索引按 MySQL 默认排序规则（utf8mb4_0900_ai_ci）比较，不区分大小写和重音，
+     * 这里同样忽略大小写和重音，库中视为同名的两个用户名得到同一个键。
+     */
+    public static String nameKey(String name) {
+        return COMBINING_MARKS.matcher(Normalizer.normalize(name, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 读取全部用户的比对信息，以 {@link #nameKey} 为key。
+     */
+    public Map<String, StoredUser> loadStored() {
+        Map<String, StoredUser> stored = new HashMap<>();
+        jdbcTemplate.query("select id, name, roster_hash, active from users", rs -> {
+            stored.putIfAbsent(nameKey(rs.getString("name")),
+                    new StoredUser(rs.getLong("id"), rs.getString("roster_hash"), rs.getBoolean("active")));
+        });
+        return stored;
+    }
+
+    /**
+     * 写入一批变更，返回因用户名已存在而未能新增的名单行。
+     * 正常情况下整批在一个事务中提交；比对键与数据库排序规则仍有出入，或比对之后有同名用户注册时，
+     * 新增违反用户名唯一约束，整批回滚后逐条重新提交，跳过冲突的行，其余变更照常写入。
+     */
+    public List<RosterRow> apply(List<Change> batch) {
+        try {
+            applyAll(batch);
+            return List.of();
+        } catch (DuplicateKeyException e) {
+            List<RosterRow> rejected = new ArrayList<>();
+            for (Change change : batch) {
+                try {
+                    applyAll(List.of(change));
+                } catch (DuplicateKeyException duplicate) {
+                    rejected.add(change.row());
+                }
+            }
+            return rejected;
+        }
+    }
+
+    // 在一个事务中写入变更。更新和停用同时递增乐观锁版本号，与并发的用户修改互相可见
+    private void applyAll(List<Change> batch) {
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> deactivations = new ArrayList<>();
+        for (Change change : batch) {
+            switch (change.kind()) {
+                case INSERT -> inserts.add(new Object[]{
+                        change.row().name(), change.row().password(), change.row().userType(), change.row().hash()});
+                case UPDATE -> updates.add(new Object[]{
+                        change.row().password(), change.row().userType(), change.row().hash(), change.id()});
+                case DEACTIVATE -> deactivations.add(new Object[]{change.id()});
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!inserts.isEmpty()) {
+                jdbcTemplate.batchUpdate("insert into users (name, password, user_type, roster_hash, active, version) "
+                        + "values (?, ?, ?, ?, true, 0)", inserts);
+            }
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate("update users set password = ?, user_type = ?, roster_hash = ?, active = true, "
+                        + "version = version + 1 where id = ?", updates);
+            }
+            if (!deactivations.isEmpty()) {
+                jdbcTemplate.batchUpdate("update users set active = false, version = version + 1 where id = ?",
+                        deactivations);
+            }
+        });
+    }
+}
@@ -0,0 +1,24 @@
+package com.gcc.library1.Roster;
+
+import java.util.List;
+
+/**
+ * 一次名单同步的结果。
+ *
+ * @param rows          名单中的有效行数
+ * @param inserted      新增用户数
+ * @param updated       内容变化或重新启用的用户数
+ * @param deactivated   不在名单中而被停用的用户数
+ * @param unchanged     未变化、未写库的行数
+ * @param skipped       无效行与重复用户名的行数
+ * @param conflicts     与手动注册用户同名而跳过的行数
+ * @param conflictNames 同名冲突的用户名，最多列出 {@link #MAX_CONFLICT_NAMES} 个
+ * @param batches       提交的批次数
+ * @param elapsedMillis 耗时
+ */
+public record RosterSyncReport(int rows, int inserted, int updated, int deactivated, int unchanged,
+                               int skipped, int conflicts, List<String> conflictNames, int batches,
+                               long elapsedMillis) {
+
+    public static final int MAX_CONFLICT_NAMES = 100;
+}
@@ -1,65 +1,201 @@
 package com.gcc.library1.Service;
 
+import com.gcc.library1.Cache.InvalidationBus;
+import com.gcc.library1.Cache.NearCache;
+import com.gcc.library1.Cache.RequestCoalescing;
+import com.gcc.library1.Cache.SingleFlight;
 import com.gcc.library1.Model.Book;
+import com.gcc.library1.Model.BookCopy;
+import com.gcc.library1.Model.BookHoldings;
+import com.gcc.library1.Model.SyncTombstone;
+import com.gcc.library1.Repository.BookCopyRepository;
 import com.gcc.library1.Repository.BookRepository;
-import com.gcc.library1.Repository.BorrowRecordRepository;
+import com.gcc.library1.Shard.ScatterGather;
+import com.gcc.library1.Shard.ShardRouter;
+import com.gcc.library1.Sync.RevisionCounter;
+import com.gcc.library1.Util.OptimisticRetryExecutor;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class BookService {
 
     private final BookRepository bookRepository;
+    private final BookCopyRepository bookCopyRepository;
+    private final InvalidationBus invalidationBus;
+    private final OptimisticRetryExecutor retryExecutor;
+    private final ShardRouter shardRouter;
+    private final ScatterGather scatterGather;
+    private final RevisionCounter revisionCounter;
+    private final SyncService syncService;
+    private final RequestCoalescing requestCoalescing;
 
+    private NearCache<Book> bookCache() {
+        return invalidationBus.cache(shardRouter.cacheType(InvalidationBus.BOOK), Book::copy);
+    }
+
+    // 缓存未命中时合并同一本书的并发加载，key 为 分馆/图书ID
+    private SingleFlight<String, Book> bookLookups() {
+        return requestCoalescing.flight("book-by-id", InvalidationBus.BOOK);
+    }
+
+    // 书名检索跨全部分馆，按检索条件合并
+    private SingleFlight<String, List<Book>> titleSearches() {
+        return requestCoalescing.flight("book-by-title", InvalidationBus.BOOK);
+    }
+
+    private SingleFlight<String, List<Book>> titleLikeSearches() {
+        return requestCoalescing.flight("book-by-title-like", InvalidationBus.BOOK);
+    }
+
+    // 以bookId为key缓存该书的副本列表（含借出状态），借还书和增加副本时失效
+    private NearCache<List<BookCopy>> copiesCache() {
+        return invalidationBus.cache(shardRouter.cacheType(InvalidationBus.BOOK_COPY),
+                NearCache.listCopier(BookCopy::copy));
+    }
 
     public Book addBook(Book book) {
-        return bookRepository.save(book);
+        // 新书归属当前请求的分馆，忽略请求体中的分馆
+        book.setBranch(shardRouter.currentBranch());
+        Book saved = retryExecutor.execute(() -> {
+            book.setRevision(revisionCounter.next());
+            Book added = bookRepository.save(book);
+            // 新书默认一本副本，与 books 表计数列的默认值一致
+            bookCopyRepository.save(newCopy(added.getId(), 1));
+            return added;
+        }, false);
+        invalidationBus.publish(shardRouter.cacheType(InvalidationBus.BOOK), saved.getId());
+        return saved;
     }
+
+    /**
+     * 为一本书增加副本，副本数和可借数同时增加。
+     *
+     * @param id    图书ID
+     * @param count 增加的副本数
+     * @return 增加后的馆藏情况
+     */
+    public BookHoldings addCopies(Long id, int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("副本数必须大于0");
+        }
+        retryExecutor.execute(() -> {
+            if (!bookRepository.existsById(id)) {
+                throw new EntityNotFoundException("Book not found with id:"+ id);
+            }
+            long existing = bookCopyRepository.countByBookId(id);
+            List<BookCopy> copies = new ArrayList<>();
+            for (int i = 1; i <= count; i++) {
+                copies.add(newCopy(id, existing + i));
+            }
+            bookCopyRepository.saveAll(copies);
+            bookRepository.addCopies(id, count);
+            return null;
+        }, false);
+        invalidationBus.publish(shardRouter.cacheType(InvalidationBus.BOOK_COPY), id);
+        return getHoldings(id);
+    }
+
+    public List<BookCopy> getCopies(Long id) {
+        return copiesCache().get(id, bookCopyRepository::findByBookIdOrderByIdAsc);
+    }
+
+    public BookHoldings getHoldings(Long id) {
+        getBookById(id);
+        return BookHoldings.of(id, getCopies(id));
+    }
+
+    /**
+     * 可借副本数，读取副本缓存。借书时以 books 表计数列的条件递减为准，这里只用于借书前的预判和展示。
+     */
+    public int availableCopies(Long id) {
+        return BookHoldings.of(id, getCopies(id)).availableCopies();
+    }
+
+    private static BookCopy newCopy(Long bookId, long sequence) {
+        BookCopy copy = new BookCopy();
+        copy.setBookId(bookId);
+        copy.setBarcode(bookId + "-" + sequence);
+        return copy;
+    }
+    /**
+     * 更新图书信息。请求中带有version时按该版本做乐观锁校验，版本过期直接冲突；
+     * 未带version时在服务端冲突后重新读取并重试。
+     */
     public Book updateBook(Long id, Book Book) {
-        Book book = bookRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Book not found with id:"+ id));
-        book.setTitle(Book.getTitle());
-        book.setAuthor(Book.getAuthor());
-        book.setDescription(Book.getDescription());
-        return bookRepository.save(book);
+        Book saved = retryExecutor.execute(() -> {
+            Book book = bookRepository.findById(id)
+                    .orElseThrow(() -> new EntityNotFoundException("Book not found with id:"+ id));
+            if (Book.getVersion() != null && !Book.getVersion().equals(book.getVersion())) {
+                throw new ObjectOptimisticLockingFailureException(Book.class, id);
+            }
+            book.setTitle(Book.getTitle());
+            book.setAuthor(Book.getAuthor());
+            book.setDescription(Book.getDescription());
+            book.setCategory(Book.getCategory());
+            book.setRevision(revisionCounter.next());
+            return bookRepository.save(book);
+        }, Book.getVersion() == null);
+        invalidationBus.publish(shardRouter.cacheType(InvalidationBus.BOOK), id);
+        return saved;
     }
+    /**
+     * 删除图书及其副本。是否在借以锁定图书行后的数据库状态为准，不读近端缓存，
+     * 其他节点刚借出的副本也能看到。
+     *
+     * @throws IllegalStateException 任一副本在借
+     */
     public void deleteBook(Long id) {
-        if (!bookRepository.existsById(id)){
-            throw new EntityNotFoundException("Book not found with id:"+ id);
-        }
-        bookRepository.deleteById(id);
+        retryExecutor.execute(() -> {
+            if (bookRepository.lockById(id).isEmpty()) {
+                throw new EntityNotFoundException("Book not found with id:"+ id);
+            }
+            if (bookCopyRepository.existsByBookIdAndOnLoanTrue(id)) {
+                throw new IllegalStateException("该书已经借出");
+            }
+            bookCopyRepository.deleteByBookId(id);
+            bookRepository.deleteById(id);
+            syncService.recordDeletion(SyncTombstone.Type.BOOK, id);
+            return null;
+        }, false);
+        invalidationBus.publish(shardRouter.cacheType(InvalidationBus.BOOK), id);
+        invalidationBus.publish(shardRouter.cacheType(InvalidationBus.BOOK_COPY), id);
     }
+    // 馆藏列表和书名检索面向所有分馆，结果中的 branch 字段标明所在分馆
     public List<Book> getAllBooks() {
-        return bookRepository.findAll();
+        return scatterGather.gather(bookRepository::findAll);
     }
 
     public Book getBookById(Long id) {
-        return bookRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Book not found with id:"+ id));
+        return bookCache().get(id, key -> bookLookups().execute(shardRouter.currentBranch() + "/" + key,
+                () -> bookRepository.findById(key)
+                        .orElseThrow(() -> new EntityNotFoundException("Book not found with id:"+ key))));
     }
 
 
     public List<Book> getBooksByTitle(String title) {
-        List<Book> books = bookRepository.findByTitle(title);
+        List<Book> books = titleSearches().execute(title,
+                () -> scatterGather.gather(() -> bookRepository.findByTitle(title)));
         if (books.isEmpty()) {
             throw new EntityNotFoundException("未找到书名为: " + title + " 的书籍");
         } else{
-            return bookRepository.findByTitle(title);
+            return books;
         }
     }
 
     public List<Book> getBooksByTitleLike(String title){
-        List<Book> books = bookRepository.findByTitleLike(title);
+        List<Book> books = titleLikeSearches().execute(title,
+                () -> scatterGather.gather(() -> bookRepository.findByTitleLike(title)));
         if (books.isEmpty()) {
             throw new EntityNotFoundException("未找到书名为: " + title + " 的书籍");
         } else{
-            return bookRepository.findByTitleLike(title);
+            return books;
         }
     }
 
@@ -1,7 +1,12 @@
 package com.gcc.library1.Service;
 
+import com.gcc.library1.Cache.InvalidationBus;
+import com.gcc.library1.Cache.RequestCoalescing;
+import com.gcc.library1.Cache.SingleFlight;
 import com.gcc.library1.Model.BorrowHistory;
 import com.gcc.library1.Repository.BorrowHistoryRepository;
+import com.gcc.library1.Shard.ScatterGather;
+import com.gcc.library1.Shard.ShardRouter;
 
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
@@ -14,6 +19,20 @@ import java.util.List;
 @RequiredArgsConstructor
 public class BorrowHistoryService {
     private final BorrowHistoryRepository BorrowHistoryRepository;
+    private final ScatterGather scatterGather;
+    private final ShardRouter shardRouter;
+    private final RequestCoalescing requestCoalescing;
+    private final InvalidationBus invalidationBus;
+
+    // 借阅历史只追加，新增记录后广播失效事件，各节点在此之前开始的查询不再被合并
+    private SingleFlight<Long, List<BorrowHistory>> userLookups() {
+        return requestCoalescing.flight("history-by-user", InvalidationBus.BORROW_HISTORY);
+    }
+
+    // key 为 分馆/图书ID
+    private SingleFlight<String, List<BorrowHistory>> bookLookups() {
+        return requestCoalescing.flight("history-by-book", InvalidationBus.BORROW_HISTORY);
+    }
 
     public BorrowHistory addBorrowHistory(Long bookId, Long userId, String behaviour) {
         BorrowHistory borrowHistory = new BorrowHistory();
@@ -21,13 +40,16 @@ public class BorrowHistoryService {
         borrowHistory.setUserId(userId);
         borrowHistory.setDate(LocalDate.now());
         borrowHistory.setBehavour(behaviour);
-        return BorrowHistoryRepository.save(borrowHistory);
+        BorrowHistory saved = BorrowHistoryRepository.save(borrowHistory);
+        invalidationBus.publish(shardRouter.cacheType(InvalidationBus.BORROW_HISTORY), saved.getId());
+        return saved;
     }
 public List<BorrowHistory> getBorrowHistoryByUserId(Long userId) {
     if (userId == null) {
         throw new IllegalArgumentException("用户ID不能为空");
     }
-    List<BorrowHistory> result = BorrowHistoryRepository.findByUserId(userId);
+    List<BorrowHistory> result = userLookups().execute(userId,
+            () -> scatterGather.gather(() -> BorrowHistoryRepository.findByUserId(userId)));
     if (result.isEmpty()) {
         throw new EntityNotFoundException("未找到用户ID为 " + userId + " 的借阅历史记录");
     }
@@ -38,7 +60,8 @@ public List<BorrowHistory> getBorrowHistoryByBookId(Long bookId) {
     if (bookId == null) {
         throw new IllegalArgumentException("书籍ID不能为空");
     }
-    List<BorrowHistory> result = BorrowHistoryRepository.findByBookId(bookId);
+    List<BorrowHistory> result = bookLookups().execute(shardRouter.currentBranch() + "/" + bookId,
+            () -> BorrowHistoryRepository.findByBookId(bookId));
     if (result.isEmpty()) {
         throw new EntityNotFoundException("未找到书籍ID为 " + bookId + " 的借阅历史记录");
     }
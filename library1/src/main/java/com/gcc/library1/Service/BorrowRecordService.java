@@ -1,11 +1,26 @@
 package com.gcc.library1.Service;
 
+import com.gcc.library1.Cache.InvalidationBus;
+import com.gcc.library1.Cache.NearCache;
+import com.gcc.library1.Model.BookCopy;
 import com.gcc.library1.Model.BorrowRecord;
+import com.gcc.library1.Model.ClosedLoan;
+import com.gcc.library1.Model.LoanStats;
+import com.gcc.library1.Model.SyncTombstone;
+import com.gcc.library1.Policy.LoanRule;
+import com.gcc.library1.Repository.BookCopyRepository;
+import com.gcc.library1.Repository.BookRepository;
 import com.gcc.library1.Repository.BorrowRecordRepository;
+import com.gcc.library1.Repository.ClosedLoanRepository;
+import com.gcc.library1.Shard.ScatterGather;
+import com.gcc.library1.Shard.ShardRouter;
+import com.gcc.library1.Sync.RevisionCounter;
+import com.gcc.library1.Util.OptimisticRetryExecutor;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 
 
@@ -13,48 +28,198 @@ import java.util.*;
 @RequiredArgsConstructor
 public class BorrowRecordService {
     private final BorrowRecordRepository borrowRecordRepository;
+    private final BookRepository bookRepository;
+    private final BookCopyRepository bookCopyRepository;
+    private final ClosedLoanRepository closedLoanRepository;
+    private final InvalidationBus invalidationBus;
+    private final OptimisticRetryExecutor retryExecutor;
+    private final ShardRouter shardRouter;
+    private final ScatterGather scatterGather;
+    private final RevisionCounter revisionCounter;
+    private final SyncService syncService;
+    private final ReservationService reservationService;
+    private final RecommendationService recommendationService;
 
+    // 以bookId为key缓存当前分馆该书的在借记录，空列表表示没有副本借出
+    private NearCache<List<BorrowRecord>> availabilityCache() {
+        return invalidationBus.cache(shardRouter.cacheType(InvalidationBus.BORROW_RECORD),
+                NearCache.listCopier(BorrowRecord::copy));
+    }
+
+    // 借还书同时改变在借记录和副本的借出状态
+    private void publish(Long bookId) {
+        invalidationBus.publish(shardRouter.cacheType(InvalidationBus.BORROW_RECORD), bookId);
+        invalidationBus.publish(shardRouter.cacheType(InvalidationBus.BOOK_COPY), bookId);
+    }
+
+    /**
+     * 借书：借出该书任意一本可借的副本。
+     * 先锁定图书行结清本人的预约保留（没有保留时只能借未被他人保留的副本），再按书条件递减可借数，
+     * 成功后锁定一个未借出的副本并写入借阅记录，各步在同一事务中完成，任何一步失败可借数和预约随事务回滚。
+     *
+     * @throws IllegalStateException 该书没有可借副本，或可借副本都已为其他用户保留
+     */
     public BorrowRecord addBorrow(Long bookId, Long userId, LocalDate borrowDate , LocalDate returnDate) {
         BorrowRecord borrowRecord = new BorrowRecord();
         borrowRecord.setBookId(bookId);
         borrowRecord.setUserId(userId);
         borrowRecord.setBorrowDate(borrowDate);
         borrowRecord.setReturnDate(returnDate);
-        return borrowRecordRepository.save(borrowRecord);
+        BorrowRecord saved = retryExecutor.execute(() -> {
+            reservationService.claimHold(bookId, userId);
+            if (bookRepository.takeCopy(bookId) == 0) {
+                throw new IllegalStateException("该书没有可借副本");
+            }
+            BookCopy copy = bookCopyRepository.findFirstByBookIdAndOnLoanFalse(bookId)
+                    .orElseThrow(() -> new IllegalStateException("该书没有可借副本"));
+            copy.setOnLoan(true);
+            bookCopyRepository.save(copy);
+            borrowRecord.setCopyId(copy.getId());
+            borrowRecord.setRevision(revisionCounter.next());
+            return borrowRecordRepository.save(borrowRecord);
+        }, false);
+        publish(bookId);
+        recommendationService.onBorrow(userId, bookId);
+        return saved;
     }
 
     public BorrowRecord updateBorrow(Long bookId,Long userId,LocalDate returnDate) {
-        BorrowRecord borrowRecord = borrowRecordRepository.findByBookId(bookId)
-                .orElseThrow(() -> new EntityNotFoundException("BorrowRecord not found with bookId:"+ bookId));
-        if (Objects.equals(borrowRecord.getUserId(), userId)) {
+        BorrowRecord saved = retryExecutor.execute(() -> {
+            BorrowRecord borrowRecord = findOwnedRecord(bookId, userId);
             borrowRecord.setReturnDate(returnDate);
+            borrowRecord.setRevision(revisionCounter.next());
             return borrowRecordRepository.save(borrowRecord);
-        }else{
-            throw new EntityNotFoundException("From original userId:"+borrowRecord.getUserId()+" and your userId:"+userId+" not same");
-        }
+        });
+        publish(bookId);
+        return saved;
     }
 
-    public BorrowRecord getBorrowBookByBookId(Long bookId) {
-        return borrowRecordRepository.findByBookId(bookId)
-                .orElseThrow(() -> new EntityNotFoundException("BorrowRecord not found with bookId:"+ bookId));
+    /**
+     * 续借：按借阅规则在当前归还日期基础上顺延，并累计续借次数。
+     * 读取和顺延在同一次重试尝试中完成，并发续借不会互相覆盖。
+     *
+     * @param bookId 书籍ID
+     * @param userId 借阅人ID，必须与原借阅人一致
+     * @param rule   适用的借阅规则
+     * @return 更新后的借阅记录
+     * @throws IllegalStateException 续借次数已达上限时抛出
+     */
+    public BorrowRecord renewBorrow(Long bookId, Long userId, LoanRule rule) {
+        BorrowRecord saved = retryExecutor.execute(() -> {
+            BorrowRecord borrowRecord = findOwnedRecord(bookId, userId);
+            if (!rule.canRenew(borrowRecord.getRenewCount())) {
+                throw new IllegalStateException("续借次数已达上限: " + rule.getMaxRenewals());
+            }
+            borrowRecord.setReturnDate(rule.renewedDueDate(borrowRecord.getReturnDate()));
+            borrowRecord.setRenewCount(borrowRecord.getRenewCount() + 1);
+            borrowRecord.setRevision(revisionCounter.next());
+            return borrowRecordRepository.save(borrowRecord);
+        });
+        publish(bookId);
+        return saved;
     }
 
+    private BorrowRecord findOwnedRecord(Long bookId, Long userId) {
+        return borrowRecordRepository.findByBookIdAndUserId(bookId, userId)
+                .orElseThrow(() -> new EntityNotFoundException("BorrowRecord not found with bookId:"+ bookId+" and userId:"+ userId));
+    }
+
+    /**
+     * 该书当前的在借记录，每个借出的副本一条。
+     */
+    public List<BorrowRecord> getBorrowsByBookId(Long bookId) {
+        return availabilityCache().get(bookId, borrowRecordRepository::findByBookId);
+    }
+
+    /**
+     * 定位一条在借记录。给出借阅人时按书和借阅人定位；未给出时该书只能有一条在借记录。
+     *
+     * @throws EntityNotFoundException 没有对应的在借记录
+     * @throws IllegalStateException   未给出借阅人且该书有多本副本在借
+     */
+    public BorrowRecord getBorrowRecord(Long bookId, Long userId) {
+        List<BorrowRecord> borrows = getBorrowsByBookId(bookId);
+        List<BorrowRecord> matched = userId == null ? borrows
+                : borrows.stream().filter(record -> Objects.equals(record.getUserId(), userId)).toList();
+        if (matched.isEmpty()) {
+            throw new EntityNotFoundException("BorrowRecord not found with bookId:"+ bookId);
+        }
+        if (matched.size() > 1) {
+            throw new IllegalStateException("该书有" + matched.size() + "本副本在借，请指定借阅人");
+        }
+        return matched.get(0);
+    }
+
+    // 读者可以在多个分馆借书，按用户的查询汇总所有分馆
     public List<BorrowRecord> getBorrowBooksByUserId(Long userId) {
-        return borrowRecordRepository.findByUserId(userId)
-                .orElse(new ArrayList<>());
+        return scatterGather.gather(() -> borrowRecordRepository.findByUserId(userId)
+                .orElse(new ArrayList<>()));
     }
 
 
 
 
-    public void deleteBorrow(Long bookId) {
-        BorrowRecord borrowRecord = borrowRecordRepository.findByBookId(bookId)
-                .orElseThrow(() -> new EntityNotFoundException("BorrowRecord not found with bookId:"+ bookId));
-        borrowRecordRepository.deleteById(borrowRecord.getId());
+    /**
+     * 还书：删除在借记录并归档为已归还借阅，副本恢复可借，可借数条件递增，全部在同一事务中完成。
+     *
+     * @param bookId 书籍ID
+     * @param userId 借阅人ID，该书只有一本副本在借时可为 null
+     * @return 归档的已归还借阅
+     */
+    public ClosedLoan deleteBorrow(Long bookId, Long userId) {
+        ClosedLoan closed = retryExecutor.execute(() -> {
+            BorrowRecord borrowRecord = userId != null ? findOwnedRecord(bookId, userId) : findOnlyRecord(bookId);
+            // 先删除并立即刷出：并发归还同一条记录时后到者在这里乐观锁失败，不会走到归档的唯一约束
+            borrowRecordRepository.delete(borrowRecord);
+            borrowRecordRepository.flush();
+            ClosedLoan closedLoan = closedLoanRepository.save(close(borrowRecord, LocalDate.now()));
+            if (borrowRecord.getCopyId() != null) {
+                bookCopyRepository.findById(borrowRecord.getCopyId()).ifPresent(copy -> {
+                    copy.setOnLoan(false);
+                    bookCopyRepository.save(copy);
+                });
+            }
+            bookRepository.releaseCopy(bookId);
+            syncService.recordDeletion(SyncTombstone.Type.BORROW_RECORD, borrowRecord.getId());
+            return closedLoan;
+        }, false);
+        publish(bookId);
+        return closed;
+    }
+
+    private static ClosedLoan close(BorrowRecord borrowRecord, LocalDate returnedDate) {
+        ClosedLoan closedLoan = new ClosedLoan();
+        closedLoan.setLoanId(borrowRecord.getId());
+        closedLoan.setBookId(borrowRecord.getBookId());
+        closedLoan.setCopyId(borrowRecord.getCopyId());
+        closedLoan.setUserId(borrowRecord.getUserId());
+        closedLoan.setBorrowDate(borrowRecord.getBorrowDate());
+        closedLoan.setDueDate(borrowRecord.getReturnDate());
+        closedLoan.setReturnedDate(returnedDate);
+        closedLoan.setRenewCount(borrowRecord.getRenewCount());
+        if (borrowRecord.getBorrowDate() != null) {
+            closedLoan.setLoanDays((int) Math.max(0, ChronoUnit.DAYS.between(borrowRecord.getBorrowDate(), returnedDate)));
+        }
+        if (borrowRecord.getReturnDate() != null) {
+            closedLoan.setLateDays((int) Math.max(0, ChronoUnit.DAYS.between(borrowRecord.getReturnDate(), returnedDate)));
+        }
+        return closedLoan;
+    }
+
+    private BorrowRecord findOnlyRecord(Long bookId) {
+        List<BorrowRecord> borrows = borrowRecordRepository.findByBookId(bookId);
+        if (borrows.isEmpty()) {
+            throw new EntityNotFoundException("BorrowRecord not found with bookId:"+ bookId);
+        }
+        if (borrows.size() > 1) {
+            throw new IllegalStateException("该书有" + borrows.size() + "本副本在借，请指定借阅人");
+        }
+        return borrows.get(0);
     }
     // 文件：BorrowRecordService.java
+    // 归还的记录已搬到 closed_loan，borrow_record 中的每一行都是在借记录
     public boolean hasBorrowedBooks(Long userId) {
-        return !borrowRecordRepository.findByUserIdAndReturnDateIsNull(userId).isEmpty();
+        return scatterGather.gather(() -> List.of(borrowRecordRepository.existsByUserId(userId))).contains(true);
     }
 
           /**
@@ -65,9 +230,46 @@ public class BorrowRecordService {
      */
     public List<BorrowRecord> getOverdueBorrowRecordsByUserId(Long userId) {
         LocalDate today = LocalDate.now();
-        return borrowRecordRepository.findByUserIdAndReturnDateBeforeAndReturnDateIsNotNull(userId, today);
+        return scatterGather.gather(() ->
+                borrowRecordRepository.findByUserIdAndReturnDateBeforeAndReturnDateIsNotNull(userId, today));
     }
     public List<BorrowRecord> getAllBorrowRecords() {
-        return borrowRecordRepository.findAll();
+        return scatterGather.gather(borrowRecordRepository::findAll);
+    }
+
+    /**
+     * 读者已归还的借阅，汇总所有分馆，每个分馆内按归还日期倒序。
+     */
+    public List<ClosedLoan> getClosedLoansByUserId(Long userId) {
+        return scatterGather.gather(() -> closedLoanRepository.findByUserIdOrderByReturnedDateDesc(userId));
+    }
+
+    /**
+     * 全部分馆已归还借阅的时长与逾期统计，各分馆分别求合计后相加。
+     */
+    public LoanStats getLoanStats() {
+        return merge(scatterGather.gather(() -> List.of(closedLoanRepository.totals())));
+    }
+
+    /**
+     * 当前分馆某本书已归还借阅的时长与逾期统计。
+     */
+    public LoanStats getLoanStatsByBookId(Long bookId) {
+        return merge(List.of(closedLoanRepository.totalsByBookId(bookId)));
+    }
+
+    private static LoanStats merge(List<ClosedLoanRepository.LoanTotals> totals) {
+        long loans = 0, loanDays = 0, lateLoans = 0, lateDays = 0;
+        for (ClosedLoanRepository.LoanTotals total : totals) {
+            loans += valueOf(total.getLoans());
+            loanDays += valueOf(total.getLoanDays());
+            lateLoans += valueOf(total.getLateLoans());
+            lateDays += valueOf(total.getLateDays());
+        }
+        return LoanStats.of(loans, loanDays, lateLoans, lateDays);
+    }
+
+    private static long valueOf(Long value) {
+        return value == null ? 0 : value;
     }
 }
\ No newline at end of file
@@ -0,0 +1,104 @@
+package com.gcc.library1.Service;
+
+import com.gcc.library1.Policy.LoanPolicyTable;
+import com.gcc.library1.Policy.LoanRule;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 借阅策略服务。启动时加载 classpath 下的 loan-policy.properties；
+ * 若配置了 library.loan.policy-file，则改为读取该文件并定期检查修改时间，变化后重新编译并原子替换查找表，无需重启。
+ */
+@Slf4j
+@Service
+public class LoanPolicyService {
+
+    private static final String DEFAULT_POLICY = "loan-policy.properties";
+
+    private final String policyFile;
+    private final long reloadSeconds;
+    private volatile LoanPolicyTable table;
+    private volatile long lastModified = -1;
+    private ScheduledExecutorService watcher;
+
+    public LoanPolicyService(@Value("${library.loan.policy-file:}") String policyFile,
+                             @Value("${library.loan.reload-seconds:30}") long reloadSeconds) {
+        this.policyFile = policyFile;
+        this.reloadSeconds = reloadSeconds;
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        if (policyFile.isEmpty()) {
+            try (InputStream in = getClass().getClassLoader().getResourceAsStream(DEFAULT_POLICY)) {
+                Properties properties = new Properties();
+                if (in != null) {
+                    properties.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+                }
+                table = LoanPolicyTable.compile(properties);
+            }
+            return;
+        }
+        reload();
+        if (table == null) {
+            throw new IllegalStateException("借阅策略文件加载失败: " + policyFile);
+        }
+        watcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "loan-policy-watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        watcher.scheduleWithFixedDelay(this::reload, reloadSeconds, reloadSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (watcher != null) {
+            watcher.shutdownNow();
+        }
+    }
+
+    /**
+     * 获取适用于指定用户类型和图书分类的借阅规则。
+     */
+    public LoanRule ruleFor(String userType, String category) {
+        return table.lookup(userType, category);
+    }
+
+    /**
+     * 文件有变化时重新编译策略。编译失败则保留旧策略。
+     */
+    void reload() {
+        Path path = Path.of(policyFile);
+        try {
+            long modified = Files.getLastModifiedTime(path).toMillis();
+            if (modified == lastModified) {
+                return;
+            }
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+            table = LoanPolicyTable.compile(properties);
+            lastModified = modified;
+            log.info("借阅策略已加载: {}", path);
+        } catch (IOException | RuntimeException e) {
+            log.error("借阅策略加载失败，继续使用旧策略: " + path, e);
+        }
+    }
+}
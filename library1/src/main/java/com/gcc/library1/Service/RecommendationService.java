@@ -0,0 +1,272 @@
+package com.gcc.library1.Service;
+
+import com.gcc.library1.Recommend.CoOccurrenceCounter;
+import com.gcc.library1.Recommend.CoOccurrenceSnapshot;
+import com.gcc.library1.Shard.BranchContext;
+import com.gcc.library1.Shard.ShardRouter;
+import com.gcc.library1.Util.LongIntHashMap;
+import com.gcc.library1.Util.LongObjectHashMap;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * “借过这本书的读者还借过”推荐服务。
+ * <p>
+ * 共现矩阵按分馆分别计算：启动后逐个分馆从已归还借阅（closed_loan）和在借记录（borrow_record）全量计算
+ * （Fork/Join 并行），之后由 {@link BorrowRecordService#addBorrow} 借书成功后增量更新该分馆的计数；
+ * 对外查询按调用方所在分馆读取不可变的 {@link CoOccurrenceSnapshot}，快照在计数有变化时定期重建并整体替换。
+ * 增量事件只覆盖本节点的借书，每隔 library.recommend.recompute-minutes 全量重算一次以纳入其他节点的借书，
+ * 各节点的结果不会长期漂移。
+ * 计数矩阵只在单个后台线程上读写，借书请求只做一次无锁入队。
+ */
+@Slf4j
+@Service
+public class RecommendationService {
+
+    private static final long MAX_BOOK_ID = 1L << 31;
+
+    // 每笔借阅一行：已归还的在 closed_loan，在借的在 borrow_record。按读者排序，同一读者内按借书先后
+    private static final String LOANS_SQL = "select user_id, book_id from ("
+            + "select user_id, book_id, borrow_date from closed_loan where branch = ? "
+            + "union all "
+            + "select user_id, book_id, borrow_date from borrow_record where branch = ? and user_id is not null"
+            + ") loans where book_id > 0 and book_id < " + MAX_BOOK_ID + " order by user_id, borrow_date";
+
+    /**
+     * 单个分馆的共现计数，只由 refresher 线程访问，无需加锁。
+     */
+    private static final class BranchCounts {
+        private LongIntHashMap pairCounts = new LongIntHashMap();
+        private LongObjectHashMap<long[]> userBooks = new LongObjectHashMap<>();
+        private boolean dirty;
+    }
+
+    private record BorrowEvent(String branch, long userId, long bookId) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+    private final int topK;
+    private final int maxBooksPerUser;
+    private final ScheduledExecutorService refresher;
+
+    // 待应用的借书事件，请求线程只负责入队
+    private final Queue<BorrowEvent> pendingEvents = new ConcurrentLinkedQueue<>();
+
+    // 以分馆为key，只由 refresher 线程访问
+    private final Map<String, BranchCounts> counts = new HashMap<>();
+
+    private volatile Map<String, CoOccurrenceSnapshot> snapshots = Map.of();
+
+    public RecommendationService(JdbcTemplate jdbcTemplate,
+                                 ShardRouter shardRouter,
+                                 @Value("${library.recommend.top-k:20}") int topK,
+                                 @Value("${library.recommend.max-books-per-user:500}") int maxBooksPerUser,
+                                 @Value("${library.recommend.refresh-seconds:10}") long refreshSeconds,
+                                 @Value("${library.recommend.recompute-minutes:60}") long recomputeMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+        this.topK = topK;
+        this.maxBooksPerUser = maxBooksPerUser;
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "recommendation-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(this::refresh, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+        // 启动时的首次全量计算由 initialLoad 触发
+        refresher.scheduleWithFixedDelay(this::doRecompute, recomputeMinutes, recomputeMinutes, TimeUnit.MINUTES);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void initialLoad() {
+        recompute();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * 获取当前分馆中与指定书籍共现次数最多的书籍。
+     */
+    public List<CoOccurrenceSnapshot.Neighbour> recommend(Long bookId, int limit) {
+        return snapshots.getOrDefault(shardRouter.currentBranch(), CoOccurrenceSnapshot.EMPTY)
+                .topK(bookId, Math.min(limit, topK));
+    }
+
+    /**
+     * 记录当前分馆的一次借书。事件入队后由后台线程批量应用，不阻塞借书请求。
+     */
+    public void onBorrow(Long userId, Long bookId) {
+        if (userId == null || bookId == null || bookId <= 0 || bookId >= MAX_BOOK_ID) {
+            return;
+        }
+        pendingEvents.add(new BorrowEvent(shardRouter.currentBranch(), userId, bookId));
+    }
+
+    /**
+     * 提交一次全量重算，返回的 Future 在新快照发布后完成。
+     */
+    public Future<?> recompute() {
+        return refresher.submit(this::doRecompute);
+    }
+
+    private void doRecompute() {
+        for (String branch : shardRouter.branches()) {
+            long start = System.nanoTime();
+            try {
+                LoanScan scan = new LoanScan(maxBooksPerUser);
+                BranchContext.call(branch, () -> {
+                    jdbcTemplate.query(LOANS_SQL, (RowCallbackHandler) scan::accept, branch, branch);
+                    return null;
+                });
+                scan.finish();
+                BranchCounts recomputed = new BranchCounts();
+                recomputed.pairCounts = CoOccurrenceCounter.count(scan.userOffsets(), scan.books());
+                recomputed.userBooks = scan.userBooks;
+                recomputed.dirty = true;
+                counts.put(branch, recomputed);
+                log.info("分馆 {} 共现矩阵重算完成：{} 个用户，{} 对书籍，耗时 {} ms", branch,
+                        scan.userCount(), recomputed.pairCounts.size(),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            } catch (RuntimeException e) {
+                log.error("分馆 {} 共现矩阵重算失败", branch, e);
+            }
+        }
+        refresh();
+    }
+
+    /**
+     * 应用排队的增量事件，有变化的分馆重建快照后一起发布。
+     * 同一读者同一本书只计一次，全量结果中已包含的借阅再次应用不会重复计数。
+     */
+    private void refresh() {
+        BorrowEvent event;
+        while ((event = pendingEvents.poll()) != null) {
+            applyBorrow(counts.computeIfAbsent(event.branch(), branch -> new BranchCounts()), event.userId(), event.bookId());
+        }
+        Map<String, CoOccurrenceSnapshot> updated = null;
+        for (Map.Entry<String, BranchCounts> entry : counts.entrySet()) {
+            BranchCounts branchCounts = entry.getValue();
+            if (branchCounts.dirty) {
+                branchCounts.dirty = false;
+                if (updated == null) {
+                    updated = new HashMap<>(snapshots);
+                }
+                updated.put(entry.getKey(), CoOccurrenceSnapshot.build(branchCounts.pairCounts, topK));
+            }
+        }
+        if (updated != null) {
+            snapshots = Map.copyOf(updated);
+        }
+    }
+
+    private void applyBorrow(BranchCounts branchCounts, long userId, long bookId) {
+        long[] books = branchCounts.userBooks.get(userId);
+        if (books == null) {
+            books = new long[0];
+        }
+        for (long other : books) {
+            if (other == bookId) {
+                return;
+            }
+        }
+        for (long other : books) {
+            branchCounts.pairCounts.addTo(CoOccurrenceCounter.pairKey(other, bookId), 1);
+        }
+        if (books.length < maxBooksPerUser) {
+            long[] updated = Arrays.copyOf(books, books.length + 1);
+            updated[books.length] = bookId;
+            branchCounts.userBooks.put(userId, updated);
+        }
+        branchCounts.dirty = true;
+    }
+
+    /**
+     * 流式读取按 user_id 排序的借阅，直接写入原始类型数组（CSR 格式），每个用户去重并截断到上限。
+     */
+    private static final class LoanScan {
+        private final int maxBooksPerUser;
+        private final LongObjectHashMap<long[]> userBooks = new LongObjectHashMap<>();
+        private int[] offsets = new int[1024];
+        private long[] books = new long[4096];
+        private int users;
+        private int size;
+        private long currentUser = Long.MIN_VALUE;
+
+        private LoanScan(int maxBooksPerUser) {
+            this.maxBooksPerUser = maxBooksPerUser;
+        }
+
+        private void accept(ResultSet rs) throws SQLException {
+            long userId = rs.getLong(1);
+            long bookId = rs.getLong(2);
+            if (userId != currentUser) {
+                closeUser();
+                currentUser = userId;
+            }
+            int from = offsets[users];
+            if (size - from >= maxBooksPerUser) {
+                return;
+            }
+            for (int i = from; i < size; i++) {
+                if (books[i] == bookId) {
+                    return;
+                }
+            }
+            if (size == books.length) {
+                books = Arrays.copyOf(books, size << 1);
+            }
+            books[size++] = bookId;
+        }
+
+        private void closeUser() {
+            if (currentUser == Long.MIN_VALUE) {
+                return;
+            }
+            userBooks.put(currentUser, Arrays.copyOfRange(books, offsets[users], size));
+            if (users + 2 > offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length << 1);
+            }
+            offsets[++users] = size;
+        }
+
+        private void finish() {
+            closeUser();
+            currentUser = Long.MIN_VALUE;
+        }
+
+        private int[] userOffsets() {
+            return Arrays.copyOf(offsets, users + 1);
+        }
+
+        private long[] books() {
+            return books;
+        }
+
+        private int userCount() {
+            return users;
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package com.gcc.library1.Service;
+
+import com.gcc.library1.Model.Reservation;
+import com.gcc.library1.Repository.BookRepository;
+import com.gcc.library1.Repository.ReservationRepository;
+import com.gcc.library1.Shard.BranchContext;
+import com.gcc.library1.Shard.ScatterGather;
+import com.gcc.library1.Util.OptimisticRetryExecutor;
+import com.gcc.library1.Util.TimerWheel;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 预约服务：每本书的预约按预约ID先后组成 FIFO 队列，队列只保存在 reservation 表中，所有节点看到的是同一份。
+ * 保留按副本计：未被保留的可借副本（可借数减去 READY 预约数）有多少，就按先后提升多少位等待者为 READY 并开始计时，
+ * 保留期内未取书则过期并继续提升下一位。没有等待者时多出的副本照常可借。
+ * 读写某本书的队列前先锁定图书行（借还书更新可借数也在该行上），同一本书的提升、取书、取消在节点之间同样串行；
+ * 每次锁定时顺带过期已超时的保留，时间轮只负责按时触发，安排计时的节点宕机时由下一次访问该书的请求补做。
+ */
+@Slf4j
+@Service
+public class ReservationService implements SmartLifecycle {
+
+    private static final EnumSet<Reservation.Status> ACTIVE =
+            EnumSet.of(Reservation.Status.WAITING, Reservation.Status.READY);
+
+    /**
+     * 锁定图书行后读到的单本书预约队列，只在当前事务内使用。
+     */
+    private static final class HoldQueue {
+        private final int available;
+        private final List<Reservation> entries;
+
+        private HoldQueue(int available, List<Reservation> entries) {
+            this.available = available;
+            this.entries = entries;
+        }
+
+        // 未被保留的可借副本数
+        private int free() {
+            int ready = 0;
+            for (Reservation reservation : entries) {
+                if (reservation.getStatus() == Reservation.Status.READY) {
+                    ready++;
+                }
+            }
+            return available - ready;
+        }
+
+        private Reservation find(Long userId) {
+            for (Reservation reservation : entries) {
+                if (Objects.equals(reservation.getUserId(), userId)) {
+                    return reservation;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final ReservationRepository reservationRepository;
+    private final BookRepository bookRepository;
+    private final BookService bookService;
+    private final OptimisticRetryExecutor retryExecutor;
+    private final ScatterGather scatterGather;
+    private final Duration holdDuration;
+    // 本节点已安排的过期计时，以预约ID为key。到期时按数据库重新判断，预约已结清或被其他节点处理时不做任何事
+    private final Map<Long, TimerWheel.Timeout> expiries = new ConcurrentHashMap<>();
+    private final TimerWheel timerWheel = new TimerWheel("reservation-expiry", 1000, 3600);
+    private volatile boolean running;
+
+    public ReservationService(ReservationRepository reservationRepository,
+                              BookRepository bookRepository,
+                              BookService bookService,
+                              OptimisticRetryExecutor retryExecutor,
+                              ScatterGather scatterGather,
+                              @Value("${library.reservation.hold-hours:72}") long holdHours) {
+        this.reservationRepository = reservationRepository;
+        this.bookRepository = bookRepository;
+        this.bookService = bookService;
+        this.retryExecutor = retryExecutor;
+        this.scatterGather = scatterGather;
+        this.holdDuration = Duration.ofHours(holdHours);
+    }
+
+    /**
+     * 在 Web 服务器开始接收请求之前启动：为数据库中的 READY 预约安排过期计时。
+     * 生命周期启动在上下文刷新的最后阶段，AOT/CDS 训练运行（刷新后即退出）不会执行，不需要连接数据库。
+     */
+    @Override
+    public void start() {
+        scheduleExpiries();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // 早于 Web 服务器启动（WebServerStartStopLifecycle 的阶段接近 DEFAULT_PHASE）
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    /**
+     * 为各分馆的 READY 预约安排过期计时，已安排的不会重复安排，可重复调用。
+     */
+    void scheduleExpiries() {
+        for (Reservation reservation : scatterGather.gather(
+                () -> reservationRepository.findByStatusInOrderByIdAsc(EnumSet.of(Reservation.Status.READY)))) {
+            scheduleExpiry(reservation);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        timerWheel.close();
+    }
+
+    /**
+     * 预约一本书，加入该书的等待队列尾部。只有可借副本都已借出或都已为他人保留时才能预约。
+     * 同一读者的有效预约另由唯一索引兜底，并发重复预约时抛出 {@link org.springframework.dao.DataIntegrityViolationException}。
+     *
+     * @param bookId 书籍ID
+     * @param userId 用户ID
+     * @return 新建的预约记录
+     * @throws IllegalStateException 用户已预约该书，或该书还有未被保留的可借副本
+     */
+    public Reservation reserve(Long bookId, Long userId) {
+        return retryExecutor.execute(() -> {
+            // 先把空出的副本分给已在排队的人，剩下的才算可直接借
+            HoldQueue queue = lockQueue(bookId);
+            if (queue.find(userId) != null) {
+                throw new IllegalStateException("用户 " + userId + " 已预约书籍 " + bookId);
+            }
+            if (queue.free() > 0) {
+                throw new IllegalStateException(bookId + "，该书当前可借，无需预约");
+            }
+            Reservation reservation = new Reservation();
+            reservation.setBookId(bookId);
+            reservation.setUserId(userId);
+            reservation.setStatus(Reservation.Status.WAITING);
+            reservation.setCreatedAt(LocalDateTime.now());
+            return reservationRepository.save(reservation);
+        });
+    }
+
+    /**
+     * 取消预约。若取消的是已保留的预约，空出的副本提升下一位。
+     */
+    public void cancel(Long bookId, Long userId) {
+        retryExecutor.execute(() -> {
+            HoldQueue queue = lockQueue(bookId);
+            Reservation target = queue.find(userId);
+            if (target == null) {
+                throw new EntityNotFoundException("未找到用户 " + userId + " 对书籍 " + bookId + " 的预约");
+            }
+            boolean wasReady = target.getStatus() == Reservation.Status.READY;
+            close(queue, target, Reservation.Status.CANCELLED);
+            if (wasReady) {
+                promote(queue);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 借书前检查预约：有为本人保留的副本，或有未被保留的可借副本时可借。
+     * 只用于提前给出明确的失败原因，借书时由 {@link #claimHold} 在借书事务中再次判断。
+     *
+     * @return true 表示该用户可以借阅
+     */
+    public boolean checkHold(Long bookId, Long userId) {
+        return retryExecutor.execute(() -> {
+            HoldQueue queue = lockQueue(bookId);
+            Reservation own = queue.find(userId);
+            if (own != null && own.getStatus() == Reservation.Status.READY) {
+                return true;
+            }
+            return queue.free() > 0;
+        });
+    }
+
+    /**
+     * 借书事务中、扣减可借数之前调用：为本人保留的副本直接取走并把预约标记为已取书，
+     * 否则只能借未被保留的副本。调用方需在事务中，借书失败时预约随事务回滚原样保留。
+     *
+     * @throws IllegalStateException 该书没有可借副本，或可借副本都已为其他用户保留
+     */
+    public void claimHold(Long bookId, Long userId) {
+        int available = bookRepository.lockAvailableCopies(bookId).orElse(0);
+        if (available == 0) {
+            throw new IllegalStateException("该书没有可借副本");
+        }
+        HoldQueue queue = loadQueue(bookId, available);
+        Reservation own = queue.find(userId);
+        if (own != null && own.getStatus() == Reservation.Status.READY) {
+            close(queue, own, Reservation.Status.FULFILLED);
+            return;
+        }
+        if (queue.free() <= 0) {
+            throw new IllegalStateException("该书已为其他用户预留");
+        }
+    }
+
+    /**
+     * 书归还后调用，按空出的副本数提升等待者为 READY。图书已删除时不做任何事。
+     */
+    public void onBookReturned(Long bookId) {
+        refresh(bookId);
+    }
+
+    /**
+     * 未被保留、也没有等待者排在前面的可借副本数，即不预约可以直接借走的副本数。
+     * 不加锁读取，只用于提前拒绝请求，以 {@link #reserve} 和 {@link #claimHold} 的判断为准。
+     */
+    public int freeCopies(Long bookId) {
+        return Math.max(0, bookService.availableCopies(bookId) - getQueueByBookId(bookId).size());
+    }
+
+    public List<Reservation> getReservationsByUserId(Long userId) {
+        return scatterGather.gather(() -> reservationRepository.findByUserId(userId));
+    }
+
+    /**
+     * 获取某本书当前的预约队列（按先后顺序）。
+     */
+    public List<Reservation> getQueueByBookId(Long bookId) {
+        return reservationRepository.findByBookIdAndStatusInOrderByIdAsc(bookId, ACTIVE);
+    }
+
+    // 过期已超时的保留并提升等待者，图书已删除时不做任何事
+    private void refresh(Long bookId) {
+        retryExecutor.execute(() -> {
+            bookRepository.lockAvailableCopies(bookId).ifPresent(available -> loadQueue(bookId, available));
+            return null;
+        });
+    }
+
+    // 调用方需在事务中
+    private HoldQueue lockQueue(Long bookId) {
+        int available = bookRepository.lockAvailableCopies(bookId)
+                .orElseThrow(() -> new EntityNotFoundException("Book not found with id:" + bookId));
+        return loadQueue(bookId, available);
+    }
+
+    // 调用方需在事务中并已锁定图书行。过期已超时的保留，再按未被保留的可借副本提升等待者
+    private HoldQueue loadQueue(Long bookId, int available) {
+        HoldQueue queue = new HoldQueue(available,
+                new ArrayList<>(reservationRepository.findByBookIdAndStatusInOrderByIdAsc(bookId, ACTIVE)));
+        LocalDateTime now = LocalDateTime.now();
+        for (Reservation reservation : new ArrayList<>(queue.entries)) {
+            if (reservation.getStatus() == Reservation.Status.READY && !reservation.getExpireAt().isAfter(now)) {
+                close(queue, reservation, Reservation.Status.EXPIRED);
+                log.info("预约 {} 保留期已过，自动过期", reservation.getId());
+            }
+        }
+        promote(queue);
+        // 其他节点提升的保留在本节点也安排计时，计时到期时本节点可以接手
+        for (Reservation reservation : queue.entries) {
+            if (reservation.getStatus() == Reservation.Status.READY) {
+                scheduleExpiry(reservation);
+            }
+        }
+        return queue;
+    }
+
+    // 未被保留的可借副本有几本，就按先后提升几位等待者
+    private void promote(HoldQueue queue) {
+        int free = queue.free();
+        for (Reservation reservation : queue.entries) {
+            if (free <= 0) {
+                return;
+            }
+            if (reservation.getStatus() != Reservation.Status.WAITING) {
+                continue;
+            }
+            reservation.setStatus(Reservation.Status.READY);
+            reservation.setExpireAt(LocalDateTime.now().plus(holdDuration));
+            reservationRepository.save(reservation);
+            free--;
+            log.info("预约 {} 已为用户 {} 保留书籍 {}", reservation.getId(), reservation.getUserId(), reservation.getBookId());
+        }
+    }
+
+    private void close(HoldQueue queue, Reservation reservation, Reservation.Status status) {
+        queue.entries.remove(reservation);
+        reservation.setStatus(status);
+        reservationRepository.save(reservation);
+    }
+
+    private void scheduleExpiry(Reservation reservation) {
+        long delay = Duration.between(LocalDateTime.now(), reservation.getExpireAt()).toMillis();
+        String branch = reservation.getBranch();
+        Long bookId = reservation.getBookId();
+        expiries.computeIfAbsent(reservation.getId(), id -> timerWheel.schedule(delay, () -> {
+            expiries.remove(id);
+            BranchContext.call(branch, () -> {
+                refresh(bookId);
+                return null;
+            });
+        }));
+    }
+}
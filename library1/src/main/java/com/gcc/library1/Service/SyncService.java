@@ -0,0 +1,123 @@
+package com.gcc.library1.Service;
+
+import com.gcc.library1.Model.Book;
+import com.gcc.library1.Model.BorrowRecord;
+import com.gcc.library1.Model.SyncTombstone;
+import com.gcc.library1.Repository.BookRepository;
+import com.gcc.library1.Repository.BorrowRecordRepository;
+import com.gcc.library1.Repository.SyncTombstoneRepository;
+import com.gcc.library1.Sync.RevisionCounter;
+import com.gcc.library1.Sync.SyncPage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * 增量同步服务：按修订号返回当前分馆自某个同步点以来的新增、修改和删除。
+ */
+@Service
+public class SyncService {
+
+    private final BookRepository bookRepository;
+    private final BorrowRecordRepository borrowRecordRepository;
+    private final SyncTombstoneRepository syncTombstoneRepository;
+    private final RevisionCounter revisionCounter;
+    private final TransactionTemplate readTemplate;
+    private final int maxPageSize;
+
+    public SyncService(BookRepository bookRepository,
+                       BorrowRecordRepository borrowRecordRepository,
+                       SyncTombstoneRepository syncTombstoneRepository,
+                       RevisionCounter revisionCounter,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${library.sync.max-page-size:1000}") int maxPageSize) {
+        this.bookRepository = bookRepository;
+        this.borrowRecordRepository = borrowRecordRepository;
+        this.syncTombstoneRepository = syncTombstoneRepository;
+        this.revisionCounter = revisionCounter;
+        this.readTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate.setReadOnly(true);
+        this.maxPageSize = maxPageSize;
+    }
+
+    /**
+     * 记录一次删除，必须与删除操作在同一事务中调用。
+     */
+    public void recordDeletion(SyncTombstone.Type type, Long entityId) {
+        SyncTombstone tombstone = new SyncTombstone();
+        tombstone.setRevision(revisionCounter.next());
+        tombstone.setEntityType(type);
+        tombstone.setEntityId(entityId);
+        tombstone.setDeletedAt(LocalDateTime.now());
+        syncTombstoneRepository.save(tombstone);
+    }
+
+    /**
+     * 获取修订号大于 since 的一页变更。三类变更各多取一条，按修订号归并后截取 limit 条。
+     *
+     * @param since 客户端上次同步到的修订号，0 表示全量同步（不返回墓碑）
+     * @param limit 每页最多条数，超过 library.sync.max-page-size 时按上限处理
+     */
+    public SyncPage changesSince(long since, int limit) {
+        int size = Math.max(1, Math.min(limit, maxPageSize));
+        return readTemplate.execute(status -> {
+            // 稳定点先于数据读取：大于它的修订号可能有更小的还未提交，这一页不返回
+            long stable = revisionCounter.current();
+            Limit fetch = Limit.of(size + 1);
+            List<Book> books = upTo(bookRepository.findByRevisionGreaterThanOrderByRevisionAsc(since, fetch),
+                    Book::getRevision, stable);
+            List<BorrowRecord> records = upTo(borrowRecordRepository.findByRevisionGreaterThanOrderByRevisionAsc(since, fetch),
+                    BorrowRecord::getRevision, stable);
+            List<SyncTombstone> tombstones = since > 0
+                    ? upTo(syncTombstoneRepository.findByRevisionGreaterThanOrderByRevisionAsc(since, fetch),
+                    SyncTombstone::getRevision, stable)
+                    : List.of();
+            // 在读取墓碑之后检查压缩水位：压缩与推进水位同一事务提交，读到的墓碑若已残缺，这里一定能看到更高的水位
+            if (since > 0 && since < revisionCounter.compactedRevision()) {
+                return SyncPage.reset(since);
+            }
+
+            List<Book> pageBooks = new ArrayList<>();
+            List<BorrowRecord> pageRecords = new ArrayList<>();
+            List<SyncTombstone> pageTombstones = new ArrayList<>();
+            int b = 0, r = 0, t = 0;
+            long revision = since;
+            for (int taken = 0; taken < size; taken++) {
+                long nextBook = b < books.size() ? books.get(b).getRevision() : Long.MAX_VALUE;
+                long nextRecord = r < records.size() ? records.get(r).getRevision() : Long.MAX_VALUE;
+                long nextTombstone = t < tombstones.size() ? tombstones.get(t).getRevision() : Long.MAX_VALUE;
+                long next = Math.min(nextBook, Math.min(nextRecord, nextTombstone));
+                if (next == Long.MAX_VALUE) {
+                    break;
+                }
+                // 同一数据源内修订号唯一，不会相等
+                if (next == nextBook) {
+                    pageBooks.add(books.get(b++));
+                } else if (next == nextRecord) {
+                    pageRecords.add(records.get(r++));
+                } else {
+                    pageTombstones.add(tombstones.get(t++));
+                }
+                revision = next;
+            }
+            boolean hasMore = b < books.size() || r < records.size() || t < tombstones.size();
+            return new SyncPage(revision, hasMore, false, pageBooks, pageRecords, pageTombstones);
+        });
+    }
+
+    // 列表按修订号升序，截掉稳定点之后的部分
+    private static <T> List<T> upTo(List<T> changes, ToLongFunction<T> revision, long stable) {
+        int end = changes.size();
+        while (end > 0 && revision.applyAsLong(changes.get(end - 1)) > stable) {
+            end--;
+        }
+        return end == changes.size() ? changes : changes.subList(0, end);
+    }
+}
@@ -1,51 +1,197 @@
 package com.gcc.library1.Service;
 
+import com.gcc.library1.Cache.InvalidationBus;
+import com.gcc.library1.Cache.NearCache;
 import com.gcc.library1.Model.User;
 import com.gcc.library1.Repository.UserRepository;
+import com.gcc.library1.Roster.RosterReader;
+import com.gcc.library1.Roster.RosterRow;
+import com.gcc.library1.Roster.RosterStore;
+import com.gcc.library1.Roster.RosterSyncReport;
+import com.gcc.library1.Shard.GlobalData;
+import com.gcc.library1.Util.OptimisticRetryExecutor;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+// 用户不分馆，统一保存在默认数据源
+@GlobalData
 @Service
 @RequiredArgsConstructor
 public class UserService {
     private final UserRepository userRepository;
+    private final InvalidationBus invalidationBus;
+    private final OptimisticRetryExecutor retryExecutor;
+    private final RosterStore rosterStore;
+
+    private NearCache<User> userCache() {
+        return invalidationBus.cache(InvalidationBus.USER, User::copy);
+    }
 
     public User addUser(User user) {
-            return userRepository.save(user);
+            User saved = userRepository.save(user);
+            invalidationBus.publish(InvalidationBus.USER, saved.getId());
+            return saved;
     }
 
     public User updateUser(Long id, User user) {
-        User existingUser = userRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("User not found"+ id));
-        existingUser.setName(user.getName());
-        existingUser.setPassword(user.getPassword());
-        return userRepository.save(existingUser);
+        User saved = retryExecutor.execute(() -> {
+            User existingUser = userRepository.findById(id)
+                    .orElseThrow(() -> new EntityNotFoundException("User not found"+ id));
+            if (user.getVersion() != null && !user.getVersion().equals(existingUser.getVersion())) {
+                throw new ObjectOptimisticLockingFailureException(User.class, id);
+            }
+            existingUser.setName(user.getName());
+            existingUser.setPassword(user.getPassword());
+            if (user.getUserType() != null) {
+                existingUser.setUserType(user.getUserType());
+            }
+            return userRepository.save(existingUser);
+        }, user.getVersion() == null);
+        invalidationBus.publish(InvalidationBus.USER, id);
+        return saved;
     }
     public void deleteUser(Long id) {
         User existingUser = userRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("User not found"+ id));
         userRepository.deleteById(id);
+        invalidationBus.publish(InvalidationBus.USER, id);
     }
 
     public List<User> getAllUsers() {
         return userRepository.findAll();
     }
     public User getUserById(Long id) {
-        return userRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("User not found"+ id));
+        return userCache().get(id, key -> userRepository.findById(key)
+                .orElseThrow(() -> new EntityNotFoundException("User not found"+ key)));
     }
     public User getUserByName(String name) {
         return userRepository.findByName(name)
                 .orElseThrow(() -> new EntityNotFoundException("User not found"+ name));
     }
 
+    // 已停用的用户不能登录
     public User getUserByNameAndPassword(String name, String password) {
         return userRepository.findByNameAndPassword(name, password)
+                .filter(User::isActive)
                 .orElseThrow(() -> new EntityNotFoundException("User or Password is mistake"));
     }
 
+    /**
+     * 按教务处的完整名单同步用户。逐行读取名单并计算行内容哈希，与库中上次导入时的哈希比对，
+     * 只写入新增、变化和需要停用的用户，每批一个事务。
+     * <p>
+     * 名单是其中字段（密码、用户类型）的权威来源：行内容变化时覆盖这两个字段；行未变化时不写库，
+     * 用户自行修改过的密码保持不变。上次由名单导入、这次不在名单中的用户被停用；手动注册的用户不受影响，
+     * 与其同名的名单行跳过并在结果中列出。用户名按数据库的比较方式（不区分大小写）比对。
+     * 某一批失败时之前的批次已提交，重新执行同一份名单只会写入剩余的差异。
+     * <p>
+     * 名单被截断时大部分用户都会“不在名单中”，因此要停用的用户超过启用的名单用户的
+     * library.roster.max-deactivate-ratio 时拒绝停用，新增和更新照常提交，确认无误后带 allowMassDeactivation 重新提交。
+     *
+     * @param roster                名单内容
+     * @param allowMassDeactivation 是否允许停用超过上限比例的用户
+     * @return 同步结果
+     * @throws IllegalStateException 要停用的用户超过上限且未允许
+     */
+    public RosterSyncReport syncRoster(Reader roster, boolean allowMassDeactivation) throws IOException {
+        long started = System.nanoTime();
+        Map<String, RosterStore.StoredUser> stored = rosterStore.loadStored();
+        Set<String> seen = new HashSet<>();
+        List<RosterStore.Change> batch = new ArrayList<>();
+        List<Long> touched = new ArrayList<>();
+        List<String> conflictNames = new ArrayList<>();
+        RosterReader reader = new RosterReader(roster);
+        int rows = 0, inserted = 0, updated = 0, deactivated = 0, duplicates = 0, conflicts = 0, batches = 0;
+        RosterRow row;
+        List<RosterRow> rejected = new ArrayList<>();
+        while ((row = reader.next()) != null) {
+            // 按数据库比较用户名的方式去重和比对，只差大小写的用户名是同一个用户
+            String key = RosterStore.nameKey(row.name());
+            if (!seen.add(key)) {
+                duplicates++;
+                continue;
+            }
+            rows++;
+            RosterStore.StoredUser existing = stored.get(key);
+            if (existing == null) {
+                batch.add(new RosterStore.Change(RosterStore.Kind.INSERT, null, row));
+                inserted++;
+            } else if (existing.rosterHash() == null) {
+                // 手动注册的用户不归名单管理，同名时不覆盖其密码和类型
+                if (conflictNames.size() < RosterSyncReport.MAX_CONFLICT_NAMES) {
+                    conflictNames.add(row.name());
+                }
+                conflicts++;
+                continue;
+            } else if (!row.hash().equals(existing.rosterHash()) || !existing.active()) {
+                batch.add(new RosterStore.Change(RosterStore.Kind.UPDATE, existing.id(), row));
+                touched.add(existing.id());
+                updated++;
+            } else {
+                continue;
+            }
+            if (batch.size() >= rosterStore.getBatchSize()) {
+                batches += flushRosterBatch(batch, touched, rejected);
+            }
+        }
+        List<Long> toDeactivate = new ArrayList<>();
+        int activeRosterUsers = 0;
+        for (Map.Entry<String, RosterStore.StoredUser> entry : stored.entrySet()) {
+            RosterStore.StoredUser user = entry.getValue();
+            if (user.rosterHash() != null && user.active()) {
+                activeRosterUsers++;
+                if (!seen.contains(entry.getKey())) {
+                    toDeactivate.add(user.id());
+                }
+            }
+        }
+        if (!allowMassDeactivation && toDeactivate.size() > activeRosterUsers * rosterStore.getMaxDeactivateRatio()) {
+            flushRosterBatch(batch, touched, rejected);
+            throw new IllegalStateException("名单将停用 " + toDeactivate.size() + " 个用户（共 " + activeRosterUsers
+                    + " 个），超过上限，请确认名单完整后允许批量停用再提交");
+        }
+        for (Long id : toDeactivate) {
+            batch.add(new RosterStore.Change(RosterStore.Kind.DEACTIVATE, id, null));
+            touched.add(id);
+            deactivated++;
+            if (batch.size() >= rosterStore.getBatchSize()) {
+                batches += flushRosterBatch(batch, touched, rejected);
+            }
+        }
+        batches += flushRosterBatch(batch, touched, rejected);
+        // 写入时才发现与已有用户同名的新增行，同样按冲突列出
+        for (RosterRow conflict : rejected) {
+            inserted--;
+            conflicts++;
+            if (conflictNames.size() < RosterSyncReport.MAX_CONFLICT_NAMES) {
+                conflictNames.add(conflict.name());
+            }
+        }
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+        return new RosterSyncReport(rows, inserted, updated, deactivated, rows - inserted - updated - conflicts,
+                reader.getInvalid() + duplicates, conflicts, List.copyOf(conflictNames), batches, elapsedMillis);
+    }
+
+    private int flushRosterBatch(List<RosterStore.Change> batch, List<Long> touched, List<RosterRow> rejected) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        rejected.addAll(rosterStore.apply(batch));
+        touched.forEach(id -> invalidationBus.publish(InvalidationBus.USER, id));
+        batch.clear();
+        touched.clear();
+        return 1;
+    }
+
 
 }
@@ -0,0 +1,53 @@
+package com.gcc.library1.Shard;
+
+import java.util.function.Supplier;
+
+/**
+ * 当前线程所属的分馆。请求线程由 {@link BranchFilter} 设置，跨分馆查询的工作线程由 {@link ScatterGather} 设置；
+ * 未设置时按默认分馆处理。{@link #GLOBAL} 表示访问不分馆的全局数据（如用户），固定路由到默认数据源。
+ */
+public final class BranchContext {
+
+    public static final String GLOBAL = "*";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private BranchContext() {
+    }
+
+    /**
+     * @return 当前分馆，未设置时为 null
+     */
+    public static String get() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 切换当前分馆并返回切换前的值，调用方负责在 finally 中用 {@link #restore(String)} 恢复。
+     */
+    public static String swap(String branch) {
+        String previous = CURRENT.get();
+        CURRENT.set(branch);
+        return previous;
+    }
+
+    public static void restore(String previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * 在指定分馆下执行。
+     */
+    public static <T> T call(String branch, Supplier<T> action) {
+        String previous = swap(branch);
+        try {
+            return action.get();
+        } finally {
+            restore(previous);
+        }
+    }
+}
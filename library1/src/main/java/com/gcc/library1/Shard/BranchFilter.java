@@ -0,0 +1,55 @@
+package com.gcc.library1.Shard;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 从请求头 X-Branch 读取分馆并绑定到请求线程，未携带时使用默认分馆，未知分馆返回 400。
+ */
+@Component
+@RequiredArgsConstructor
+public class BranchFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Branch";
+
+    private final ShardRouter router;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String branch = request.getHeader(HEADER);
+        if (branch == null || branch.isBlank()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        branch = branch.trim();
+        if (!router.isKnown(branch)) {
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.getWriter().write("未知分馆: " + branch);
+            return;
+        }
+        String previous = BranchContext.swap(branch);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            BranchContext.restore(previous);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.gcc.library1.Shard;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * 按当前线程的分馆选择目标数据源。连接在事务开始（或无事务语句执行）时获取，
+ * 因此分馆必须在进入仓库或事务之前设置好。
+ */
+public class BranchRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final ShardRouter router;
+
+    public BranchRoutingDataSource(ShardRouter router) {
+        this.router = router;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return router.currentDataSource();
+    }
+}
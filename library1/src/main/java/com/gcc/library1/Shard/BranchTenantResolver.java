@@ -0,0 +1,26 @@
+package com.gcc.library1.Shard;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
+import org.springframework.stereotype.Component;
+
+/**
+ * 为 Hibernate 会话提供当前分馆。实体上的 @TenantId 字段在插入时自动填充为该值，
+ * 查询和按主键加载时自动追加 branch 条件，共用表的分馆之间互不可见。
+ */
+@Component
+@RequiredArgsConstructor
+public class BranchTenantResolver implements CurrentTenantIdentifierResolver<String> {
+
+    private final ShardRouter router;
+
+    @Override
+    public String resolveCurrentTenantIdentifier() {
+        return router.currentBranch();
+    }
+
+    @Override
+    public boolean validateExistingCurrentSessions() {
+        return false;
+    }
+}
@@ -0,0 +1,14 @@
+package com.gcc.library1.Shard;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标注在服务类上，表示其数据不分馆，方法执行期间固定路由到默认数据源。
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface GlobalData {
+}
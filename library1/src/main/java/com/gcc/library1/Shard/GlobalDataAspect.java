@@ -0,0 +1,24 @@
+package com.gcc.library1.Shard;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * 进入 {@link GlobalData} 服务时切换为全局数据访问，返回时恢复调用方的分馆。
+ */
+@Aspect
+@Component
+public class GlobalDataAspect {
+
+    @Around("@within(com.gcc.library1.Shard.GlobalData)")
+    public Object routeToDefault(ProceedingJoinPoint joinPoint) throws Throwable {
+        String previous = BranchContext.swap(BranchContext.GLOBAL);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            BranchContext.restore(previous);
+        }
+    }
+}
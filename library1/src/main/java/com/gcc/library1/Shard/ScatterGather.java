@@ -0,0 +1,65 @@
+package com.gcc.library1.Shard;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 跨分馆查询：把同一个查询并行分发到每个分馆，各自在对应分馆的上下文（数据源 + branch 过滤）中执行后合并结果。
+ * 结果按分馆配置顺序拼接；任一分馆失败或超时则整体失败，不返回残缺结果。
+ */
+@Component
+@RequiredArgsConstructor
+public class ScatterGather {
+
+    private final ShardRouter router;
+    private final ShardProperties properties;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public <T> List<T> gather(Supplier<List<T>> query) {
+        List<String> branches = router.branches();
+        if (branches.size() == 1) {
+            return BranchContext.call(branches.get(0), query);
+        }
+        Map<String, Future<List<T>>> futures = new LinkedHashMap<>();
+        for (String branch : branches) {
+            futures.put(branch, executor.submit(() -> BranchContext.call(branch, query)));
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getScatterTimeoutMillis());
+        List<T> merged = new ArrayList<>();
+        try {
+            for (Map.Entry<String, Future<List<T>>> entry : futures.entrySet()) {
+                try {
+                    merged.addAll(entry.getValue().get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("分馆 " + entry.getKey() + " 查询失败", e.getCause());
+                } catch (TimeoutException e) {
+                    throw new IllegalStateException("分馆 " + entry.getKey() + " 查询超时");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("跨分馆查询被中断", e);
+        } finally {
+            futures.values().forEach(future -> future.cancel(true));
+        }
+        return merged;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
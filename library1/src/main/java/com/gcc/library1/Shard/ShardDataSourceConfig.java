@@ -0,0 +1,146 @@
+package com.gcc.library1.Shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 分片数据源装配：默认数据源来自 spring.datasource.*，独立数据源来自 library.shard.datasources.*，
+ * 统一包装为 {@link BranchRoutingDataSource} 供 JPA、JdbcTemplate 使用。
+ * Flyway 对每个数据源分别执行迁移，保证各分片表结构一致。
+ */
+@Configuration
+public class ShardDataSourceConfig {
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties defaultProperties, ShardProperties shardProperties,
+                                 ShardRouter router, ObjectProvider<MeterRegistry> meterRegistry) {
+        validate(shardProperties);
+        Map<Object, Object> targets = new HashMap<>();
+        HikariDataSource defaultDataSource = defaultProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class).build();
+        defaultDataSource.setPoolName("library-" + ShardRouter.DEFAULT_DATASOURCE);
+        targets.put(ShardRouter.DEFAULT_DATASOURCE, defaultDataSource);
+        shardProperties.getDatasources().forEach((name, target) -> {
+            HikariDataSource dataSource = DataSourceBuilder.create().type(HikariDataSource.class)
+                    .url(target.getUrl())
+                    .username(target.getUsername())
+                    .password(target.getPassword())
+                    .driverClassName(target.getDriverClassName())
+                    .build();
+            dataSource.setPoolName("library-" + name);
+            dataSource.setMaximumPoolSize(target.getMaximumPoolSize());
+            targets.put(name, dataSource);
+        });
+        // 路由数据源对外只暴露默认连接池，这里为每个连接池单独注册 hikaricp.* 指标
+        meterRegistry.ifAvailable(registry -> targets.values().forEach(dataSource ->
+                ((HikariDataSource) dataSource).setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry))));
+
+        BranchRoutingDataSource routing = new BranchRoutingDataSource(router);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(defaultDataSource);
+        routing.setLenientFallback(false);
+        return routing;
+    }
+
+    /**
+     * 修订号分配专用的小连接池（每个数据源一个），按同样的规则路由。取号段发生在写事务进行中，
+     * 与业务共用连接池时，连接池被等号段的写事务占满后取号段拿不到连接，所有写入一起卡到超时。
+     */
+    @Bean
+    public DataSource revisionDataSource(DataSourceProperties defaultProperties, ShardProperties shardProperties,
+                                         ShardRouter router,
+                                         @Value("${library.sync.revision-pool-size:2}") int poolSize) {
+        Map<Object, Object> targets = new HashMap<>();
+        HikariDataSource defaultDataSource = defaultProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class).build();
+        defaultDataSource.setPoolName("revision-" + ShardRouter.DEFAULT_DATASOURCE);
+        defaultDataSource.setMaximumPoolSize(poolSize);
+        targets.put(ShardRouter.DEFAULT_DATASOURCE, defaultDataSource);
+        shardProperties.getDatasources().forEach((name, target) -> {
+            HikariDataSource dataSource = DataSourceBuilder.create().type(HikariDataSource.class)
+                    .url(target.getUrl())
+                    .username(target.getUsername())
+                    .password(target.getPassword())
+                    .driverClassName(target.getDriverClassName())
+                    .build();
+            dataSource.setPoolName("revision-" + name);
+            dataSource.setMaximumPoolSize(poolSize);
+            targets.put(name, dataSource);
+        });
+        BranchRoutingDataSource routing = new BranchRoutingDataSource(router);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(defaultDataSource);
+        routing.setLenientFallback(false);
+        return routing;
+    }
+
+    /**
+     * 跨节点缓存失效事件专用的小连接池，只连默认数据源。事件在业务事务提交之后写入和轮询，不与业务争用连接。
+     */
+    @Bean
+    @ConditionalOnProperty(name = "library.cache.transport", havingValue = "jdbc", matchIfMissing = true)
+    public DataSource invalidationDataSource(DataSourceProperties defaultProperties,
+                                             @Value("${library.cache.pool-size:2}") int poolSize) {
+        HikariDataSource dataSource = defaultProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("invalidation");
+        dataSource.setMaximumPoolSize(poolSize);
+        return dataSource;
+    }
+
+    /**
+     * 各数据源依次迁移。library.flyway.migrate-on-startup=false 时跳过，供构建期的 CDS 训练运行使用：
+     * AOT 模式下 Flyway 的装配条件已在构建期固定，spring.flyway.enabled 在运行时不再生效，只能在这里按运行时配置判断。
+     */
+    @Bean
+    public FlywayMigrationStrategy shardMigrationStrategy(DataSource dataSource,
+                                                          @Value("${library.flyway.migrate-on-startup:true}") boolean migrateOnStartup) {
+        return flyway -> {
+            if (!migrateOnStartup) {
+                return;
+            }
+            flyway.migrate();
+            ((BranchRoutingDataSource) dataSource).getResolvedDataSources().forEach((name, target) -> {
+                if (!ShardRouter.DEFAULT_DATASOURCE.equals(name)) {
+                    Flyway.configure().configuration(flyway.getConfiguration()).dataSource(target).load().migrate();
+                }
+            });
+        };
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer branchTenantCustomizer(BranchTenantResolver resolver) {
+        return properties -> properties.put(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER, resolver);
+    }
+
+    private static void validate(ShardProperties properties) {
+        if (!properties.getBranches().contains(properties.getDefaultBranch())) {
+            throw new IllegalStateException("默认分馆 " + properties.getDefaultBranch() + " 不在 library.shard.branches 中");
+        }
+        properties.getRoutes().forEach((branch, name) -> {
+            if (!properties.getBranches().contains(branch)) {
+                throw new IllegalStateException("路由中的分馆 " + branch + " 不在 library.shard.branches 中");
+            }
+            if (!properties.getDatasources().containsKey(name)) {
+                throw new IllegalStateException("分馆 " + branch + " 的数据源 " + name + " 未配置");
+            }
+        });
+    }
+}
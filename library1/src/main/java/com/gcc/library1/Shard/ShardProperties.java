@@ -0,0 +1,45 @@
+package com.gcc.library1.Shard;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分馆分片配置，对应 application.properties 中的 library.shard.*。
+ * 未在 routes 中出现的分馆落在默认数据源（spring.datasource.*），与其他分馆共用表、按 branch 列区分；
+ * 把某个分馆迁到独立数据库只需增加 datasources.&lt;名称&gt;.* 并配置 routes.&lt;分馆&gt;=&lt;名称&gt;。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "library.shard")
+public class ShardProperties {
+
+    // 请求未指定分馆时使用的分馆
+    private String defaultBranch = "main";
+
+    // 所有分馆，跨分馆查询按此列表并行分发
+    private List<String> branches = new ArrayList<>(List.of("main"));
+
+    // 分馆 -> 独立数据源名称
+    private Map<String, String> routes = new HashMap<>();
+
+    // 独立数据源名称 -> 连接信息
+    private Map<String, Target> datasources = new HashMap<>();
+
+    // 跨分馆查询等待各分片返回的最长时间（毫秒）
+    private long scatterTimeoutMillis = 5000;
+
+    @Data
+    public static class Target {
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName;
+        private int maximumPoolSize = 10;
+    }
+}
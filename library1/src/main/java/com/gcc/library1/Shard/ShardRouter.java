@@ -0,0 +1,65 @@
+package com.gcc.library1.Shard;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分馆到数据源的路由规则。
+ */
+@Component
+@RequiredArgsConstructor
+public class ShardRouter {
+
+    public static final String DEFAULT_DATASOURCE = "default";
+
+    private final ShardProperties properties;
+
+    /**
+     * 当前线程的分馆；未设置或处于全局数据访问时为默认分馆。
+     */
+    public String currentBranch() {
+        String branch = BranchContext.get();
+        return branch == null || BranchContext.GLOBAL.equals(branch) ? properties.getDefaultBranch() : branch;
+    }
+
+    /**
+     * 当前线程应使用的数据源名称。
+     */
+    public String currentDataSource() {
+        return BranchContext.GLOBAL.equals(BranchContext.get()) ? DEFAULT_DATASOURCE : dataSourceOf(currentBranch());
+    }
+
+    public String dataSourceOf(String branch) {
+        return properties.getRoutes().getOrDefault(branch, DEFAULT_DATASOURCE);
+    }
+
+    public boolean isKnown(String branch) {
+        return properties.getBranches().contains(branch);
+    }
+
+    public List<String> branches() {
+        return properties.getBranches();
+    }
+
+    /**
+     * 每个数据源取一个分馆作为代表，用于按数据源执行的维护任务（不经 branch 过滤的 JDBC 操作）。
+     */
+    public List<String> oneBranchPerDataSource() {
+        Map<String, String> representatives = new LinkedHashMap<>();
+        for (String branch : properties.getBranches()) {
+            representatives.putIfAbsent(dataSourceOf(branch), branch);
+        }
+        return List.copyOf(representatives.values());
+    }
+
+    /**
+     * 分馆维度的缓存名称。不同数据源的主键会重复，共用表时其他分馆的记录也不应命中，因此每个分馆一份缓存。
+     */
+    public String cacheType(String entityType) {
+        return entityType + "@" + currentBranch();
+    }
+}
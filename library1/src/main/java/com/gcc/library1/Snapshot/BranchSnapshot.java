@@ -0,0 +1,19 @@
+package com.gcc.library1.Snapshot;
+
+import com.gcc.library1.Model.Book;
+import com.gcc.library1.Model.BorrowRecord;
+
+import java.util.List;
+
+/**
+ * 单个分馆的热点状态快照。
+ *
+ * @param branch       分馆
+ * @param revision     同步点：快照内容对应的修订号，启动时从这里增量回放
+ * @param books        图书缓存中的热点图书
+ * @param loans        该分馆全部在借记录（借阅表中只保存未归还的记录）
+ * @param checkedBooks 借阅状态缓存中的热点书籍ID，不在 loans 中的即为可借
+ */
+public record BranchSnapshot(String branch, long revision, List<Book> books, List<BorrowRecord> loans,
+                             List<Long> checkedBooks) {
+}
@@ -0,0 +1,284 @@
+package com.gcc.library1.Snapshot;
+
+import com.gcc.library1.Cache.InvalidationBus;
+import com.gcc.library1.Cache.NearCache;
+import com.gcc.library1.Model.Book;
+import com.gcc.library1.Model.BorrowRecord;
+import com.gcc.library1.Model.SyncTombstone;
+import com.gcc.library1.Repository.BookRepository;
+import com.gcc.library1.Repository.BorrowRecordRepository;
+import com.gcc.library1.Service.SyncService;
+import com.gcc.library1.Shard.BranchContext;
+import com.gcc.library1.Shard.ShardRouter;
+import com.gcc.library1.Sync.RevisionCounter;
+import com.gcc.library1.Sync.SyncPage;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 启动快照：定期把各分馆的热点缓存（图书、借阅状态）写入本地二进制文件，重启时先从文件预热再对外提供服务。
+ * 快照记录写入时的同步点，加载后按修订号从增量同步接口回放之后的变更，预热结果与数据库一致。
+ * 加载和回放完成前 {@link SnapshotHealthIndicator} 报告 OUT_OF_SERVICE，readiness 探针据此摘除流量。
+ */
+@Slf4j
+@Component
+public class CacheSnapshotService {
+
+    // 按主键批量回读热点图书时每批的ID数
+    private static final int ID_BATCH = 1000;
+
+    private final BookRepository bookRepository;
+    private final BorrowRecordRepository borrowRecordRepository;
+    private final SyncService syncService;
+    private final RevisionCounter revisionCounter;
+    private final InvalidationBus invalidationBus;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate readTemplate;
+    private final boolean enabled;
+    private final Path file;
+    private final long intervalSeconds;
+    private final int replayPageSize;
+    private ScheduledExecutorService scheduler;
+    private volatile boolean ready;
+    private volatile Map<String, Object> loadReport = Map.of("state", "loading");
+
+    public CacheSnapshotService(BookRepository bookRepository,
+                                BorrowRecordRepository borrowRecordRepository,
+                                SyncService syncService,
+                                RevisionCounter revisionCounter,
+                                InvalidationBus invalidationBus,
+                                ShardRouter shardRouter,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${library.snapshot.enabled:true}") boolean enabled,
+                                @Value("${library.snapshot.dir:snapshot}") String dir,
+                                @Value("${library.snapshot.interval-seconds:300}") long intervalSeconds,
+                                @Value("${library.sync.max-page-size:1000}") int replayPageSize) {
+        this.bookRepository = bookRepository;
+        this.borrowRecordRepository = borrowRecordRepository;
+        this.syncService = syncService;
+        this.revisionCounter = revisionCounter;
+        this.invalidationBus = invalidationBus;
+        this.shardRouter = shardRouter;
+        this.readTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate.setReadOnly(true);
+        this.enabled = enabled;
+        this.file = Path.of(dir, "cache-snapshot.bin");
+        this.intervalSeconds = intervalSeconds;
+        this.replayPageSize = replayPageSize;
+        if (!enabled) {
+            ready = true;
+            loadReport = Map.of("state", "disabled");
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 同一线程先加载后定期写入，首次写入一定在加载完成之后
+        scheduler.execute(this::load);
+        if (intervalSeconds > 0) {
+            scheduler.scheduleWithFixedDelay(this::writeQuietly, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        // 停机前写一次，下次启动时回放的增量最少
+        if (ready) {
+            writeQuietly();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public Map<String, Object> getLoadReport() {
+        return loadReport;
+    }
+
+    /**
+     * 加载快照并回放增量，完成后标记就绪。文件不存在或损坏时冷启动，缓存按需加载。
+     */
+    void load() {
+        long started = System.nanoTime();
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("file", file.toString());
+        try {
+            if (!Files.exists(file)) {
+                report.put("state", "cold");
+                log.info("未找到启动快照 {}，冷启动", file);
+                return;
+            }
+            List<BranchSnapshot> snapshots = SnapshotCodec.read(file);
+            int books = 0, loans = 0, replayed = 0;
+            List<String> restored = new ArrayList<>();
+            for (BranchSnapshot snapshot : snapshots) {
+                if (!shardRouter.isKnown(snapshot.branch())) {
+                    continue;
+                }
+                try {
+                    int[] counts = BranchContext.call(snapshot.branch(), () -> restore(snapshot));
+                    if (counts != null) {
+                        books += counts[0];
+                        loans += counts[1];
+                        replayed += counts[2];
+                        restored.add(snapshot.branch());
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("分馆 " + snapshot.branch() + " 快照恢复失败，该分馆冷启动", e);
+                }
+            }
+            report.put("state", "warm");
+            report.put("branches", restored);
+            report.put("books", books);
+            report.put("loans", loans);
+            report.put("replayedChanges", replayed);
+            log.info("启动快照已加载：分馆 {}，图书 {}，在借 {}，回放变更 {}", restored, books, loans, replayed);
+        } catch (IOException e) {
+            report.put("state", "cold");
+            log.warn("启动快照不可用，冷启动: " + file, e);
+        } finally {
+            report.put("elapsedMillis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            loadReport = Map.copyOf(report);
+            ready = true;
+        }
+    }
+
+    /**
+     * 在当前分馆下用快照预热缓存，并回放快照之后的变更。
+     *
+     * @return [预热图书数, 预热在借数, 回放变更数]；快照与数据库对不上时返回 null
+     */
+    int[] restore(BranchSnapshot snapshot) {
+        NearCache<Book> bookCache = invalidationBus.cache(shardRouter.cacheType(InvalidationBus.BOOK), Book::copy);
+        NearCache<List<BorrowRecord>> availabilityCache =
+                invalidationBus.cache(shardRouter.cacheType(InvalidationBus.BORROW_RECORD),
+                        NearCache.listCopier(BorrowRecord::copy));
+        // 先取版本再读数据库，回放期间收到失效事件的key不会被旧值覆盖
+        long version = bookCache.preloadVersion();
+        try {
+            if (snapshot.revision() > revisionCounter.current()) {
+                log.warn("分馆 {} 快照同步点 {} 晚于数据库，快照不属于当前数据库，已丢弃", snapshot.branch(), snapshot.revision());
+                return null;
+            }
+
+            Map<Long, Book> books = new HashMap<>();
+            snapshot.books().forEach(book -> books.put(book.getId(), book));
+            // 以借阅记录ID为key回放，一本书可以有多本副本在借
+            Map<Long, BorrowRecord> loans = new HashMap<>();
+            snapshot.loans().forEach(record -> loans.put(record.getId(), record));
+
+            int replayed = 0;
+            long since = snapshot.revision();
+            SyncPage page;
+            do {
+                page = syncService.changesSince(since, replayPageSize);
+                if (page.resetRequired()) {
+                    log.warn("分馆 {} 快照同步点 {} 早于墓碑压缩水位，已丢弃", snapshot.branch(), since);
+                    return null;
+                }
+                // 只更新快照中已有的热点图书，快照之后新增的图书不是热点，按需加载
+                for (Book book : page.books()) {
+                    books.computeIfPresent(book.getId(), (id, old) -> book);
+                }
+                page.borrowRecords().forEach(record -> loans.put(record.getId(), record));
+                for (SyncTombstone tombstone : page.tombstones()) {
+                    if (tombstone.getEntityType() == SyncTombstone.Type.BOOK) {
+                        books.remove(tombstone.getEntityId());
+                    } else {
+                        loans.remove(tombstone.getEntityId());
+                    }
+                }
+                replayed += page.books().size() + page.borrowRecords().size() + page.tombstones().size();
+                since = page.revision();
+            } while (page.hasMore());
+
+            Map<Long, List<BorrowRecord>> availability = new HashMap<>();
+            for (Long bookId : snapshot.checkedBooks()) {
+                availability.put(bookId, new ArrayList<>());
+            }
+            for (BorrowRecord record : loans.values()) {
+                availability.computeIfAbsent(record.getBookId(), bookId -> new ArrayList<>()).add(record);
+            }
+            bookCache.preload(books, version);
+            availabilityCache.preload(availability, version);
+            return new int[]{books.size(), loans.size(), replayed};
+        } finally {
+            // 预热版本在结束前一直登记为进行中，期间的失效标记不会被清理
+            bookCache.releasePreloadVersion(version);
+        }
+    }
+
+    /**
+     * 写入所有分馆的快照。
+     */
+    void write() throws IOException {
+        List<BranchSnapshot> snapshots = new ArrayList<>();
+        for (String branch : shardRouter.branches()) {
+            snapshots.add(BranchContext.call(branch, () -> capture(branch)));
+        }
+        SnapshotCodec.write(file, snapshots);
+    }
+
+    private void writeQuietly() {
+        try {
+            long started = System.nanoTime();
+            write();
+            log.debug("启动快照已写入 {}，耗时 {} ms", file, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (IOException | RuntimeException e) {
+            log.warn("启动快照写入失败: " + file, e);
+        }
+    }
+
+    /**
+     * 采集当前分馆的热点状态。缓存只提供热点key，内容在同一只读事务中从数据库读取，
+     * 同步点先于数据读取，保证回放从该点开始不会遗漏变更。
+     */
+    private BranchSnapshot capture(String branch) {
+        NearCache<Book> bookCache = invalidationBus.cache(shardRouter.cacheType(InvalidationBus.BOOK), Book::copy);
+        NearCache<List<BorrowRecord>> availabilityCache =
+                invalidationBus.cache(shardRouter.cacheType(InvalidationBus.BORROW_RECORD),
+                        NearCache.listCopier(BorrowRecord::copy));
+        List<Long> hotBooks = new ArrayList<>(bookCache.keys());
+        List<Long> checkedBooks = List.copyOf(availabilityCache.keys());
+        return readTemplate.execute(status -> {
+            long revision = revisionCounter.current();
+            List<Book> books = new ArrayList<>(hotBooks.size());
+            for (int from = 0; from < hotBooks.size(); from += ID_BATCH) {
+                books.addAll(bookRepository.findAllById(hotBooks.subList(from, Math.min(from + ID_BATCH, hotBooks.size()))));
+            }
+            List<BorrowRecord> loans = borrowRecordRepository.findAll();
+            return new BranchSnapshot(branch, revision, books, loans, checkedBooks);
+        });
+    }
+}
@@ -0,0 +1,201 @@
+package com.gcc.library1.Snapshot;
+
+import com.gcc.library1.Model.Book;
+import com.gcc.library1.Model.BorrowRecord;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * 快照文件的二进制格式。
+ * <pre>
+ * 文件头: magic(int) 格式版本(int) 写入时间(long) 分馆数(int)
+ * 每个分馆: 分馆名 同步点(long)
+ *          图书数(int)  [id version revision title author description category]...
+ *          在借数(int)  [id bookId copyId userId borrowDate returnDate renewCount(int) version revision]...
+ *          热点书籍数(int) [bookId]...
+ * 文件尾: CRC32(long)，覆盖之前的全部字节
+ * </pre>
+ * 字符串为 长度(int，-1 表示 null) + UTF-8 字节，日期为 epochDay；可空的日期和ID以 {@link Long#MIN_VALUE} 表示 null。
+ * 写入先落临时文件再原子替换，读取通过内存映射，不经过堆内缓冲。
+ */
+public final class SnapshotCodec {
+
+    static final int MAGIC = 0x4C534E50; // "LSNP"
+    static final int FORMAT_VERSION = 2;
+    private static final long NULL_VALUE = Long.MIN_VALUE;
+
+    private SnapshotCodec() {
+    }
+
+    /**
+     * 写入快照文件，先写临时文件再原子替换，读者不会看到写了一半的文件。
+     */
+    public static void write(Path file, List<BranchSnapshot> branches) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream raw = new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024)) {
+            CheckedOutputStream checked = new CheckedOutputStream(raw, new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(System.currentTimeMillis());
+            out.writeInt(branches.size());
+            for (BranchSnapshot branch : branches) {
+                writeString(out, branch.branch());
+                out.writeLong(branch.revision());
+                out.writeInt(branch.books().size());
+                for (Book book : branch.books()) {
+                    out.writeLong(book.getId());
+                    out.writeLong(book.getVersion());
+                    out.writeLong(book.getRevision());
+                    writeString(out, book.getTitle());
+                    writeString(out, book.getAuthor());
+                    writeString(out, book.getDescription());
+                    writeString(out, book.getCategory());
+                }
+                out.writeInt(branch.loans().size());
+                for (BorrowRecord record : branch.loans()) {
+                    out.writeLong(record.getId());
+                    out.writeLong(record.getBookId());
+                    out.writeLong(record.getCopyId() == null ? NULL_VALUE : record.getCopyId());
+                    out.writeLong(record.getUserId());
+                    writeDate(out, record.getBorrowDate());
+                    writeDate(out, record.getReturnDate());
+                    out.writeInt(record.getRenewCount());
+                    out.writeLong(record.getVersion());
+                    out.writeLong(record.getRevision());
+                }
+                out.writeInt(branch.checkedBooks().size());
+                for (Long bookId : branch.checkedBooks()) {
+                    out.writeLong(bookId);
+                }
+            }
+            out.flush();
+            long crc = checked.getChecksum().getValue();
+            new DataOutputStream(raw).writeLong(crc);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 通过内存映射读取快照文件。
+     *
+     * @throws IOException 文件损坏、格式版本不符或校验失败
+     */
+    public static List<BranchSnapshot> read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < Integer.BYTES * 3 + Long.BYTES * 2) {
+                throw new IOException("快照文件过短: " + size);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int bodyLength = (int) (size - Long.BYTES);
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, bodyLength));
+            if (crc.getValue() != buffer.getLong(bodyLength)) {
+                throw new IOException("快照文件校验失败");
+            }
+            ByteBuffer in = buffer.slice(0, bodyLength);
+            if (in.getInt() != MAGIC) {
+                throw new IOException("不是快照文件");
+            }
+            int version = in.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("快照格式版本不支持: " + version);
+            }
+            in.getLong(); // 写入时间
+            int branchCount = in.getInt();
+            List<BranchSnapshot> branches = new ArrayList<>(branchCount);
+            for (int i = 0; i < branchCount; i++) {
+                String branchName = readString(in);
+                long revision = in.getLong();
+                int bookCount = in.getInt();
+                List<Book> books = new ArrayList<>(bookCount);
+                for (int j = 0; j < bookCount; j++) {
+                    Book book = new Book();
+                    book.setId(in.getLong());
+                    book.setVersion(in.getLong());
+                    book.setRevision(in.getLong());
+                    book.setTitle(readString(in));
+                    book.setAuthor(readString(in));
+                    book.setDescription(readString(in));
+                    book.setCategory(readString(in));
+                    book.setBranch(branchName);
+                    books.add(book);
+                }
+                int loanCount = in.getInt();
+                List<BorrowRecord> loans = new ArrayList<>(loanCount);
+                for (int j = 0; j < loanCount; j++) {
+                    BorrowRecord record = new BorrowRecord();
+                    record.setId(in.getLong());
+                    record.setBookId(in.getLong());
+                    long copyId = in.getLong();
+                    record.setCopyId(copyId == NULL_VALUE ? null : copyId);
+                    record.setUserId(in.getLong());
+                    record.setBorrowDate(readDate(in));
+                    record.setReturnDate(readDate(in));
+                    record.setRenewCount(in.getInt());
+                    record.setVersion(in.getLong());
+                    record.setRevision(in.getLong());
+                    record.setBranch(branchName);
+                    loans.add(record);
+                }
+                int checkedCount = in.getInt();
+                List<Long> checkedBooks = new ArrayList<>(checkedCount);
+                for (int j = 0; j < checkedCount; j++) {
+                    checkedBooks.add(in.getLong());
+                }
+                branches.add(new BranchSnapshot(branchName, revision, books, loans, checkedBooks));
+            }
+            return branches;
+        } catch (RuntimeException e) {
+            // 越界等说明文件内容与格式不符
+            throw new IOException("快照文件格式错误", e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeDate(DataOutputStream out, LocalDate date) throws IOException {
+        out.writeLong(date == null ? NULL_VALUE : date.toEpochDay());
+    }
+
+    private static LocalDate readDate(ByteBuffer in) {
+        long epochDay = in.getLong();
+        return epochDay == NULL_VALUE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+}
@@ -0,0 +1,22 @@
+package com.gcc.library1.Snapshot;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * 启动快照的就绪状态，加入 readiness 健康组：快照加载并回放完成前报告 OUT_OF_SERVICE。
+ */
+@Component
+@RequiredArgsConstructor
+public class SnapshotHealthIndicator implements HealthIndicator {
+
+    private final CacheSnapshotService cacheSnapshotService;
+
+    @Override
+    public Health health() {
+        Health.Builder builder = cacheSnapshotService.isReady() ? Health.up() : Health.outOfService();
+        return builder.withDetails(cacheSnapshotService.getLoadReport()).build();
+    }
+}
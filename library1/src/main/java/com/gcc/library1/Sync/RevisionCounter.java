@@ -0,0 +1,246 @@
+package com.gcc.library1.Sync;
+
+import com.gcc.library1.Cache.InvalidationBus;
+import com.gcc.library1.Shard.BranchContext;
+import com.gcc.library1.Shard.ShardRouter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 同步修订号计数器，每个数据源一行（sync_counter），随当前分馆路由。
+ * <p>
+ * 节点每次从计数行取一段修订号（library.sync.revision-block-size 个）在内存中分配，计数行只在取号段的短事务里加锁，
+ * 写事务之间不再排队。修订号因此不再按提交顺序递增，读者改为读到稳定点 {@link #current()} 为止：
+ * 稳定点及以下的修订号所属事务都已结束。每个节点在 sync_node 中登记自己仍可能提交的最小修订号，
+ * 取号段时与推进计数行同一事务写入，之后由心跳线程上调；节点空闲时放弃剩余号段并清空登记。
+ * 本节点的分配状态直接读内存，其他节点的写入要等它的登记上调后才可见，最多延迟到它用完号段或下一次心跳。
+ * 心跳超过 library.sync.node-timeout-seconds 的节点视为已下线（未提交的事务已随连接回滚），不再参与计算。
+ */
+@Slf4j
+@Component
+public class RevisionCounter {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate revisionJdbcTemplate;
+    private final TransactionTemplate blockTemplate;
+    private final ShardRouter shardRouter;
+    private final String nodeId;
+    private final long blockSize;
+    private final long nodeTimeoutSeconds;
+    private final Map<String, Range> ranges = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService heartbeat;
+
+    public RevisionCounter(JdbcTemplate jdbcTemplate,
+                           @Qualifier("revisionDataSource") DataSource revisionDataSource,
+                           ShardRouter shardRouter,
+                           InvalidationBus invalidationBus,
+                           @Value("${library.sync.revision-block-size:100}") long blockSize,
+                           @Value("${library.sync.node-heartbeat-millis:1000}") long heartbeatMillis,
+                           @Value("${library.sync.node-timeout-seconds:30}") long nodeTimeoutSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        // 取号段和登记走专用连接池上的独立事务：不随写事务回滚（否则号段会被其他节点重复取到），也不占业务连接
+        this.revisionJdbcTemplate = new JdbcTemplate(revisionDataSource);
+        this.blockTemplate = new TransactionTemplate(new DataSourceTransactionManager(revisionDataSource));
+        this.shardRouter = shardRouter;
+        this.nodeId = invalidationBus.getNodeId();
+        this.blockSize = blockSize;
+        this.nodeTimeoutSeconds = nodeTimeoutSeconds;
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "revision-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleWithFixedDelay(this::publishAll, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 分配下一个修订号。必须在写事务中调用，事务结束（提交或回滚）后该修订号不再阻挡稳定点。
+     */
+    public long next() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("修订号必须在写事务中分配");
+        }
+        Range range = range();
+        long revision;
+        synchronized (range) {
+            if (range.next > range.end) {
+                allocateBlock(range);
+            }
+            revision = range.next++;
+            range.inFlight.add(revision);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                release(range, revision);
+            }
+        });
+        return revision;
+    }
+
+    /**
+     * 稳定点：该修订号及以下的变更都已提交（或已回滚），不加锁。在只读事务中先于数据查询读取，可作为这批数据的同步点：
+     * 之后才可见的变更修订号一定更大，从该点增量回放不会遗漏。
+     */
+    public long current() {
+        Range range = range();
+        while (true) {
+            long blocks;
+            long ownLow;
+            synchronized (range) {
+                blocks = range.blocks;
+                ownLow = range.low();
+            }
+            Long shared = jdbcTemplate.queryForObject(
+                    "select least(revision, coalesce((select min(low_revision) from sync_node where node_id <> ? "
+                            + "and low_revision is not null and heartbeat_at > timestampadd(second, ?, current_timestamp(6))), "
+                            + "revision + 1) - 1) from sync_counter where id = 1",
+                    Long.class, nodeId, -nodeTimeoutSeconds);
+            // 读取期间本节点取了新号段：计数行可能已包含尚未提交的修订号，重读
+            synchronized (range) {
+                if (range.blocks == blocks) {
+                    return Math.min(shared, ownLow == Long.MAX_VALUE ? Long.MAX_VALUE : ownLow - 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * 已压缩的最大修订号，同步点早于它的客户端必须全量重建。
+     */
+    public long compactedRevision() {
+        return jdbcTemplate.queryForObject("select compacted_revision from sync_counter where id = 1", Long.class);
+    }
+
+    private Range range() {
+        return ranges.computeIfAbsent(shardRouter.currentDataSource(), dataSource -> new Range(shardRouter.currentBranch()));
+    }
+
+    // 持有 range 锁调用：推进计数行并登记号段起点，两者同一事务提交
+    private void allocateBlock(Range range) {
+        range.blocks++;
+        long version = ++range.version;
+        long start = blockTemplate.execute(status -> {
+            Long current = revisionJdbcTemplate.queryForObject(
+                    "select revision from sync_counter where id = 1 for update", Long.class);
+            revisionJdbcTemplate.update("update sync_counter set revision = ? where id = 1", current + blockSize);
+            // 持有锁时本进程的版本最大，更新不到说明还没登记，或是同一节点ID上次异常退出留下的旧登记
+            if (!updateNode(current + 1, version)) {
+                revisionJdbcTemplate.update("delete from sync_node where node_id = ?", nodeId);
+                revisionJdbcTemplate.update("insert into sync_node (node_id, low_revision, version, heartbeat_at) "
+                        + "values (?, ?, ?, current_timestamp(6))", nodeId, current + 1, version);
+            }
+            return current + 1;
+        });
+        range.next = start;
+        range.end = start + blockSize - 1;
+    }
+
+    private void release(Range range, long revision) {
+        boolean idle;
+        synchronized (range) {
+            range.inFlight.remove(revision);
+            idle = range.inFlight.isEmpty();
+        }
+        // 空闲后尽快放弃号段并清空登记，其他节点的写入才能越过本节点的号段
+        if (idle && range.publishPending.compareAndSet(false, true)) {
+            try {
+                heartbeat.execute(() -> publish(range));
+            } catch (RuntimeException e) {
+                range.publishPending.set(false);
+            }
+        }
+    }
+
+    private void publishAll() {
+        ranges.values().forEach(this::publish);
+    }
+
+    private void publish(Range range) {
+        range.publishPending.set(false);
+        Long low;
+        long version;
+        synchronized (range) {
+            if (range.inFlight.isEmpty()) {
+                range.next = 1;
+                range.end = 0;
+                low = null;
+            } else {
+                low = range.inFlight.first();
+            }
+            version = ++range.version;
+        }
+        try {
+            BranchContext.call(range.branch, () -> {
+                if (!updateNode(low, version)) {
+                    revisionJdbcTemplate.update("update sync_node set heartbeat_at = current_timestamp(6) where node_id = ?", nodeId);
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.warn("分馆 " + range.branch + " 所在数据源更新修订号登记失败", e);
+        }
+    }
+
+    // 只写入比已登记版本更新的值，先算出的旧值晚到时不会覆盖
+    private boolean updateNode(Long low, long version) {
+        return revisionJdbcTemplate.update("update sync_node set low_revision = ?, version = ?, heartbeat_at = current_timestamp(6) "
+                + "where node_id = ? and version < ?", low, version, nodeId, version) > 0;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        heartbeat.shutdownNow();
+        ranges.values().forEach(range -> {
+            try {
+                BranchContext.call(range.branch,
+                        () -> revisionJdbcTemplate.update("delete from sync_node where node_id = ?", nodeId));
+            } catch (RuntimeException e) {
+                log.warn("分馆 " + range.branch + " 所在数据源注销修订号登记失败", e);
+            }
+        });
+    }
+
+    /**
+     * 一个数据源上本节点的号段和进行中的修订号，字段都在 synchronized (range) 内读写。
+     */
+    private static final class Range {
+        // 代表分馆，心跳线程按它路由到数据源
+        final String branch;
+        final TreeSet<Long> inFlight = new TreeSet<>();
+        final AtomicBoolean publishPending = new AtomicBoolean();
+        long next = 1;
+        long end = 0;
+        long blocks;
+        long version;
+
+        Range(String branch) {
+            this.branch = branch;
+        }
+
+        // 本节点仍可能提交的最小修订号，没有号段时不限制
+        long low() {
+            if (!inFlight.isEmpty()) {
+                return inFlight.first();
+            }
+            return next <= end ? next : Long.MAX_VALUE;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.gcc.library1.Sync;
+
+import com.gcc.library1.Model.Book;
+import com.gcc.library1.Model.BorrowRecord;
+import com.gcc.library1.Model.SyncTombstone;
+
+import java.util.List;
+
+/**
+ * 一页增量变更。
+ *
+ * @param revision      本页包含的最大修订号，作为下一次请求的 since
+ * @param hasMore       是否还有更多变更，为 true 时客户端应立即继续拉取
+ * @param resetRequired 同步点早于已压缩的墓碑，客户端需清空本地副本并从 since=0 重新同步
+ * @param books         新增或修改的图书（当前状态）
+ * @param borrowRecords 新增或修改的借阅记录（当前状态）
+ * @param tombstones    已删除的图书和借阅记录
+ */
+public record SyncPage(long revision, boolean hasMore, boolean resetRequired,
+                       List<Book> books, List<BorrowRecord> borrowRecords, List<SyncTombstone> tombstones) {
+
+    public static SyncPage reset(long since) {
+        return new SyncPage(since, false, true, List.of(), List.of(), List.of());
+    }
+}
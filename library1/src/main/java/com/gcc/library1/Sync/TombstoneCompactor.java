@@ -0,0 +1,102 @@
+package com.gcc.library1.Sync;
+
+import com.gcc.library1.Shard.BranchContext;
+import com.gcc.library1.Shard.ShardRouter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 墓碑压缩：定期删除超过保留期的墓碑，并把压缩水位（compacted_revision）推进到被删除的最大修订号。
+ * 删除与推进水位在同一事务中完成，同步接口读到水位后即可判断客户端是否错过了被删除的墓碑。
+ * 每个数据源单独压缩。
+ */
+@Slf4j
+@Component
+public class TombstoneCompactor {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouter shardRouter;
+    private final Duration retention;
+    private final long intervalMinutes;
+    private ScheduledExecutorService scheduler;
+
+    public TombstoneCompactor(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              ShardRouter shardRouter,
+                              @Value("${library.sync.tombstone-retention-hours:168}") long retentionHours,
+                              @Value("${library.sync.compact-interval-minutes:60}") long intervalMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shardRouter = shardRouter;
+        this.retention = Duration.ofHours(retentionHours);
+        this.intervalMinutes = intervalMinutes;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void start() {
+        if (intervalMinutes <= 0) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tombstone-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::compactAll, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    void compactAll() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        for (String branch : shardRouter.oneBranchPerDataSource()) {
+            try {
+                int removed = BranchContext.call(branch, () -> compact(cutoff));
+                if (removed > 0) {
+                    log.info("分馆 {} 所在数据源压缩墓碑 {} 条", branch, removed);
+                }
+            } catch (RuntimeException e) {
+                log.warn("分馆 " + branch + " 所在数据源压缩墓碑失败", e);
+            }
+        }
+    }
+
+    /**
+     * 压缩当前分馆所在数据源中早于 cutoff 的墓碑。
+     *
+     * @return 删除的墓碑数
+     */
+    public int compact(LocalDateTime cutoff) {
+        return transactionTemplate.execute(status -> {
+            Long horizon = jdbcTemplate.queryForObject(
+                    "select max(revision) from sync_tombstone where deleted_at < ?", Long.class, Timestamp.valueOf(cutoff));
+            if (horizon == null) {
+                return 0;
+            }
+            int removed = jdbcTemplate.update("delete from sync_tombstone where revision <= ?", horizon);
+            jdbcTemplate.update("update sync_counter set compacted_revision = greatest(compacted_revision, ?) where id = 1",
+                    horizon);
+            return removed;
+        });
+    }
+}
@@ -0,0 +1,78 @@
+package com.gcc.library1.Util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * 乐观锁冲突重试执行器。
+ * 每次尝试都在独立事务中执行“读取-修改-写入”，版本冲突时回滚并按指数退避加随机抖动重试，
+ * 超过最大次数后抛出 {@link OptimisticLockingFailureException}，由控制器映射为 409。
+ */
+@Slf4j
+@Component
+public class OptimisticRetryExecutor {
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long backoffMillis;
+
+    public OptimisticRetryExecutor(PlatformTransactionManager transactionManager,
+                                   @Value("${library.retry.max-attempts:5}") int maxAttempts,
+                                   @Value("${library.retry.backoff-millis:10}") long backoffMillis) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = backoffMillis;
+    }
+
+    /**
+     * 执行一次带重试的写操作。
+     *
+     * @param action 读取-修改-写入逻辑，每次重试都会重新执行（必须重新读取实体）
+     * @return action 的返回值
+     */
+    public <T> T execute(Supplier<T> action) {
+        return execute(action, true);
+    }
+
+    /**
+     * 执行一次写操作，可选择是否在冲突时重试。
+     * 调用方已携带客户端版本号时冲突代表客户端数据过期，重试没有意义，应传入 retry=false。
+     */
+    public <T> T execute(Supplier<T> action, boolean retry) {
+        int limit = retry ? maxAttempts : 1;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= limit) {
+                    if (retry) {
+                        log.warn("乐观锁冲突，已重试{}次仍失败", attempt);
+                    }
+                    throw e;
+                }
+                sleep(attempt);
+            }
+        }
+    }
+
+    private void sleep(int attempt) {
+        long ceiling = backoffMillis << Math.min(attempt - 1, 6);
+        long delay = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        if (delay == 0) {
+            return;
+        }
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("重试等待被中断", e);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.gcc.library1.Util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 哈希时间轮，用于大量低精度定时任务（如预约过期）。
+ * 每个 tick 只扫描一个槽位，添加和取消都是 O(1)，与待执行任务数量无关。
+ * 提交的任务先进入待分配队列，由 ticker 线程在每个 tick 开始时按截止时间放入槽位，
+ * 槽位和轮次只由 ticker 线程读写，不会落到刚处理过的槽位而晚一整圈执行。
+ */
+@Slf4j
+public class TimerWheel implements AutoCloseable {
+
+    /**
+     * 已提交的定时任务，可取消。
+     */
+    public static final class Timeout {
+        private final Runnable task;
+        // 相对时间轮启动的截止时间（纳秒）
+        private final long deadline;
+        private long remainingRounds;
+        private volatile boolean cancelled;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    private final long tickNanos;
+    private final Queue<Timeout>[] slots;
+    // 已提交、尚未放入槽位的任务
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService ticker;
+    private final long startTime = System.nanoTime();
+    // 下一个待处理的 tick，只由 ticker 线程读写
+    private long tick;
+
+    @SuppressWarnings("unchecked")
+    public TimerWheel(String name, long tickMillis, int slotCount) {
+        if (tickMillis <= 0 || slotCount <= 0) {
+            throw new IllegalArgumentException("tickMillis和slotCount必须大于0");
+        }
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.slots = new Queue[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 提交一个延迟任务。
+     *
+     * @param delayMillis 延迟毫秒数，小于等于0时在下一个 tick 执行
+     * @param task        任务
+     * @return 可用于取消的句柄
+     */
+    public Timeout schedule(long delayMillis, Runnable task) {
+        long delay = TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis));
+        Timeout timeout = new Timeout(task, System.nanoTime() - startTime + delay);
+        pending.add(timeout);
+        return timeout;
+    }
+
+    private void advance() {
+        transferPending();
+        Queue<Timeout> slot = slots[(int) (tick % slots.length)];
+        tick++;
+        Iterator<Timeout> iterator = slot.iterator();
+        while (iterator.hasNext()) {
+            Timeout timeout = iterator.next();
+            if (timeout.cancelled) {
+                iterator.remove();
+            } else if (timeout.remainingRounds > 0) {
+                timeout.remainingRounds--;
+            } else {
+                iterator.remove();
+                try {
+                    timeout.task.run();
+                } catch (Exception e) {
+                    log.error("定时任务执行失败", e);
+                }
+            }
+        }
+    }
+
+    // 第 n 个 tick 在启动后 (n+1) 个 tick 时长处处理，任务放入第一个不早于截止时间处理的 tick；已过期的放入当前 tick
+    private void transferPending() {
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            if (timeout.cancelled) {
+                continue;
+            }
+            long due = Math.max(tick, (timeout.deadline + tickNanos - 1) / tickNanos - 1);
+            timeout.remainingRounds = (due - tick) / slots.length;
+            slots[(int) (due % slots.length)].add(timeout);
+        }
+    }
+
+    @Override
+    public void close() {
+        ticker.shutdownNow();
+    }
+}
@@ -0,0 +1,15 @@
+-- 跨节点缓存失效：JdbcInvalidationTransport 把失效事件写入默认数据源的 cache_invalidation，
+-- 各节点按 id 增量轮询并驱逐本地近端缓存。sender 为写入进程的实例标识，本进程的事件已同步投递，轮询时跳过。
+-- 超过保留时长的事件由各节点定期删除（按 created_at）。
+
+create table cache_invalidation (
+    id          bigint      not null auto_increment primary key,
+    entity_type varchar(64) not null,
+    entity_id   bigint      not null,
+    version     bigint      not null,
+    origin_node varchar(64) not null,
+    sender      varchar(36) not null,
+    created_at  datetime(6) not null
+);
+
+create index idx_cache_invalidation_created_at on cache_invalidation (created_at);
@@ -0,0 +1,19 @@
+-- 有效预约唯一：同一读者对同一本书最多一条 WAITING/READY 预约，多个节点并发预约时由数据库拦截重复。
+-- active_user_id 只在有效状态下等于 user_id，其余状态为 NULL；唯一索引允许多个 NULL，已结清的历史预约不受限制。
+-- 该列由数据库计算，实体不映射。
+--
+-- ReservationRepository.findByBookIdAndStatusInOrderByIdAsc -> uk_reservation_book_active（最左前缀）
+
+-- 之前各节点只在内存中查重，旧库中可能已有重复的有效预约：保留最早的一条，其余取消
+update reservation set status = 'CANCELLED'
+where status in ('WAITING', 'READY')
+  and exists (select 1
+              from (select distinct id, book_id, user_id from reservation where status in ('WAITING', 'READY')) earlier
+              where earlier.book_id = reservation.book_id
+                and earlier.user_id = reservation.user_id
+                and earlier.id < reservation.id);
+
+alter table reservation add column active_user_id bigint
+    generated always as (case when status in ('WAITING', 'READY') then user_id end);
+
+create unique index uk_reservation_book_active on reservation (book_id, active_user_id);
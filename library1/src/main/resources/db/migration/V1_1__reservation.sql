@@ -0,0 +1,15 @@
+-- 图书预约：每本书按预约ID先后组成 FIFO 队列，状态以字符串保存。
+
+create table if not exists reservation (
+    id         bigint      not null auto_increment,
+    book_id    bigint,
+    user_id    bigint,
+    status     varchar(16) not null,
+    created_at datetime(6),
+    expire_at  datetime(6),
+    primary key (id)
+);
+
+-- 预约功能先于迁移系列上线，当时由 ddl-auto=update 建出的预约表在这些旧库中已存在，上面的建表被跳过；
+-- Hibernate 在 MySQL 上为 EnumType.STRING 生成的是 enum 列，这里统一为 varchar(16)。新建的库上不改变任何东西。
+alter table reservation modify column status varchar(16) not null;
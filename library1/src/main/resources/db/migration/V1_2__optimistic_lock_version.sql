@@ -0,0 +1,5 @@
+-- 乐观锁：并发修改的实体增加版本号，已有数据从 0 开始。
+
+alter table books add column version bigint default 0 not null;
+alter table users add column version bigint default 0 not null;
+alter table borrow_record add column version bigint default 0 not null;
@@ -0,0 +1,6 @@
+-- 借阅策略：按用户类型和图书分类匹配借阅规则，借阅记录累计续借次数。
+-- 已有用户和图书的类型、分类为 null，匹配默认规则。
+
+alter table books add column category varchar(255);
+alter table users add column user_type varchar(255);
+alter table borrow_record add column renew_count integer default 0 not null;
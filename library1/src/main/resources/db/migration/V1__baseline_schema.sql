@@ -0,0 +1,39 @@
+-- 基线表结构，与迁移系列之前（ddl-auto=update）的实体生成的结构一致：
+-- 只有 books、users、borrow_record、borrow_history 四张表，不含之后加入的列和预约表。
+-- 已有数据库通过 spring.flyway.baseline-on-migrate 直接标记为 V1，不会重复执行本脚本，
+-- 之后的列和表由 V1_1 起的迁移补齐，新库与旧库升级后的结构一致。
+
+create table if not exists books (
+    id          bigint       not null auto_increment,
+    title       varchar(255),
+    author      varchar(255),
+    description varchar(2000),
+    primary key (id)
+);
+
+create table if not exists users (
+    id          bigint       not null auto_increment,
+    name        varchar(255) not null,
+    password    varchar(255) not null,
+    borrow_book varchar(255),
+    primary key (id),
+    constraint uk_users_name unique (name)
+);
+
+create table if not exists borrow_record (
+    id          bigint not null auto_increment,
+    book_id     bigint,
+    user_id     bigint,
+    borrow_date date,
+    return_date date,
+    primary key (id)
+);
+
+create table if not exists borrow_history (
+    id       bigint       not null auto_increment,
+    user_id  bigint,
+    book_id  bigint,
+    date     date,
+    behavour varchar(255) not null,
+    primary key (id)
+);
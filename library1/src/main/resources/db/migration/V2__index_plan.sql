@@ -0,0 +1,29 @@
+-- 索引规划：每个索引对应仓库接口中的派生查询方法。
+--
+-- BookRepository
+--   findByTitle / findByTitleLike('前缀%')         -> idx_books_title
+--   （findByTitleLike('%关键字%') 为中缀匹配，B树索引无法使用）
+-- BorrowRecordRepository
+--   findByBookId                                    -> idx_borrow_record_book
+--   findByUserId                                    -> idx_borrow_record_user_return（最左前缀）
+--   findByUserIdAndReturnDateIsNull                 -> idx_borrow_record_user_return
+--   findByUserIdAndReturnDateBeforeAndReturnDateIsNotNull -> idx_borrow_record_user_return
+-- BorrowHistoryRepository
+--   findByUserId                                    -> idx_borrow_history_user
+--   findByBookId                                    -> idx_borrow_history_book
+-- UserRepository
+--   findByName / findByNameAndPassword / existsByName -> uk_users_name（已存在）
+-- ReservationRepository
+--   findByUserId                                    -> idx_reservation_user
+--   findByStatusInOrderByIdAsc                      -> idx_reservation_status
+
+create index idx_books_title on books (title);
+
+create index idx_borrow_record_book on borrow_record (book_id);
+create index idx_borrow_record_user_return on borrow_record (user_id, return_date);
+
+create index idx_borrow_history_user on borrow_history (user_id);
+create index idx_borrow_history_book on borrow_history (book_id);
+
+create index idx_reservation_user on reservation (user_id);
+create index idx_reservation_status on reservation (status);
@@ -0,0 +1,10 @@
+-- 一本书同一时间只能有一条借阅记录（还书即删除记录）。
+-- 借书接口“先查是否已借、再插入”在并发下会产生重复借出，由唯一索引兜底，
+-- 冲突的插入在接口层返回 409。
+-- 若旧库中已存在重复记录，需先人工清理后再执行本迁移：
+--   select book_id, count(*) from borrow_record group by book_id having count(*) > 1;
+--
+-- BorrowRecordRepository.findByBookId -> uk_borrow_record_book（替代 idx_borrow_record_book）
+
+create unique index uk_borrow_record_book on borrow_record (book_id);
+drop index idx_borrow_record_book on borrow_record;
@@ -0,0 +1,9 @@
+-- 分馆维度：分馆数据的表增加 branch 列，由 Hibernate @TenantId 在插入时填充、查询时过滤。
+-- 已有数据归入默认分馆 main（与 library.shard.default-branch 的默认值一致）。
+-- 用户表不分馆；预约跟随所预约的书归属分馆。
+-- 本迁移在每个分片数据源上都会执行，独立数据源中的表只保存路由到它的分馆数据。
+
+alter table books add column branch varchar(32) not null default 'main';
+alter table borrow_record add column branch varchar(32) not null default 'main';
+alter table borrow_history add column branch varchar(32) not null default 'main';
+alter table reservation add column branch varchar(32) not null default 'main';
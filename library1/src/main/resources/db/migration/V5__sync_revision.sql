@@ -0,0 +1,36 @@
+-- 增量同步：books、borrow_record 记录最后一次变更的修订号，删除写入 sync_tombstone。
+-- 修订号由 sync_counter 在写事务内分配（行锁持有到提交），同一数据源内唯一且与提交顺序一致。
+--
+-- BookRepository.findByRevisionGreaterThanOrderByRevisionAsc          -> idx_books_branch_revision
+-- BorrowRecordRepository.findByRevisionGreaterThanOrderByRevisionAsc  -> idx_borrow_record_branch_revision
+-- SyncTombstoneRepository.findByRevisionGreaterThanOrderByRevisionAsc -> idx_sync_tombstone_branch_revision
+-- （查询由 @TenantId 自动追加 branch 条件，索引以 branch 开头）
+
+alter table books add column revision bigint not null default 0;
+alter table borrow_record add column revision bigint not null default 0;
+
+-- 已有数据分配互不重复的修订号，客户端首次全量同步即可取到
+update books set revision = id;
+update borrow_record set revision = id + (select coalesce(max(id), 0) from books);
+
+create index idx_books_branch_revision on books (branch, revision);
+create index idx_borrow_record_branch_revision on borrow_record (branch, revision);
+
+create table sync_counter (
+    id                 int    not null primary key,
+    revision           bigint not null,
+    -- 已压缩（删除）的墓碑中最大的修订号，早于它的同步点无法再增量同步
+    compacted_revision bigint not null
+);
+insert into sync_counter (id, revision, compacted_revision)
+values (1, greatest((select coalesce(max(revision), 0) from books),
+                    (select coalesce(max(revision), 0) from borrow_record)), 0);
+
+create table sync_tombstone (
+    revision    bigint      not null primary key,
+    entity_type varchar(16) not null,
+    entity_id   bigint      not null,
+    deleted_at  datetime(6) not null,
+    branch      varchar(32) not null
+);
+create index idx_sync_tombstone_branch_revision on sync_tombstone (branch, revision);
@@ -0,0 +1,6 @@
+-- 名单同步：roster_hash 为最近一次导入名单时该行内容的哈希，用于判断名单行是否变化；
+-- 手动注册的用户为 null，不受名单停用影响。active=false 表示已不在名单中，停用而不删除。
+-- 同步时一次性读取全部用户的 (id, name, roster_hash, active) 做比对，不需要额外索引。
+
+alter table users add column roster_hash varchar(64);
+alter table users add column active boolean default true not null;
@@ -0,0 +1,40 @@
+-- 馆藏副本：一本书（books 一行）可以有多本实体副本（book_copy），借阅记录指向具体副本。
+-- books.total_copies / available_copies 是按书计数的副本数和可借数，只通过条件更新原子增减，不先读后写：
+--   借: update books set available_copies = available_copies - 1 where id = ? and available_copies > 0
+--   还: update books set available_copies = available_copies + 1 where id = ? and available_copies < total_copies
+-- 在借唯一约束由“每本书一条”改为“每个副本一条”；另加 (book_id, user_id) 唯一，
+-- 同一读者不能同时借同一本书的两个副本，续借和还书按书和读者即可定位记录。
+--
+-- BookCopyRepository.findFirstByBookIdAndOnLoanFalse -> idx_book_copy_book_on_loan
+-- BookCopyRepository.findByBookIdOrderByIdAsc        -> idx_book_copy_book_on_loan
+-- BorrowRecordRepository.findByBookId               -> uk_borrow_record_book_user
+-- BorrowRecordRepository.findByBookIdAndUserId      -> uk_borrow_record_book_user
+
+alter table books add column total_copies int not null default 1;
+alter table books add column available_copies int not null default 1;
+
+create table book_copy (
+    id      bigint      not null auto_increment,
+    book_id bigint      not null,
+    barcode varchar(64),
+    on_loan boolean     default false not null,
+    version bigint      default 0 not null,
+    branch  varchar(32) default 'main' not null,
+    primary key (id)
+);
+
+create index idx_book_copy_book_on_loan on book_copy (book_id, on_loan);
+
+-- 已有的书各建一个副本，在借的书副本标记为借出
+insert into book_copy (book_id, barcode, on_loan, branch)
+select b.id, concat(b.id, '-1'), exists (select 1 from borrow_record r where r.book_id = b.id), b.branch
+from books b;
+
+update books set available_copies = 0 where exists (select 1 from borrow_record r where r.book_id = books.id);
+
+alter table borrow_record add column copy_id bigint;
+update borrow_record set copy_id = (select c.id from book_copy c where c.book_id = borrow_record.book_id);
+
+create unique index uk_borrow_record_copy on borrow_record (copy_id);
+create unique index uk_borrow_record_book_user on borrow_record (book_id, user_id);
+drop index uk_borrow_record_book on borrow_record;
@@ -0,0 +1,26 @@
+-- 已归还借阅：还书时在同一事务内把 borrow_record 的一行搬到 closed_loan 再删除，borrow_record 只保留在借记录。
+-- closed_loan 只追加不修改。借阅天数和逾期天数在归还时算好写入，统计只做 count/sum，不回查在借表，也不解析借阅历史的文本。
+-- loan_id 为原 borrow_record.id，唯一约束保证同一次借阅只归档一次。
+--
+-- ClosedLoanRepository.findByUserIdOrderByReturnedDateDesc -> idx_closed_loan_user_returned
+-- ClosedLoanRepository.totalsByBookId                      -> idx_closed_loan_book
+
+create table closed_loan (
+    id            bigint      not null auto_increment,
+    loan_id       bigint      not null,
+    book_id       bigint      not null,
+    copy_id       bigint,
+    user_id       bigint      not null,
+    borrow_date   date,
+    due_date      date,
+    returned_date date        not null,
+    renew_count   int         default 0 not null,
+    loan_days     int         default 0 not null,
+    late_days     int         default 0 not null,
+    branch        varchar(32) default 'main' not null,
+    primary key (id)
+);
+
+create unique index uk_closed_loan_loan on closed_loan (loan_id);
+create index idx_closed_loan_user_returned on closed_loan (user_id, returned_date);
+create index idx_closed_loan_book on closed_loan (book_id);
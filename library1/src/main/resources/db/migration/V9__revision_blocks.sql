@@ -0,0 +1,12 @@
+-- 修订号按号段分配：节点每次从 sync_counter 取一段修订号在内存中分配，计数行只在取号段的短事务里加锁。
+-- 修订号不再与提交顺序一致，读者只读到稳定点为止（见 RevisionCounter.current）：
+--   稳定点 = min(sync_counter.revision, 各在线节点 low_revision 的最小值 - 1)
+-- low_revision 是该节点仍可能提交的最小修订号，节点空闲时为 null；取号段时与推进计数行在同一事务中写入，
+-- 之后由节点心跳上调。version 防止先算出的旧值覆盖后写入的新值；heartbeat_at 超时的节点不参与计算。
+
+create table sync_node (
+    node_id      varchar(64) not null primary key,
+    low_revision bigint,
+    version      bigint      not null,
+    heartbeat_at datetime(6) not null
+);
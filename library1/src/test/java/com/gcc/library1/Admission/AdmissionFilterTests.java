@@ -0,0 +1,30 @@
+package com.gcc.library1.Admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AdmissionFilterTests {
+
+    @Test
+    void forwardedHeaderDoesNotBypassRateLimit() throws Exception {
+        AdmissionProperties properties = new AdmissionProperties();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AdmissionFilter filter = new AdmissionFilter(properties, new PoolPressureMonitor(registry, properties), registry);
+
+        int capacity = properties.getLogin().getCapacity();
+        for (int i = 0; i <= capacity; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/users/login");
+            request.setRemoteAddr("203.0.113.7");
+            // 每次伪造不同的转发地址，限流仍按连接地址计
+            request.addHeader("X-Forwarded-For", "198.51.100." + i);
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(request, response, new MockFilterChain());
+            assertEquals(i < capacity ? 200 : 429, response.getStatus());
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.gcc.library1.Admission;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StripedTokenBucketTests {
+
+    @Test
+    void allowsBurstThenLimits() {
+        StripedTokenBucket bucket = new StripedTokenBucket(1024, 3, 0.5);
+
+        assertEquals(0, bucket.tryAcquire("10.0.0.1"));
+        assertEquals(0, bucket.tryAcquire("10.0.0.1"));
+        assertEquals(0, bucket.tryAcquire("10.0.0.1"));
+        long retryAfter = bucket.tryAcquire("10.0.0.1");
+        // 每秒补充0.5个令牌，约2秒后才能再取到
+        assertTrue(retryAfter > 1000 && retryAfter <= 2000, "retryAfter=" + retryAfter);
+    }
+
+    @Test
+    void clientsHaveSeparateBuckets() {
+        StripedTokenBucket bucket = new StripedTokenBucket(1024, 1, 0.1);
+
+        assertEquals(0, bucket.tryAcquire("10.0.0.1"));
+        assertTrue(bucket.tryAcquire("10.0.0.1") > 0);
+        assertEquals(0, bucket.tryAcquire("10.0.0.2"));
+    }
+}
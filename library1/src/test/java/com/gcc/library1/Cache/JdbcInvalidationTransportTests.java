@@ -0,0 +1,69 @@
+package com.gcc.library1.Cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 跨节点失效：另一个节点（独立的传输和总线）通过轮询收到本节点的事件，晚提交的较小 id 也不会漏掉。
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+class JdbcInvalidationTransportTests {
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @Autowired
+    @Qualifier("invalidationDataSource")
+    private DataSource dataSource;
+
+    @Test
+    void otherNodeEvictsPublishedChanges() throws InterruptedException {
+        JdbcInvalidationTransport otherTransport = new JdbcInvalidationTransport(dataSource, 20, 60);
+        InvalidationBus other = new InvalidationBus(otherTransport, "other-node");
+        NearCache<String> cache = other.cache(InvalidationBus.USER + "@jdbc-test");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        long base = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from cache_invalidation", Long.class);
+        try {
+            cache.get(5L, id -> "stale");
+            invalidationBus.publish(InvalidationBus.USER + "@jdbc-test", 5L);
+            awaitTrue(() -> cache.keys().isEmpty());
+            assertEquals("fresh", cache.get(5L, id -> "fresh"));
+
+            // 模拟并发写入：较大的 id 先提交，较小的 id 稍后提交
+            cache.get(6L, id -> "stale");
+            cache.get(7L, id -> "stale");
+            insert(jdbcTemplate, base + 102, 6L);
+            awaitTrue(() -> !cache.keys().contains(6L));
+            assertTrue(cache.keys().contains(7L));
+            insert(jdbcTemplate, base + 101, 7L);
+            awaitTrue(() -> !cache.keys().contains(7L));
+        } finally {
+            otherTransport.shutdown();
+            jdbcTemplate.update("delete from cache_invalidation where id > ?", base + 100);
+        }
+    }
+
+    private static void insert(JdbcTemplate jdbcTemplate, long id, long entityId) {
+        jdbcTemplate.update("insert into cache_invalidation (id, entity_type, entity_id, version, origin_node, sender, created_at) "
+                + "values (?, ?, ?, 0, 'third-node', 'third-node', current_timestamp(6))", id, InvalidationBus.USER + "@jdbc-test", entityId);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "等待跨节点失效超时");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.gcc.library1.Cache;
+
+import com.gcc.library1.Model.Book;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NearCacheTests {
+
+    private final InvalidationBus bus = new InvalidationBus(new LocalInvalidationTransport(), "test-node");
+
+    @Test
+    void evictsOnPublishedChange() {
+        NearCache<String> cache = bus.cache(InvalidationBus.BOOK);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("v1", cache.get(1L, id -> "v" + loads.incrementAndGet()));
+        assertEquals("v1", cache.get(1L, id -> "v" + loads.incrementAndGet()));
+
+        bus.publish(InvalidationBus.BOOK, 1L);
+        assertEquals("v2", cache.get(1L, id -> "v" + loads.incrementAndGet()));
+    }
+
+    @Test
+    void rejectsFillThatRacedWithInvalidation() {
+        NearCache<String> cache = bus.cache(InvalidationBus.USER);
+
+        // 加载过程中另一个节点修改了该实体，旧值不能被回填
+        String loaded = cache.get(7L, id -> {
+            bus.publish(InvalidationBus.USER, 7L);
+            return "stale";
+        });
+
+        assertEquals("stale", loaded);
+        assertEquals(0, cache.size());
+        assertEquals("fresh", cache.get(7L, id -> "fresh"));
+    }
+
+    @Test
+    void prunesMarkersOnlyAfterInFlightLoadsFinish() {
+        NearCache<String> cache = bus.cache(InvalidationBus.USER);
+
+        // 加载期间大量失效触发清理，进行中加载所需的标记必须保留
+        String loaded = cache.get(7L, id -> {
+            bus.publish(InvalidationBus.USER, 7L);
+            for (long other = 1000; other < 6000; other++) {
+                bus.publish(InvalidationBus.USER, other);
+            }
+            return "stale";
+        });
+        assertEquals("stale", loaded);
+        assertEquals(0, cache.size());
+
+        for (long other = 6000; other < 11000; other++) {
+            bus.publish(InvalidationBus.USER, other);
+        }
+        assertTrue(cache.invalidationMarkers() <= 2048, "失效标记应被清理: " + cache.invalidationMarkers());
+    }
+
+    @Test
+    void evictsBeyondMaxEntries() {
+        InvalidationBus small = new InvalidationBus(new LocalInvalidationTransport(), "test-node", 100, 300);
+        NearCache<String> cache = small.cache(InvalidationBus.BOOK);
+
+        cache.get(1L, id -> "hot");
+        for (long id = 2; id <= 1000; id++) {
+            cache.get(id, key -> "v" + key);
+            // 热点条目持续被访问，淘汰时应优先保留
+            cache.get(1L, key -> "reloaded");
+        }
+        assertTrue(cache.size() <= 100, "条目数应受上限约束: " + cache.size());
+        assertEquals("hot", cache.get(1L, id -> "reloaded"));
+    }
+
+    @Test
+    void returnsCopiesOfMutableValues() {
+        NearCache<Book> cache = bus.cache(InvalidationBus.BOOK, Book::copy);
+        Book original = new Book();
+        original.setTitle("cached");
+
+        cache.get(1L, id -> original).setTitle("mutated");
+        cache.get(1L, id -> original).setTitle("mutated-again");
+
+        assertEquals("cached", cache.get(1L, id -> null).getTitle());
+    }
+}
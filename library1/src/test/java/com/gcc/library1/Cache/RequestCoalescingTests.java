@@ -0,0 +1,122 @@
+package com.gcc.library1.Cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestCoalescingTests {
+
+    private final InvalidationBus bus = new InvalidationBus(new LocalInvalidationTransport(), "test-node");
+    private final RequestCoalescing coalescing = new RequestCoalescing(bus,
+            new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class), 60_000);
+
+    @Test
+    void concurrentIdenticalQueriesExecuteOnce() throws Exception {
+        SingleFlight<String, String> flight = coalescing.flight("test-concurrent");
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> flight.execute("java", () -> {
+                    executions.incrementAndGet();
+                    await(release);
+                    return "result";
+                })));
+            }
+            // 等到所有请求都已进入合并器再放行第一个查询
+            while (flight.getRequests() < callers) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+            for (Future<String> result : results) {
+                assertEquals("result", result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, executions.get());
+        assertEquals(callers - 1, flight.getRequests() - flight.getExecutions());
+        assertTrue(flight.coalescingRatio() > 0.9);
+
+        // 复用窗口内不同的key各自执行
+        flight.execute("python", () -> "other");
+        assertEquals(2, flight.getExecutions());
+    }
+
+    @Test
+    void failuresAreNotReused() {
+        SingleFlight<Long, String> flight = coalescing.flight("test-failure");
+        assertThrows(IllegalStateException.class, () -> flight.execute(1L, () -> {
+            throw new IllegalStateException("boom");
+        }));
+        assertEquals("ok", flight.execute(1L, () -> "ok"));
+        assertEquals("ok", flight.execute(1L, () -> "again"));
+        assertEquals(2, flight.getExecutions());
+    }
+
+    @Test
+    void invalidationDropsReusedResults() {
+        SingleFlight<String, String> flight = coalescing.flight("test-invalidation", InvalidationBus.BOOK);
+        assertEquals("v1", flight.execute("title", () -> "v1"));
+        assertEquals("v1", flight.execute("title", () -> "v2"));
+
+        // 任一分馆的图书变更都清空依赖图书的合并器
+        bus.publish(InvalidationBus.BOOK + "@east", 42L);
+        assertEquals("v3", flight.execute("title", () -> "v3"));
+
+        SingleFlight<String, String> unrelated = coalescing.flight("test-unrelated", InvalidationBus.USER);
+        unrelated.execute("name", () -> "u1");
+        bus.publish(InvalidationBus.BOOK, 42L);
+        assertEquals("u1", unrelated.execute("name", () -> "u2"));
+    }
+
+    @Test
+    void queryStartedBeforeWriteIsNotJoined() throws Exception {
+        SingleFlight<String, String> flight = coalescing.flight("test-in-flight", InvalidationBus.BORROW_HISTORY);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> before = pool.submit(() -> flight.execute("user-1", () -> {
+                started.countDown();
+                await(release);
+                return "before-write";
+            }));
+            await(started);
+
+            // 写入在查询进行中提交，之后的请求不能合并到这次查询
+            bus.publish(InvalidationBus.BORROW_HISTORY + "@east", 9L);
+            assertEquals("after-write", flight.execute("user-1", () -> "after-write"));
+
+            release.countDown();
+            assertEquals("before-write", before.get(10, TimeUnit.SECONDS));
+            assertEquals("after-write", flight.execute("user-1", () -> "again"));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.gcc.library1.Controller;
+
+import com.gcc.library1.Cache.InvalidationBus;
+import com.gcc.library1.Model.Book;
+import com.gcc.library1.Model.BorrowRecord;
+import com.gcc.library1.Model.Reservation;
+import com.gcc.library1.Model.User;
+import com.gcc.library1.Repository.UserRepository;
+import com.gcc.library1.Service.BookService;
+import com.gcc.library1.Service.BorrowRecordService;
+import com.gcc.library1.Service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 停用的用户（名单同步中不再出现的读者）不能登录，也不能借书、续借和预约。
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+class InactiveUserTests {
+
+    @Autowired
+    private BorrowRecordController borrowRecordController;
+
+    @Autowired
+    private ReservationController reservationController;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BorrowRecordService borrowRecordService;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @Test
+    void deactivatedUserCannotBorrowRenewOrReserve() {
+        User user = new User();
+        user.setName("inactive-" + UUID.randomUUID());
+        user.setPassword("pw");
+        Long userId = userService.addUser(user).getId();
+        Long borrowed = bookService.addBook(book("inactive-borrowed")).getId();
+        Long other = bookService.addBook(book("inactive-other")).getId();
+        assertEquals(HttpStatus.OK, borrowRecordController.registerBorrow(borrowRecord(borrowed, userId)).getStatusCode());
+
+        deactivate(userId);
+
+        assertEquals(HttpStatus.FORBIDDEN, borrowRecordController.updateBorrow(borrowRecord(borrowed, userId)).getStatusCode());
+        assertEquals(0, borrowRecordService.getBorrowRecord(borrowed, userId).getRenewCount());
+        assertEquals(HttpStatus.FORBIDDEN, borrowRecordController.registerBorrow(borrowRecord(other, userId)).getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN, reservationController.addReservation(reservation(borrowed, userId)).getStatusCode());
+        // 停用前借出的书照常可以归还
+        assertEquals(HttpStatus.OK, borrowRecordController.BackBook(borrowRecord(borrowed, userId)).getStatusCode());
+    }
+
+    // 与名单同步停用用户的效果相同：置为停用并广播失效，各节点不再命中缓存中的旧状态
+    private void deactivate(Long userId) {
+        User stored = userRepository.findById(userId).orElseThrow();
+        stored.setActive(false);
+        userRepository.save(stored);
+        invalidationBus.publish(InvalidationBus.USER, userId);
+    }
+
+    private static BorrowRecord borrowRecord(Long bookId, Long userId) {
+        BorrowRecord record = new BorrowRecord();
+        record.setBookId(bookId);
+        record.setUserId(userId);
+        return record;
+    }
+
+    private static Reservation reservation(Long bookId, Long userId) {
+        Reservation reservation = new Reservation();
+        reservation.setBookId(bookId);
+        reservation.setUserId(userId);
+        return reservation;
+    }
+
+    private static Book book(String title) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setAuthor("author");
+        return book;
+    }
+}
@@ -0,0 +1,95 @@
+package com.gcc.library1.Diagnostics;
+
+import com.gcc.library1.Controller.BorrowRecordController;
+import com.gcc.library1.Model.BorrowRecord;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * JFR 事件和录制端点测试。
+ */
+@SpringBootTest(properties = "library.jfr.dump-dir=target/jfr-test")
+@ActiveProfiles("h2")
+class FlightRecorderTests {
+
+    @Autowired
+    private BorrowRecordController borrowRecordController;
+
+    @Autowired
+    private FlightRecorderEndpoint flightRecorderEndpoint;
+
+    @Test
+    void borrowFlowEmitsEventsWithIdsAndOutcome() throws Exception {
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable("com.gcc.library1.BorrowFlow");
+            recording.enable("com.gcc.library1.ServiceCall").withThreshold(Duration.ZERO);
+            recording.start();
+            BorrowRecord input = new BorrowRecord();
+            input.setBookId(987654L);
+            input.setUserId(123456L);
+            assertEquals(HttpStatus.NOT_FOUND, borrowRecordController.registerBorrow(input).getStatusCode());
+            recording.stop();
+            Path file = Files.createTempFile("borrow-flow", ".jfr");
+            recording.dump(file);
+            events = RecordingFile.readAllEvents(file);
+            Files.delete(file);
+        }
+
+        RecordedEvent flow = events.stream()
+                .filter(event -> event.getEventType().getName().equals("com.gcc.library1.BorrowFlow"))
+                .findFirst().orElseThrow();
+        assertEquals("registerBorrow", flow.getString("operation"));
+        assertEquals(987654L, flow.getLong("bookId"));
+        assertEquals(123456L, flow.getLong("userId"));
+        assertEquals(404, flow.getInt("status"));
+        assertEquals("NOT_FOUND", flow.getString("outcome"));
+
+        assertTrue(events.stream().anyMatch(event -> isCall(event, "service", "UserService", "getUserById")
+                && event.getLong("id") == 123456L && "EntityNotFoundException".equals(event.getString("outcome"))));
+        assertTrue(events.stream().anyMatch(event -> isCall(event, "repository", "UserRepository", "findById")
+                && "OK".equals(event.getString("outcome"))));
+    }
+
+    @Test
+    void endpointDumpsBoundedRecording() throws Exception {
+        Map<String, Object> started = flightRecorderEndpoint.control("start", null, 60L, 8L);
+        assertEquals("RUNNING", started.get("state"));
+        assertEquals(8L * 1024 * 1024, started.get("maxSizeBytes"));
+
+        Path file = Path.of((String) flightRecorderEndpoint.control("stop", null, null, null).get("file"));
+        assertTrue(Files.size(file) > 0);
+        assertEquals("NONE", flightRecorderEndpoint.status().get("state"));
+        Files.delete(file);
+    }
+
+    @Test
+    void endpointClampsRequestedLimits() throws Exception {
+        Map<String, Object> started = flightRecorderEndpoint.control("start", "default", 86_400L * 365, 1L << 40);
+        assertEquals(3600L, started.get("maxAgeSeconds"));
+        assertEquals(256L * 1024 * 1024, started.get("maxSizeBytes"));
+        Files.delete(Path.of((String) flightRecorderEndpoint.control("stop", null, null, null).get("file")));
+    }
+
+    private static boolean isCall(RecordedEvent event, String layer, String component, String method) {
+        return event.getEventType().getName().equals("com.gcc.library1.ServiceCall")
+                && layer.equals(event.getString("layer"))
+                && component.equals(event.getString("component"))
+                && method.equals(event.getString("method"));
+    }
+}
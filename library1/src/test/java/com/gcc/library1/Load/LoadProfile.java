@@ -0,0 +1,24 @@
+package com.gcc.library1.Load;
+
+/**
+ * 压测参数，均可通过 -Dload.* 系统属性覆盖。
+ *
+ * @param seed           随机种子，相同种子产生相同的数据和请求序列
+ * @param users          预置用户数
+ * @param books          预置图书数
+ * @param ratePerSecond  开放模型下每秒到达的请求数（与响应快慢无关）
+ * @param phaseSeconds   每个阶段（登录、搜索、借还）的持续秒数
+ * @param zipfExponent   图书热度的 Zipf 指数，越大越集中在少数热门书
+ */
+record LoadProfile(long seed, int users, int books, double ratePerSecond, int phaseSeconds, double zipfExponent) {
+
+    static LoadProfile fromSystemProperties() {
+        return new LoadProfile(
+                Long.getLong("load.seed", 20260901L),
+                Integer.getInteger("load.users", 2_000),
+                Integer.getInteger("load.books", 5_000),
+                Double.parseDouble(System.getProperty("load.rate", "200")),
+                Integer.getInteger("load.phase-seconds", 5),
+                Double.parseDouble(System.getProperty("load.zipf", "1.1")));
+    }
+}
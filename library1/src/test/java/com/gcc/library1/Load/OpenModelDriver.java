@@ -0,0 +1,152 @@
+package com.gcc.library1.Load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * 开放模型压测驱动：请求按泊松过程到达，到达时间与服务端响应快慢无关。
+ * 延迟从“计划发出时间”开始计算，避免协调遗漏（coordinated omission）掩盖排队时间。
+ * 每个接口一个 HdrHistogram，同时按状态码计数。
+ */
+final class OpenModelDriver implements AutoCloseable {
+
+    /**
+     * 一次待发送的请求，key 为请求涉及的业务主键（如 bookId），供完成回调维护客户端状态。
+     */
+    record Call(String endpoint, Long key, HttpRequest request) {
+    }
+
+    private final String baseUrl;
+    private final HttpClient client;
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, Histogram> latencies = new ConcurrentHashMap<>();
+    private final Map<String, Map<Integer, AtomicLong>> statuses = new ConcurrentHashMap<>();
+    private final AtomicLong failures = new AtomicLong();
+
+    OpenModelDriver(String baseUrl) {
+        this.baseUrl = baseUrl;
+        this.client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    }
+
+    static HttpRequest.Builder json(String method, String url, String body) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body));
+    }
+
+    String url(String path) {
+        return baseUrl + path;
+    }
+
+    /**
+     * 以指定到达率运行一个阶段。
+     *
+     * @param seconds 持续时间
+     * @param rate    每秒到达数
+     * @param random  种子随机数（决定到达间隔和请求内容）
+     * @param next    根据随机数生成下一个请求
+     * @param onDone  请求完成后的回调（可为空），用于维护客户端状态
+     */
+    void runPhase(int seconds, double rate, Random random, Function<Random, Call> next,
+                  BiConsumer<Call, HttpResponse<String>> onDone) throws InterruptedException {
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        double intended = start;
+        Phaser inFlight = new Phaser(1);
+        while (true) {
+            // 指数分布的到达间隔
+            intended += -Math.log(1 - random.nextDouble()) / rate * 1e9;
+            if (intended >= end) {
+                break;
+            }
+            long wait = (long) intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Call call = next.apply(random);
+            long scheduledAt = (long) intended;
+            inFlight.register();
+            workers.execute(() -> {
+                try {
+                    HttpResponse<String> response = client.send(call.request(), HttpResponse.BodyHandlers.ofString());
+                    record(call.endpoint(), scheduledAt, response.statusCode());
+                    if (onDone != null) {
+                        onDone.accept(call, response);
+                    }
+                } catch (IOException e) {
+                    failures.incrementAndGet();
+                    record(call.endpoint(), scheduledAt, -1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    inFlight.arriveAndDeregister();
+                }
+            });
+        }
+        inFlight.arriveAndAwaitAdvance();
+    }
+
+    private void record(String endpoint, long scheduledAt, int status) {
+        long latencyMicros = Math.max(0, (System.nanoTime() - scheduledAt) / 1_000);
+        latencies.computeIfAbsent(endpoint, key -> new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(5), 3))
+                .recordValue(Math.min(latencyMicros, TimeUnit.MINUTES.toMicros(5)));
+        statuses.computeIfAbsent(endpoint, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(status, key -> new AtomicLong()).incrementAndGet();
+    }
+
+    long failures() {
+        return failures.get();
+    }
+
+    long count(String endpoint, int status) {
+        AtomicLong counter = statuses.getOrDefault(endpoint, Map.of()).get(status);
+        return counter == null ? 0 : counter.get();
+    }
+
+    /**
+     * 打印各接口的延迟分位数，并把完整分布写入 reportDir/&lt;接口&gt;.hgrm。
+     */
+    void report(PrintStream out, Path reportDir) throws IOException {
+        Files.createDirectories(reportDir);
+        out.printf("%-28s %8s %10s %10s %10s %10s  %s%n", "endpoint", "count", "p50(ms)", "p90(ms)", "p99(ms)", "max(ms)", "status");
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(latencies).entrySet()) {
+            Histogram histogram = entry.getValue();
+            out.printf("%-28s %8d %10.2f %10.2f %10.2f %10.2f  %s%n", entry.getKey(), histogram.getTotalCount(),
+                    histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(90) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0, histogram.getMaxValue() / 1000.0,
+                    new TreeMap<>(statuses.get(entry.getKey())));
+            try (PrintStream file = new PrintStream(Files.newOutputStream(
+                    reportDir.resolve(entry.getKey().replace('/', '_') + ".hgrm")))) {
+                histogram.outputPercentileDistribution(file, 1000.0);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,162 @@
+package com.gcc.library1.Load;
+
+import com.gcc.library1.Model.Book;
+import com.gcc.library1.Model.User;
+import com.gcc.library1.Repository.UserRepository;
+import com.gcc.library1.Service.BookService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 开学高峰压测：登录风暴 → 图书搜索 → 借书/还书/逾期查询混合。
+ * 在内存数据库上启动完整应用，通过真实 REST 接口施压，结束后校验业务不变量。
+ * 默认不执行，运行方式：mvn -Pload-test test
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "library.admission.enabled=false")
+@ActiveProfiles("h2")
+class SemesterStartLoadTest {
+
+    private static final String LOGIN = "/api/users/login";
+    private static final String SEARCH = "/api/books/getBookByTitle";
+    private static final String BORROW = "/api/borrow/add";
+    private static final String BACK = "/api/borrow/back";
+    private static final String OVERDUE = "/api/borrow/overdue";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void semesterStart() throws Exception {
+        LoadProfile profile = LoadProfile.fromSystemProperties();
+        Random random = new Random(profile.seed());
+        List<Long> userIds = seedUsers(profile.users());
+        List<Long> bookIds = seedBooks(profile.books(), random);
+        ZipfSampler popularity = new ZipfSampler(bookIds.size(), profile.zipfExponent());
+        // 客户端视角下已借出的书，用于生成还书请求
+        Set<Long> onLoan = ConcurrentHashMap.newKeySet();
+        long returned;
+
+        try (OpenModelDriver driver = new OpenModelDriver("http://localhost:" + port)) {
+            driver.runPhase(profile.phaseSeconds(), profile.ratePerSecond(), random, r -> {
+                int user = r.nextInt(userIds.size());
+                return new OpenModelDriver.Call(LOGIN, null, OpenModelDriver.json("POST", driver.url(LOGIN),
+                        "{\"name\":\"student" + user + "\",\"password\":\"pw" + user + "\"}").build());
+            }, null);
+
+            driver.runPhase(profile.phaseSeconds(), profile.ratePerSecond(), random, r -> {
+                // 按热度搜索书名中的编号片段
+                String term = "Book " + popularity.next(r);
+                return new OpenModelDriver.Call(SEARCH, null, OpenModelDriver.json("POST", driver.url(SEARCH),
+                        "{\"title\":\"" + term + "\"}").build());
+            }, null);
+
+            driver.runPhase(profile.phaseSeconds(), profile.ratePerSecond(), random, r -> {
+                double dice = r.nextDouble();
+                long userId = userIds.get(r.nextInt(userIds.size()));
+                if (dice < 0.5) {
+                    long bookId = bookIds.get(popularity.next(r));
+                    return new OpenModelDriver.Call(BORROW, bookId, OpenModelDriver.json("POST", driver.url(BORROW),
+                            "{\"bookId\":" + bookId + ",\"userId\":" + userId + "}").build());
+                }
+                if (dice < 0.8 && !onLoan.isEmpty()) {
+                    long bookId = onLoan.stream().skip(r.nextInt(onLoan.size())).findFirst().orElse(bookIds.get(0));
+                    return new OpenModelDriver.Call(BACK, bookId, OpenModelDriver.json("DELETE", driver.url(BACK),
+                            "{\"bookId\":" + bookId + "}").build());
+                }
+                return new OpenModelDriver.Call(OVERDUE, null, OpenModelDriver.json("POST", driver.url(OVERDUE),
+                        "{\"userId\":" + userId + "}").build());
+            }, (call, response) -> {
+                if (response.statusCode() != 200) {
+                    return;
+                }
+                if (BORROW.equals(call.endpoint())) {
+                    onLoan.add(call.key());
+                } else if (BACK.equals(call.endpoint())) {
+                    onLoan.remove(call.key());
+                }
+            });
+
+            driver.report(System.out, Path.of("target", "load-report"));
+
+            assertEquals(0, driver.failures(), "存在网络层失败的请求");
+            assertTrue(driver.count(LOGIN, 200) > 0);
+            assertEquals(0, driver.count(BORROW, 500) + driver.count(BACK, 500) + driver.count(OVERDUE, 500),
+                    "借还接口出现服务端错误");
+            returned = driver.count(BACK, 200);
+        }
+
+        // 不变量：同一副本不能同时存在两条有效借阅记录
+        Integer doubleLoans = jdbcTemplate.queryForObject(
+                "select count(*) from (select copy_id from borrow_record group by copy_id having count(*) > 1) t",
+                Integer.class);
+        assertEquals(0, doubleLoans, "存在被重复借出的副本");
+        // 不变量：每本书的可借数等于副本数减去在借记录数
+        Integer drifted = jdbcTemplate.queryForObject(
+                "select count(*) from books b where b.available_copies"
+                        + " <> b.total_copies - (select count(*) from borrow_record r where r.book_id = b.id)", Integer.class);
+        assertEquals(0, drifted, "存在可借数与在借记录不一致的图书");
+        // 不变量：借阅记录引用的用户和图书都存在
+        Integer orphans = jdbcTemplate.queryForObject(
+                "select count(*) from borrow_record r where not exists (select 1 from books b where b.id = r.book_id)"
+                        + " or not exists (select 1 from users u where u.id = r.user_id)", Integer.class);
+        assertEquals(0, orphans, "存在引用无效用户或图书的借阅记录");
+        // 不变量：每次成功还书恰好归档一条已归还借阅，且不再留在在借表中
+        Integer closed = jdbcTemplate.queryForObject("select count(*) from closed_loan", Integer.class);
+        assertEquals(returned, closed.longValue(), "已归还借阅数与成功还书次数不一致");
+        Integer lingering = jdbcTemplate.queryForObject(
+                "select count(*) from closed_loan c join borrow_record r on r.id = c.loan_id", Integer.class);
+        assertEquals(0, lingering, "已归还的借阅仍留在在借表中");
+    }
+
+    private List<Long> seedUsers(int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            User user = new User();
+            user.setName("student" + i);
+            user.setPassword("pw" + i);
+            user.setUserType(i % 20 == 0 ? "TEACHER" : "STUDENT");
+            users.add(user);
+        }
+        return userRepository.saveAll(users).stream().map(User::getId).toList();
+    }
+
+    private List<Long> seedBooks(int count, Random random) {
+        String[] categories = {"NOVEL", "SCIENCE", "HISTORY", "REFERENCE"};
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Book book = new Book();
+            book.setTitle("Book " + i + " of the semester");
+            book.setAuthor("Author " + random.nextInt(500));
+            book.setCategory(categories[random.nextInt(categories.length)]);
+            books.add(book);
+        }
+        // 经服务层写入，分配同步修订号
+        return books.stream().map(bookService::addBook).map(Book::getId).toList();
+    }
+}
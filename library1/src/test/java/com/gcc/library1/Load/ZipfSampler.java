@@ -0,0 +1,33 @@
+package com.gcc.library1.Load;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Zipf 分布采样器：排名为 k 的元素被选中的概率与 1/k^s 成正比。
+ * 预先计算累积分布，每次采样为一次二分查找。
+ */
+final class ZipfSampler {
+
+    private final double[] cdf;
+
+    ZipfSampler(int size, double exponent) {
+        cdf = new double[size];
+        double sum = 0;
+        for (int k = 1; k <= size; k++) {
+            sum += 1 / Math.pow(k, exponent);
+            cdf[k - 1] = sum;
+        }
+        for (int i = 0; i < size; i++) {
+            cdf[i] /= sum;
+        }
+    }
+
+    /**
+     * @return 0 起始的排名
+     */
+    int next(Random random) {
+        int index = Arrays.binarySearch(cdf, random.nextDouble());
+        return Math.min(cdf.length - 1, index >= 0 ? index : -index - 1);
+    }
+}
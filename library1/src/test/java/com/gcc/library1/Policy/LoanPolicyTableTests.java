@@ -0,0 +1,56 @@
+package com.gcc.library1.Policy;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoanPolicyTableTests {
+
+    private static LoanPolicyTable compile(String... entries) {
+        Properties properties = new Properties();
+        for (int i = 0; i < entries.length; i += 2) {
+            properties.setProperty(entries[i], entries[i + 1]);
+        }
+        return LoanPolicyTable.compile(properties);
+    }
+
+    @Test
+    void resolvesEachFieldByPrecedence() {
+        LoanPolicyTable table = compile(
+                "rule.*.*.loan-days", "30",
+                "rule.*.*.max-renewals", "2",
+                "rule.TEACHER.*.loan-days", "180",
+                "rule.*.REFERENCE.loan-days", "7",
+                "rule.*.REFERENCE.max-renewals", "0");
+
+        assertEquals(30, table.lookup(null, null).getLoanDays());
+        assertEquals(30, table.lookup("STUDENT", "NOVEL").getLoanDays());
+        assertEquals(180, table.lookup("TEACHER", "NOVEL").getLoanDays());
+        // 用户类型通配优先于图书分类通配
+        assertEquals(180, table.lookup("TEACHER", "REFERENCE").getLoanDays());
+        assertEquals(0, table.lookup("TEACHER", "REFERENCE").getMaxRenewals());
+        assertEquals(90, table.lookup("TEACHER", null).getRenewDays());
+        assertFalse(table.lookup("STUDENT", "REFERENCE").canRenew(0));
+        assertTrue(table.lookup("STUDENT", null).canRenew(1));
+        assertSame(table.lookup("STUDENT", "NOVEL"), table.lookup(null, null));
+        assertEquals("借书7天", table.lookup(null, "REFERENCE").getBorrowBehaviour());
+    }
+
+    @Test
+    void dueDateSkipsConsecutiveHolidays() {
+        LoanPolicyTable table = compile(
+                "rule.*.*.loan-days", "10",
+                "holidays", "2026-10-01,2026-10-02,2026-10-03,2026-10-05");
+
+        LoanRule rule = table.lookup(null, null);
+        assertEquals(LocalDate.of(2026, 10, 4), rule.dueDate(LocalDate.of(2026, 9, 21)));
+        assertEquals(LocalDate.of(2026, 9, 30), rule.dueDate(LocalDate.of(2026, 9, 20)));
+        assertEquals(LocalDate.of(2026, 10, 6), rule.dueDate(LocalDate.of(2026, 9, 25)));
+    }
+}
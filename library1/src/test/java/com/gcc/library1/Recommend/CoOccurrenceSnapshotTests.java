@@ -0,0 +1,56 @@
+package com.gcc.library1.Recommend;
+
+import com.gcc.library1.Util.LongIntHashMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CoOccurrenceSnapshotTests {
+
+    @Test
+    void ranksNeighboursByCoBorrowCount() {
+        // 用户0: 1,2,3  用户1: 1,2  用户2: 2,3,4
+        int[] offsets = {0, 3, 5, 8};
+        long[] books = {1, 2, 3, 1, 2, 2, 3, 4};
+
+        CoOccurrenceSnapshot snapshot = CoOccurrenceSnapshot.build(CoOccurrenceCounter.count(offsets, books), 2);
+
+        assertEquals(List.of(new CoOccurrenceSnapshot.Neighbour(1, 2), new CoOccurrenceSnapshot.Neighbour(3, 2)),
+                snapshot.topK(2, 10));
+        assertEquals(List.of(new CoOccurrenceSnapshot.Neighbour(2, 2)), snapshot.topK(1, 1));
+        assertEquals(List.of(), snapshot.topK(99, 10));
+    }
+
+    @Test
+    void parallelCountMatchesSequentialCount() {
+        Random random = new Random(42);
+        int users = 20_000;
+        int[] offsets = new int[users + 1];
+        long[] books = new long[users * 8];
+        int size = 0;
+        for (int u = 0; u < users; u++) {
+            int count = 2 + random.nextInt(7);
+            long base = 1 + random.nextInt(5_000);
+            for (int i = 0; i < count; i++) {
+                // 同一用户内的书籍互不相同
+                books[size++] = base + i * 7L;
+            }
+            offsets[u + 1] = size;
+        }
+
+        LongIntHashMap parallel = CoOccurrenceCounter.count(offsets, books);
+        LongIntHashMap sequential = new LongIntHashMap();
+        for (int u = 0; u < users; u++) {
+            CoOccurrenceCounter.countUser(books, offsets[u], offsets[u + 1], sequential);
+        }
+
+        assertEquals(sequential.size(), parallel.size());
+        sequential.forEach((key, count) -> assertEquals(count, parallel.get(key)));
+        CoOccurrenceSnapshot snapshot = CoOccurrenceSnapshot.build(parallel, 20);
+        assertTrue(snapshot.bookCount() > 0);
+    }
+}
@@ -0,0 +1,249 @@
+package com.gcc.library1.Repository;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import com.gcc.library1.Model.Reservation;
+import com.gcc.library1.Shard.BranchTenantResolver;
+import com.gcc.library1.Shard.ShardDataSourceConfig;
+import com.gcc.library1.Shard.ShardProperties;
+import com.gcc.library1.Shard.ShardRouter;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 调用每个查询方法，截获 Hibernate 实际发出的 SQL 和绑定参数（含分馆过滤条件），执行 EXPLAIN，出现全表扫描即失败。
+ * SQL 由 {@link StatementInspector} 截获，参数取自 Hibernate 的参数绑定日志。
+ * 默认在 H2（MySQL 兼容模式）上运行迁移脚本；把数据源指向 MySQL 时按 EXPLAIN 的 type=ALL 判断。
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+// 分片数据源和分馆解析器不在 JPA 切片的扫描范围内
+@Import({ShardDataSourceConfig.class, ShardProperties.class, ShardRouter.class, BranchTenantResolver.class,
+        IndexPlanTests.CaptureConfig.class})
+@ActiveProfiles("h2")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class IndexPlanTests {
+
+    private static final StatementCapture CAPTURE = new StatementCapture();
+
+    @TestConfiguration
+    static class CaptureConfig {
+        @Bean
+        HibernatePropertiesCustomizer statementCapture() {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, CAPTURE);
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookCopyRepository bookCopyRepository;
+
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+
+    @Autowired
+    private BorrowHistoryRepository borrowHistoryRepository;
+
+    @Autowired
+    private ClosedLoanRepository closedLoanRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private SyncTombstoneRepository syncTombstoneRepository;
+
+    Stream<Arguments> finders() {
+        EnumSet<Reservation.Status> active = EnumSet.of(Reservation.Status.WAITING, Reservation.Status.READY);
+        return Stream.of(
+                finder("BookRepository.findByTitle", () -> bookRepository.findByTitle("x")),
+                finder("BookRepository.findByTitleLike(前缀)", () -> bookRepository.findByTitleLike("x%")),
+                finder("BookRepository.findByRevisionGreaterThanOrderByRevisionAsc",
+                        () -> bookRepository.findByRevisionGreaterThanOrderByRevisionAsc(1L, Limit.of(100))),
+                finder("BookCopyRepository.findByBookIdOrderByIdAsc", () -> bookCopyRepository.findByBookIdOrderByIdAsc(1L)),
+                finder("BookCopyRepository.findFirstByBookIdAndOnLoanFalse",
+                        () -> bookCopyRepository.findFirstByBookIdAndOnLoanFalse(1L)),
+                finder("BookCopyRepository.countByBookId", () -> bookCopyRepository.countByBookId(1L)),
+                finder("BookCopyRepository.existsByBookIdAndOnLoanTrue", () -> bookCopyRepository.existsByBookIdAndOnLoanTrue(1L)),
+                finder("BorrowRecordRepository.findByBookId", () -> borrowRecordRepository.findByBookId(1L)),
+                finder("BorrowRecordRepository.findByBookIdAndUserId", () -> borrowRecordRepository.findByBookIdAndUserId(1L, 1L)),
+                finder("BorrowRecordRepository.findByUserId", () -> borrowRecordRepository.findByUserId(1L)),
+                finder("BorrowRecordRepository.existsByUserId", () -> borrowRecordRepository.existsByUserId(1L)),
+                finder("BorrowRecordRepository.findByUserIdAndReturnDateBeforeAndReturnDateIsNotNull",
+                        () -> borrowRecordRepository.findByUserIdAndReturnDateBeforeAndReturnDateIsNotNull(1L, LocalDate.of(2030, 1, 1))),
+                finder("BorrowRecordRepository.findByRevisionGreaterThanOrderByRevisionAsc",
+                        () -> borrowRecordRepository.findByRevisionGreaterThanOrderByRevisionAsc(1L, Limit.of(100))),
+                finder("BorrowHistoryRepository.findByUserId", () -> borrowHistoryRepository.findByUserId(1L)),
+                finder("BorrowHistoryRepository.findByBookId", () -> borrowHistoryRepository.findByBookId(1L)),
+                finder("ClosedLoanRepository.findByUserIdOrderByReturnedDateDesc",
+                        () -> closedLoanRepository.findByUserIdOrderByReturnedDateDesc(1L)),
+                finder("ClosedLoanRepository.totalsByBookId", () -> closedLoanRepository.totalsByBookId(1L)),
+                finder("UserRepository.findByName", () -> userRepository.findByName("x")),
+                finder("UserRepository.findByNameAndPassword", () -> userRepository.findByNameAndPassword("x", "y")),
+                finder("UserRepository.existsByName", () -> userRepository.existsByName("x")),
+                finder("ReservationRepository.findByUserId", () -> reservationRepository.findByUserId(1L)),
+                finder("ReservationRepository.findByStatusInOrderByIdAsc", () -> reservationRepository.findByStatusInOrderByIdAsc(active)),
+                finder("ReservationRepository.findByBookIdAndStatusInOrderByIdAsc",
+                        () -> reservationRepository.findByBookIdAndStatusInOrderByIdAsc(1L, active)),
+                finder("SyncTombstoneRepository.findByRevisionGreaterThanOrderByRevisionAsc",
+                        () -> syncTombstoneRepository.findByRevisionGreaterThanOrderByRevisionAsc(1L, Limit.of(100))));
+    }
+
+    @BeforeAll
+    void startCapture() {
+        CAPTURE.attach();
+    }
+
+    @AfterAll
+    void stopCapture() {
+        CAPTURE.detach();
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("finders")
+    void finderDoesNotScanWholeTable(String finder, Runnable call) throws SQLException {
+        CapturedStatement statement = CAPTURE.record(call);
+        List<Map<String, Object>> plan = jdbcTemplate.queryForList("explain " + statement.sql(), statement.parameters().toArray());
+        assertFalse(isFullScan(plan), finder + " 触发全表扫描: " + statement.sql() + " -> " + plan);
+    }
+
+    private static Arguments finder(String name, Runnable call) {
+        return Arguments.of(name, call);
+    }
+
+    private boolean isFullScan(List<Map<String, Object>> plan) throws SQLException {
+        String product;
+        try (Connection connection = dataSource.getConnection()) {
+            product = connection.getMetaData().getDatabaseProductName();
+        }
+        if ("MySQL".equalsIgnoreCase(product)) {
+            return plan.stream().anyMatch(row -> "ALL".equals(String.valueOf(row.get("type"))));
+        }
+        return plan.toString().contains("tableScan");
+    }
+
+    private record CapturedStatement(String sql, List<Object> parameters) {
+    }
+
+    /**
+     * 截获一次调用中 Hibernate 发出的最后一条 SQL 及其绑定参数。
+     * 参数绑定日志（org.hibernate.orm.jdbc.bind，TRACE）紧跟在对应语句的准备之后，按顺序归到最近一条语句上。
+     */
+    private static final class StatementCapture extends AppenderBase<ILoggingEvent> implements StatementInspector {
+
+        private static final Pattern BINDING = Pattern.compile("binding parameter \\((\\d+):(\\w+)\\) <- \\[(.*)]", Pattern.DOTALL);
+
+        private final Logger bindLogger = (Logger) LoggerFactory.getLogger("org.hibernate.orm.jdbc.bind");
+        private volatile boolean recording;
+        private String sql;
+        private final List<Object> parameters = new ArrayList<>();
+
+        void attach() {
+            setContext(bindLogger.getLoggerContext());
+            start();
+            bindLogger.setLevel(Level.TRACE);
+            bindLogger.setAdditive(false);
+            bindLogger.addAppender(this);
+        }
+
+        void detach() {
+            bindLogger.detachAppender(this);
+            bindLogger.setAdditive(true);
+            bindLogger.setLevel(null);
+            stop();
+        }
+
+        synchronized CapturedStatement record(Runnable call) {
+            sql = null;
+            parameters.clear();
+            recording = true;
+            try {
+                call.run();
+            } finally {
+                recording = false;
+            }
+            assertTrue(sql != null, "没有截获到 SQL");
+            assertEquals(sql.chars().filter(c -> c == '?').count(), parameters.size(), "绑定参数与占位符数量不一致: " + sql);
+            return new CapturedStatement(sql, List.copyOf(parameters));
+        }
+
+        @Override
+        public String inspect(String statement) {
+            if (recording) {
+                sql = statement;
+                parameters.clear();
+            }
+            return statement;
+        }
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            if (!recording) {
+                return;
+            }
+            Matcher matcher = BINDING.matcher(event.getFormattedMessage());
+            if (matcher.matches()) {
+                parameters.add(value(matcher.group(2), matcher.group(3)));
+            }
+        }
+
+        private static Object value(String jdbcType, String text) {
+            if ("null".equals(text)) {
+                return null;
+            }
+            return switch (jdbcType) {
+                case "BIGINT", "INTEGER", "SMALLINT", "TINYINT" -> Long.valueOf(text);
+                case "BOOLEAN", "BIT" -> Boolean.valueOf(text);
+                case "DATE" -> Date.valueOf(text);
+                default -> text;
+            };
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.gcc.library1.Repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 旧库升级测试：迁移系列之前由 ddl-auto=update 建出的库（只有四张表、没有预约表和之后加入的列），
+ * 按生产配置（baseline-on-migrate、基线版本 1）迁移后，表结构应与新库完全执行迁移的结果一致，且数据保留。
+ * 预约表先于迁移系列由 ddl-auto=update 建出的旧库同样如此。
+ */
+class MigrationUpgradeTests {
+
+    // 迁移系列之前的实体由 Hibernate 在 MySQL 上生成的表结构，唯一约束名为 Hibernate 随机生成
+    private static final String LEGACY_SCHEMA = """
+            create table books (id bigint not null auto_increment, author varchar(255), description varchar(2000),
+                title varchar(255), primary key (id));
+            create table borrow_history (id bigint not null auto_increment, behavour varchar(255) not null,
+                book_id bigint, date date, user_id bigint, primary key (id));
+            create table borrow_record (id bigint not null auto_increment, book_id bigint, borrow_date date,
+                return_date date, user_id bigint, primary key (id));
+            create table users (id bigint not null auto_increment, borrow_book varchar(255), name varchar(255) not null,
+                password varchar(255) not null, primary key (id));
+            alter table users add constraint UK3g1j96g94xpk3lpxl2qbl985x unique (name);
+            insert into books (title, author) values ('legacy book', 'author');
+            insert into users (name, password) values ('legacy user', 'pw');
+            insert into borrow_record (book_id, user_id, borrow_date, return_date) values (1, 1, date '2024-09-01', date '2024-10-01');
+            """;
+
+    // 预约功能先于迁移系列上线，期间部署的库中还有由 ddl-auto=update 建出的预约表，状态列是 MySQL enum
+    private static final String LEGACY_RESERVATION = """
+            create table reservation (id bigint not null auto_increment, book_id bigint, created_at datetime(6),
+                expire_at datetime(6), status enum ('WAITING','READY','FULFILLED','EXPIRED','CANCELLED') not null,
+                user_id bigint, primary key (id));
+            insert into reservation (book_id, user_id, status, created_at) values (1, 2, 'WAITING', timestamp '2024-09-02 10:00:00');
+            """;
+
+    private static final String COLUMNS = "select table_name, column_name, data_type, is_nullable "
+            + "from information_schema.columns where table_schema = 'public' and table_name <> 'flyway_schema_history' "
+            + "order by table_name, column_name";
+
+    @Test
+    void legacyDatabaseUpgradesToTheSameSchemaAsAFreshOne() {
+        JdbcTemplate legacyJdbc = upgrade("upgrade-legacy", LEGACY_SCHEMA);
+
+        assertEquals("1", legacyJdbc.queryForObject(
+                "select version from flyway_schema_history where type = 'BASELINE'", String.class));
+        assertEquals(0L, legacyJdbc.queryForObject("select version from books where id = 1", Long.class));
+        assertEquals("main", legacyJdbc.queryForObject("select branch from books where id = 1", String.class));
+        assertEquals(0, legacyJdbc.queryForObject(
+                "select available_copies from books where id = 1", Integer.class));
+        assertEquals(1, legacyJdbc.queryForObject(
+                "select count(*) from book_copy where book_id = 1 and on_loan = true", Integer.class));
+        assertEquals(0, legacyJdbc.queryForObject(
+                "select renew_count from borrow_record where book_id = 1", Integer.class));
+    }
+
+    @Test
+    void legacyReservationTableIsConvertedToVarcharStatus() {
+        JdbcTemplate legacyJdbc = upgrade("upgrade-legacy-reservation", LEGACY_SCHEMA + LEGACY_RESERVATION);
+
+        assertEquals("character varying", legacyJdbc.queryForObject(
+                "select data_type from information_schema.columns where table_name = 'reservation' and column_name = 'status'",
+                String.class));
+        assertEquals("WAITING", legacyJdbc.queryForObject("select status from reservation where user_id = 2", String.class));
+        assertEquals(2L, legacyJdbc.queryForObject(
+                "select active_user_id from reservation where user_id = 2", Long.class));
+    }
+
+    // 在旧库上执行旧表结构后迁移，表结构应与新库完全执行迁移的结果一致
+    private static JdbcTemplate upgrade(String name, String legacySchema) {
+        DataSource fresh = dataSource(name + "-fresh");
+        migrate(fresh);
+
+        JdbcTemplate legacyJdbc = new JdbcTemplate(dataSource(name));
+        for (String statement : legacySchema.split(";")) {
+            if (!statement.isBlank()) {
+                legacyJdbc.execute(statement);
+            }
+        }
+        migrate(legacyJdbc.getDataSource());
+
+        List<Map<String, Object>> expected = new JdbcTemplate(fresh).queryForList(COLUMNS);
+        assertEquals(expected, legacyJdbc.queryForList(COLUMNS));
+        return legacyJdbc;
+    }
+
+    private static DataSource dataSource(String name) {
+        return new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    // 与生产配置一致：非空库没有迁移历史时标记为 V1 基线
+    private static void migrate(DataSource dataSource) {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+    }
+}
@@ -0,0 +1,141 @@
+package com.gcc.library1.Service;
+
+import com.gcc.library1.Model.Book;
+import com.gcc.library1.Model.BookHoldings;
+import com.gcc.library1.Model.BorrowRecord;
+import com.gcc.library1.Policy.HolidayCalendar;
+import com.gcc.library1.Policy.LoanRule;
+import com.gcc.library1.Repository.BorrowRecordRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 并发借阅压力测试：验证乐观锁 + 重试下续借没有丢失更新，多副本并发借书不会超借。
+ */
+@SpringBootTest(properties = "library.retry.max-attempts=100")
+@ActiveProfiles("h2")
+class BorrowRecordConcurrencyTests {
+
+    private static final int THREADS = 32;
+    private static final int RENEWALS_PER_THREAD = 20;
+    private static final LoanRule ONE_DAY = new LoanRule(1, 1, LoanRule.UNLIMITED, HolidayCalendar.EMPTY);
+
+    @Autowired
+    private BorrowRecordService borrowRecordService;
+
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+
+    @Autowired
+    private BookService bookService;
+
+    @Test
+    void concurrentRenewalsLoseNoUpdates() throws Exception {
+        LocalDate start = LocalDate.of(2030, 1, 1);
+        Long bookId = bookService.addBook(book("renew")).getId();
+        borrowRecordService.addBorrow(bookId, 1L, start, start);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch ready = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger conflicted = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                ready.await();
+                for (int i = 0; i < RENEWALS_PER_THREAD; i++) {
+                    try {
+                        borrowRecordService.renewBorrow(bookId, 1L, ONE_DAY);
+                        succeeded.incrementAndGet();
+                    } catch (OptimisticLockingFailureException e) {
+                        conflicted.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        ready.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        BorrowRecord record = borrowRecordRepository.findByBookIdAndUserId(bookId, 1L).orElseThrow();
+        // 每次成功的续借都必须体现在最终日期上
+        assertEquals(start.plusDays(succeeded.get()), record.getReturnDate());
+        assertEquals(succeeded.get(), record.getRenewCount());
+        assertEquals(THREADS * RENEWALS_PER_THREAD, succeeded.get() + conflicted.get());
+        assertTrue(succeeded.get() > 0);
+    }
+
+    @Test
+    void concurrentBorrowsNeverExceedCopies() throws Exception {
+        Long bookId = bookService.addBook(book("copies")).getId();
+        bookService.addCopies(bookId, 2);
+        LocalDate today = LocalDate.now();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch ready = new CountDownLatch(1);
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            long userId = 100 + t;
+            futures.add(pool.submit(() -> {
+                ready.await();
+                try {
+                    borrowRecordService.addBorrow(bookId, userId, today, today.plusDays(30));
+                } catch (IllegalStateException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        ready.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        List<BorrowRecord> borrows = borrowRecordRepository.findByBookId(bookId);
+        assertEquals(3, borrows.size());
+        assertEquals(THREADS - 3, rejected.get());
+        Set<Long> copies = borrows.stream().map(BorrowRecord::getCopyId).collect(Collectors.toSet());
+        assertEquals(3, copies.size());
+        assertEquals(0, bookService.getHoldings(bookId).availableCopies());
+
+        borrowRecordService.deleteBorrow(bookId, borrows.get(0).getUserId());
+        BookHoldings holdings = bookService.getHoldings(bookId);
+        assertEquals(3, holdings.totalCopies());
+        assertEquals(1, holdings.availableCopies());
+        borrowRecordService.addBorrow(bookId, 1L, today, today.plusDays(30));
+        assertEquals(0, bookService.getHoldings(bookId).availableCopies());
+    }
+
+    private static Book book(String title) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setAuthor("concurrency");
+        book.setCategory("general");
+        return book;
+    }
+}
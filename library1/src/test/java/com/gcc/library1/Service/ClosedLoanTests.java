@@ -0,0 +1,128 @@
+package com.gcc.library1.Service;
+
+import com.gcc.library1.Model.Book;
+import com.gcc.library1.Model.ClosedLoan;
+import com.gcc.library1.Model.LoanStats;
+import com.gcc.library1.Repository.BorrowRecordRepository;
+import com.gcc.library1.Repository.ClosedLoanRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+
+import jakarta.persistence.EntityNotFoundException;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 还书归档测试：在借记录搬到 closed_loan，借阅天数和逾期天数在归档时算好，统计只读已归还借阅。
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+class ClosedLoanTests {
+
+    @Autowired
+    private BorrowRecordService borrowRecordService;
+
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+
+    @Autowired
+    private ClosedLoanRepository closedLoanRepository;
+
+    @Autowired
+    private BookService bookService;
+
+    @Test
+    void returnMovesLoanIntoClosedStore() {
+        LocalDate today = LocalDate.now();
+        Long lateBook = bookService.addBook(book("closed-late")).getId();
+        Long onTimeBook = bookService.addBook(book("closed-on-time")).getId();
+        Long userId = 9001L;
+
+        Long loanId = borrowRecordService.addBorrow(lateBook, userId, today.minusDays(20), today.minusDays(6)).getId();
+        borrowRecordService.addBorrow(onTimeBook, userId, today.minusDays(4), today.plusDays(10));
+        assertTrue(borrowRecordService.hasBorrowedBooks(userId));
+
+        ClosedLoan late = borrowRecordService.deleteBorrow(lateBook, userId);
+        assertEquals(loanId, late.getLoanId());
+        assertEquals(today.minusDays(6), late.getDueDate());
+        assertEquals(today, late.getReturnedDate());
+        assertEquals(20, late.getLoanDays());
+        assertEquals(6, late.getLateDays());
+        assertFalse(borrowRecordRepository.existsById(loanId));
+
+        borrowRecordService.deleteBorrow(onTimeBook, null);
+        assertFalse(borrowRecordService.hasBorrowedBooks(userId));
+
+        List<ClosedLoan> closed = borrowRecordService.getClosedLoansByUserId(userId);
+        assertEquals(2, closed.size());
+
+        LoanStats lateStats = borrowRecordService.getLoanStatsByBookId(lateBook);
+        assertEquals(1, lateStats.loans());
+        assertEquals(1, lateStats.lateLoans());
+        assertEquals(6, lateStats.averageLateDays());
+        LoanStats onTimeStats = borrowRecordService.getLoanStatsByBookId(onTimeBook);
+        assertEquals(4, onTimeStats.averageLoanDays());
+        assertEquals(0, onTimeStats.lateRate());
+        assertEquals(0, borrowRecordService.getLoanStatsByBookId(-1L).loans());
+    }
+
+    @Test
+    void concurrentReturnsArchiveOnce() throws Exception {
+        Long bookId = bookService.addBook(book("closed-race")).getId();
+        Long userId = 9002L;
+        LocalDate today = LocalDate.now();
+        Long loanId = borrowRecordService.addBorrow(bookId, userId, today, today.plusDays(14)).getId();
+
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch ready = new CountDownLatch(1);
+        AtomicInteger returned = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                futures.add(pool.submit(() -> {
+                    ready.await();
+                    try {
+                        borrowRecordService.deleteBorrow(bookId, userId);
+                        returned.incrementAndGet();
+                    } catch (OptimisticLockingFailureException | EntityNotFoundException e) {
+                        // 已由另一请求归还
+                    }
+                    return null;
+                }));
+            }
+            ready.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, returned.get());
+        assertEquals(1, closedLoanRepository.findByUserIdOrderByReturnedDateDesc(userId).size());
+        assertEquals(loanId, closedLoanRepository.findByUserIdOrderByReturnedDateDesc(userId).get(0).getLoanId());
+        assertEquals(1, bookService.availableCopies(bookId));
+    }
+
+    private static Book book(String title) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setAuthor("author");
+        return book;
+    }
+}
@@ -0,0 +1,171 @@
+package com.gcc.library1.Service;
+
+import com.gcc.library1.Model.Book;
+import com.gcc.library1.Model.Reservation;
+import com.gcc.library1.Repository.ReservationRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 多副本预约测试：保留按副本计，同时归还多本时依次提升多位等待者，未被保留的副本照常可借。
+ * 队列只保存在数据库中，借书事务按数据库中的保留判断，不依赖本节点是否处理过归还。
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+class ReservationHoldTests {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private BorrowRecordService borrowRecordService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Test
+    void holdsArePerCopy() {
+        Long bookId = bookService.addBook(book("hold-per-copy")).getId();
+        bookService.addCopies(bookId, 2);
+
+        // 还有可借副本时不能预约
+        assertThrows(IllegalStateException.class, () -> reservationService.reserve(bookId, 11L));
+
+        for (long user = 1; user <= 3; user++) {
+            borrowRecordService.addBorrow(bookId, user, TODAY, TODAY.plusDays(14));
+        }
+        reservationService.reserve(bookId, 11L);
+        reservationService.reserve(bookId, 12L);
+        reservationService.reserve(bookId, 13L);
+
+        // 同时归还两本，两位等待者都被提升
+        borrowRecordService.deleteBorrow(bookId, 1L);
+        borrowRecordService.deleteBorrow(bookId, 2L);
+        reservationService.onBookReturned(bookId);
+        assertEquals(List.of(Reservation.Status.READY, Reservation.Status.READY, Reservation.Status.WAITING),
+                statuses(bookId));
+        assertEquals(0, reservationService.freeCopies(bookId));
+
+        // 两本可借副本都已保留，其他人不能借，也不能跳过排队
+        assertFalse(reservationService.checkHold(bookId, 99L));
+        assertFalse(reservationService.checkHold(bookId, 13L));
+        assertTrue(reservationService.checkHold(bookId, 11L));
+        // 借书事务中结清本人的保留
+        borrowRecordService.addBorrow(bookId, 11L, TODAY, TODAY.plusDays(14));
+
+        borrowRecordService.deleteBorrow(bookId, 3L);
+        reservationService.onBookReturned(bookId);
+        assertEquals(List.of(Reservation.Status.READY, Reservation.Status.READY), statuses(bookId));
+        assertTrue(reservationService.checkHold(bookId, 13L));
+        borrowRecordService.addBorrow(bookId, 13L, TODAY, TODAY.plusDays(14));
+
+        // 队列中只剩一个保留时，多出的副本不受影响
+        borrowRecordService.deleteBorrow(bookId, 11L);
+        reservationService.onBookReturned(bookId);
+        assertEquals(1, reservationService.freeCopies(bookId));
+        assertTrue(reservationService.checkHold(bookId, 99L));
+        assertThrows(IllegalStateException.class, () -> reservationService.reserve(bookId, 14L));
+    }
+
+    @Test
+    void holdIsEnforcedInsideTheBorrow() {
+        Long bookId = bookService.addBook(book("hold-enforced")).getId();
+        borrowRecordService.addBorrow(bookId, 31L, TODAY, TODAY.plusDays(14));
+        reservationService.reserve(bookId, 32L);
+        borrowRecordService.deleteBorrow(bookId, 31L);
+
+        // 归还没有通知预约（例如由其他节点处理），跳过预约检查直接借书也不能拿走排队者的副本
+        IllegalStateException held = assertThrows(IllegalStateException.class,
+                () -> borrowRecordService.addBorrow(bookId, 33L, TODAY, TODAY.plusDays(14)));
+        assertEquals("该书已为其他用户预留", held.getMessage());
+        // 被拒绝的借书事务连同顺带的提升一起回滚，下一次访问该书时重新提升
+        assertTrue(reservationService.checkHold(bookId, 32L));
+        assertEquals(List.of(Reservation.Status.READY), statuses(bookId));
+
+        borrowRecordService.addBorrow(bookId, 32L, TODAY, TODAY.plusDays(14));
+        assertTrue(reservationService.getQueueByBookId(bookId).isEmpty());
+    }
+
+    @Test
+    void failedBorrowKeepsTheHold() {
+        Long bookId = bookService.addBook(book("hold-failed-borrow")).getId();
+        bookService.addCopies(bookId, 1);
+        borrowRecordService.addBorrow(bookId, 31L, TODAY, TODAY.plusDays(14));
+        borrowRecordService.addBorrow(bookId, 32L, TODAY, TODAY.plusDays(14));
+        reservationService.reserve(bookId, 32L);
+        borrowRecordService.deleteBorrow(bookId, 31L);
+        reservationService.onBookReturned(bookId);
+
+        // 结清保留之后写入借阅记录时违反同一读者唯一约束，保留随事务回滚
+        assertThrows(DataIntegrityViolationException.class,
+                () -> borrowRecordService.addBorrow(bookId, 32L, TODAY, TODAY.plusDays(14)));
+        assertEquals(List.of(Reservation.Status.READY), statuses(bookId));
+        assertEquals(0, reservationService.freeCopies(bookId));
+    }
+
+    @Test
+    void activeReservationIsUniquePerUser() {
+        Long bookId = bookService.addBook(book("hold-unique")).getId();
+        borrowRecordService.addBorrow(bookId, 51L, TODAY, TODAY.plusDays(14));
+        reservationService.reserve(bookId, 52L);
+        assertThrows(IllegalStateException.class, () -> reservationService.reserve(bookId, 52L));
+
+        // 其他节点绕过队列检查写入的重复预约由唯一索引拦截
+        Reservation duplicate = new Reservation();
+        duplicate.setBookId(bookId);
+        duplicate.setUserId(52L);
+        duplicate.setStatus(Reservation.Status.WAITING);
+        duplicate.setCreatedAt(LocalDateTime.now());
+        assertThrows(DataIntegrityViolationException.class, () -> reservationRepository.save(duplicate));
+
+        // 已结清的预约不占用唯一约束
+        reservationService.cancel(bookId, 52L);
+        reservationService.reserve(bookId, 52L);
+        assertEquals(List.of(52L),
+                reservationService.getQueueByBookId(bookId).stream().map(Reservation::getUserId).toList());
+    }
+
+    @Test
+    void cancellingReadyHoldPromotesNextWaiter() {
+        Long bookId = bookService.addBook(book("hold-cancel")).getId();
+        borrowRecordService.addBorrow(bookId, 21L, TODAY, TODAY.plusDays(14));
+        reservationService.reserve(bookId, 22L);
+        reservationService.reserve(bookId, 23L);
+
+        borrowRecordService.deleteBorrow(bookId, 21L);
+        reservationService.onBookReturned(bookId);
+        assertEquals(List.of(Reservation.Status.READY, Reservation.Status.WAITING), statuses(bookId));
+
+        reservationService.cancel(bookId, 22L);
+        assertEquals(List.of(Reservation.Status.READY), statuses(bookId));
+        assertEquals(23L, reservationService.getQueueByBookId(bookId).get(0).getUserId());
+    }
+
+    private List<Reservation.Status> statuses(Long bookId) {
+        return reservationService.getQueueByBookId(bookId).stream().map(Reservation::getStatus).toList();
+    }
+
+    private static Book book(String title) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setAuthor("author");
+        return book;
+    }
+}
@@ -0,0 +1,156 @@
+package com.gcc.library1.Service;
+
+import com.gcc.library1.Model.User;
+import com.gcc.library1.Roster.RosterRow;
+import com.gcc.library1.Roster.RosterStore;
+import com.gcc.library1.Roster.RosterSyncReport;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 名单同步测试：第二次同步只写入差异，不在名单中的学生被停用，手动注册的用户不受影响。
+ */
+@SpringBootTest(properties = {"library.roster.batch-size=2", "library.roster.max-deactivate-ratio=0.5"})
+@ActiveProfiles("h2")
+class RosterSyncTests {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private RosterStore rosterStore;
+
+    @Test
+    void secondSyncAppliesOnlyTheDelta() throws IOException {
+        User manual = new User();
+        manual.setName("roster-manual");
+        manual.setPassword("pw");
+        userService.addUser(manual);
+
+        RosterSyncReport first = userService.syncRoster(new StringReader("""
+                name,password,userType
+                roster-1,p1,
+                roster-2,p2,STUDENT
+                roster-3,p3,TEACHER
+                roster-4,p4,
+                roster-5,p5,
+                """), false);
+        assertEquals(5, first.inserted());
+        assertEquals(3, first.batches());
+
+        RosterSyncReport second = userService.syncRoster(new StringReader("""
+                name,password,userType
+                roster-1,p1,
+                roster-2,p2-reset,STUDENT
+                roster-3,p3,TEACHER
+                roster-5,p5,
+                roster-6,p6,
+                roster-6,p6-duplicate,
+                ,missing-name,
+                """), false);
+        assertEquals(5, second.rows());
+        assertEquals(1, second.inserted());
+        assertEquals(1, second.updated());
+        assertEquals(1, second.deactivated());
+        assertEquals(3, second.unchanged());
+        assertEquals(2, second.skipped());
+
+        assertEquals("p2-reset", userService.getUserByNameAndPassword("roster-2", "p2-reset").getPassword());
+        assertEquals("TEACHER", userService.getUserByName("roster-3").getUserType());
+        assertEquals("STUDENT", userService.getUserByName("roster-6").getUserType());
+        assertFalse(userService.getUserByName("roster-4").isActive());
+        assertThrows(EntityNotFoundException.class, () -> userService.getUserByNameAndPassword("roster-4", "p4"));
+        assertTrue(userService.getUserByName("roster-manual").isActive());
+
+        // 名单重新包含已停用的学生时恢复启用
+        RosterSyncReport third = userService.syncRoster(new StringReader("""
+                roster-1,p1,
+                roster-2,p2-reset,STUDENT
+                roster-3,p3,TEACHER
+                roster-4,p4,
+                roster-5,p5,
+                roster-6,p6,
+                """), false);
+        assertEquals(1, third.updated());
+        assertEquals(5, third.unchanged());
+        assertTrue(userService.getUserByNameAndPassword("roster-4", "p4").isActive());
+
+        // 与手动注册用户同名的行跳过并列出；带引号的字段可以包含逗号和引号
+        RosterSyncReport fourth = userService.syncRoster(new StringReader("""
+                roster-1,p1,
+                roster-2,p2-reset,STUDENT
+                roster-3,p3,TEACHER
+                roster-4,p4,
+                roster-5,p5,
+                roster-6,p6,
+                roster-manual,taken,TEACHER
+                "roster-7","p7,with ""quote""\",
+                """), false);
+        assertEquals(1, fourth.inserted());
+        assertEquals(1, fourth.conflicts());
+        assertEquals(List.of("roster-manual"), fourth.conflictNames());
+        assertEquals(6, fourth.unchanged());
+        assertEquals("pw", userService.getUserByNameAndPassword("roster-manual", "pw").getPassword());
+        assertTrue(userService.getUserByNameAndPassword("roster-7", "p7,with \"quote\"").isActive());
+
+        // 数据库按不区分大小写的排序规则比较用户名，名单换了大小写仍是同一个用户，不会新增后在唯一索引上失败
+        RosterSyncReport recased = userService.syncRoster(new StringReader("""
+                ROSTER-1,p1-case,
+                roster-2,p2-reset,STUDENT
+                Roster-3,p3,TEACHER
+                roster-4,p4,
+                roster-5,p5,
+                roster-6,p6,
+                roster-7,"p7,with ""quote""\",
+                Roster-Manual,taken,TEACHER
+                """), false);
+        assertEquals(0, recased.inserted());
+        assertEquals(0, recased.deactivated());
+        assertEquals(List.of("Roster-Manual"), recased.conflictNames());
+        assertEquals("p1-case", userService.getUserByNameAndPassword("roster-1", "p1-case").getPassword());
+
+        // 被截断的名单会停用大多数用户，未确认时拒绝停用
+        String truncated = """
+                roster-1,p1,
+                roster-2,p2-reset,STUDENT
+                """;
+        assertThrows(IllegalStateException.class, () -> userService.syncRoster(new StringReader(truncated), false));
+        assertTrue(userService.getUserByName("roster-7").isActive());
+        RosterSyncReport confirmed = userService.syncRoster(new StringReader(truncated), true);
+        assertEquals(5, confirmed.deactivated());
+        assertFalse(userService.getUserByName("roster-7").isActive());
+        assertTrue(userService.getUserByName("roster-manual").isActive());
+    }
+
+    @Test
+    void insertRejectedByTheUniqueIndexIsReportedAsConflict() {
+        User manual = new User();
+        manual.setName("store-taken");
+        manual.setPassword("pw");
+        userService.addUser(manual);
+
+        // 比对之后才注册的同名用户：整批回滚后逐条提交，只跳过冲突的行
+        RosterRow taken = new RosterRow("store-taken", "p", "STUDENT", "h1");
+        RosterRow fresh = new RosterRow("store-fresh", "p", "STUDENT", "h2");
+        List<RosterRow> rejected = rosterStore.apply(List.of(
+                new RosterStore.Change(RosterStore.Kind.INSERT, null, taken),
+                new RosterStore.Change(RosterStore.Kind.INSERT, null, fresh)));
+        assertEquals(List.of(taken), rejected);
+        assertEquals("pw", userService.getUserByName("store-taken").getPassword());
+        assertTrue(userService.getUserByName("store-fresh").isActive());
+        // 名单同步按全量名单停用，不留下会被其他用例停用的名单用户
+        userService.deleteUser(userService.getUserByName("store-fresh").getId());
+    }
+}
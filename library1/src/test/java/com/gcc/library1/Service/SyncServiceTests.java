@@ -0,0 +1,168 @@
+package com.gcc.library1.Service;
+
+import com.gcc.library1.Model.Book;
+import com.gcc.library1.Model.SyncTombstone;
+import com.gcc.library1.Shard.BranchContext;
+import com.gcc.library1.Sync.RevisionCounter;
+import com.gcc.library1.Sync.SyncPage;
+import com.gcc.library1.Sync.TombstoneCompactor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 增量同步测试：按页拉取变更后，本地副本应与服务端一致。
+ * 使用独立分馆，避免与其他测试写入的数据互相影响。
+ */
+@SpringBootTest(properties = "library.shard.branches=main,sync-test")
+@ActiveProfiles("h2")
+class SyncServiceTests {
+
+    private static final String BRANCH = "sync-test";
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private SyncService syncService;
+
+    @Autowired
+    private TombstoneCompactor tombstoneCompactor;
+
+    @Autowired
+    private RevisionCounter revisionCounter;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void replicaConvergesThroughSmallPages() {
+        BranchContext.call(BRANCH, () -> {
+            Map<Long, Book> replica = new HashMap<>();
+            long revision = pull(replica, 0);
+
+            List<Book> added = new ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                added.add(bookService.addBook(book("sync-" + i)));
+            }
+            Book changed = added.get(2);
+            changed.setTitle("sync-renamed");
+            bookService.updateBook(changed.getId(), changed);
+            bookService.deleteBook(added.get(5).getId());
+
+            revision = pull(replica, revision);
+            assertEquals(6, replica.size());
+            assertEquals("sync-renamed", replica.get(changed.getId()).getTitle());
+            assertFalse(replica.containsKey(added.get(5).getId()));
+
+            // 没有新变更时返回空页，同步点不变
+            SyncPage empty = syncService.changesSince(revision, 3);
+            assertEquals(revision, empty.revision());
+            assertTrue(empty.books().isEmpty());
+            return null;
+        });
+    }
+
+    @Test
+    void compactionForcesResetForStaleClients() {
+        BranchContext.call(BRANCH, () -> {
+            Book book = bookService.addBook(book("compact-" + UUID.randomUUID()));
+            long stale = syncService.changesSince(0, 1000).revision();
+            bookService.deleteBook(book.getId());
+            Book another = bookService.addBook(book("compact-" + UUID.randomUUID()));
+            bookService.deleteBook(another.getId());
+
+            tombstoneCompactor.compact(LocalDateTime.now().plusMinutes(1));
+
+            assertTrue(syncService.changesSince(stale, 10).resetRequired());
+            assertFalse(syncService.changesSince(0, 10).resetRequired());
+            return null;
+        });
+    }
+
+    @Test
+    void laterRevisionWaitsForEarlierOpenTransaction() throws Exception {
+        long since = BranchContext.call(BRANCH, () -> syncService.changesSince(0, 1000).revision());
+        CountDownLatch allocated = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        try {
+            // 先分配到较小修订号的事务迟迟不提交
+            Future<Long> open = writer.submit(() -> BranchContext.call(BRANCH, () -> transactionTemplate.execute(status -> {
+                long revision = revisionCounter.next();
+                allocated.countDown();
+                await(release);
+                return revision;
+            })));
+            assertTrue(allocated.await(10, TimeUnit.SECONDS));
+
+            Book later = BranchContext.call(BRANCH, () -> bookService.addBook(book("sync-out-of-order")));
+            SyncPage blocked = BranchContext.call(BRANCH, () -> syncService.changesSince(since, 1000));
+            assertTrue(blocked.books().stream().noneMatch(book -> book.getId().equals(later.getId())));
+            assertTrue(blocked.revision() < later.getRevision());
+
+            release.countDown();
+            assertTrue(open.get(10, TimeUnit.SECONDS) < later.getRevision());
+            SyncPage visible = BranchContext.call(BRANCH, () -> syncService.changesSince(blocked.revision(), 1000));
+            assertTrue(visible.books().stream().anyMatch(book -> book.getId().equals(later.getId())));
+            BranchContext.call(BRANCH, () -> {
+                bookService.deleteBook(later.getId());
+                return null;
+            });
+        } finally {
+            release.countDown();
+            writer.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // 从 since 开始以每页3条拉取到最新，返回新的同步点
+    private long pull(Map<Long, Book> replica, long since) {
+        SyncPage page;
+        do {
+            page = syncService.changesSince(since, 3);
+            assertFalse(page.resetRequired());
+            assertTrue(page.books().size() + page.borrowRecords().size() + page.tombstones().size() <= 3);
+            page.books().forEach(book -> replica.put(book.getId(), book));
+            for (SyncTombstone tombstone : page.tombstones()) {
+                if (tombstone.getEntityType() == SyncTombstone.Type.BOOK) {
+                    replica.remove(tombstone.getEntityId());
+                }
+            }
+            since = page.revision();
+        } while (page.hasMore());
+        return since;
+    }
+
+    private static Book book(String title) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setAuthor("tester");
+        return book;
+    }
+}
@@ -0,0 +1,128 @@
+package com.gcc.library1.Shard;
+
+import com.gcc.library1.Model.Book;
+import com.gcc.library1.Model.BorrowRecord;
+import com.gcc.library1.Service.BookService;
+import com.gcc.library1.Recommend.CoOccurrenceSnapshot;
+import com.gcc.library1.Service.BorrowRecordService;
+import com.gcc.library1.Service.RecommendationService;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 分馆路由测试：east 配置独立数据源，main 和 west 共用默认数据源。
+ */
+@SpringBootTest(properties = {
+        "library.shard.branches=main,east,west",
+        "library.shard.routes.east=east",
+        "library.shard.datasources.east.url=jdbc:h2:mem:east;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "library.shard.datasources.east.username=sa",
+        "library.shard.datasources.east.driver-class-name=org.h2.Driver"
+})
+@ActiveProfiles("h2")
+class BranchRoutingTests {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BorrowRecordService borrowRecordService;
+
+    @Autowired
+    private RecommendationService recommendationService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void branchWithOwnDataSourceIsStoredThere() {
+        String title = "routing-" + UUID.randomUUID();
+        Book east = BranchContext.call("east", () -> bookService.addBook(book(title)));
+        Book west = BranchContext.call("west", () -> bookService.addBook(book(title)));
+
+        assertEquals(1, count(ShardRouter.DEFAULT_DATASOURCE, title, "west"));
+        assertEquals(0, count(ShardRouter.DEFAULT_DATASOURCE, title, "east"));
+        assertEquals(1, count("east", title, "east"));
+        assertEquals("east", east.getBranch());
+        assertEquals("west", west.getBranch());
+    }
+
+    @Test
+    void sharedTableHidesOtherBranches() {
+        Book west = BranchContext.call("west", () -> bookService.addBook(book("hidden-" + UUID.randomUUID())));
+
+        assertEquals(west.getTitle(), BranchContext.call("west", () -> bookService.getBookById(west.getId())).getTitle());
+        assertThrows(EntityNotFoundException.class,
+                () -> BranchContext.call("main", () -> bookService.getBookById(west.getId())));
+    }
+
+    @Test
+    void crossBranchQueriesGatherAllBranches() {
+        String title = "gather-" + UUID.randomUUID();
+        for (String branch : List.of("main", "east", "west")) {
+            BranchContext.call(branch, () -> bookService.addBook(book(title)));
+        }
+        List<Book> found = bookService.getBooksByTitleLike(title);
+        assertEquals(List.of("main", "east", "west"), found.stream().map(Book::getBranch).toList());
+
+        long userId = 424242L;
+        LocalDate today = LocalDate.now();
+        BranchContext.call("main", () -> borrowRecordService.addBorrow(found.get(0).getId(), userId, today, today.plusDays(7)));
+        BranchContext.call("east", () -> borrowRecordService.addBorrow(found.get(1).getId(), userId, today, today.plusDays(7)));
+        List<BorrowRecord> records = borrowRecordService.getBorrowBooksByUserId(userId);
+        assertEquals(List.of("main", "east"), records.stream().map(BorrowRecord::getBranch).toList());
+    }
+
+    @Test
+    void recommendationsAreComputedPerBranch() throws Exception {
+        long userId = 525252L;
+        LocalDate today = LocalDate.now();
+        List<Long> east = BranchContext.call("east", () -> coBorrow(userId, today));
+        List<Long> west = BranchContext.call("west", () -> coBorrow(userId, today));
+        // 已归还的借阅同样计入
+        BranchContext.call("east", () -> borrowRecordService.deleteBorrow(east.get(0), userId));
+
+        recommendationService.recompute().get();
+        assertEquals(List.of(east.get(1)), BranchContext.call("east", () -> recommendedIds(east.get(0))));
+        assertEquals(List.of(west.get(1)), BranchContext.call("west", () -> recommendedIds(west.get(0))));
+        // main 与 west 共用默认数据源，图书ID相同也不会读到 west 的共现
+        assertEquals(List.of(), BranchContext.call("main", () -> recommendedIds(west.get(0))));
+    }
+
+    // 在当前分馆新增两本书并由同一读者借阅
+    private List<Long> coBorrow(long userId, LocalDate today) {
+        List<Long> ids = List.of(bookService.addBook(book("co-" + UUID.randomUUID())).getId(),
+                bookService.addBook(book("co-" + UUID.randomUUID())).getId());
+        ids.forEach(id -> borrowRecordService.addBorrow(id, userId, today, today.plusDays(7)));
+        return ids;
+    }
+
+    private List<Long> recommendedIds(Long bookId) {
+        return recommendationService.recommend(bookId, 10).stream().map(CoOccurrenceSnapshot.Neighbour::bookId).toList();
+    }
+
+    private int count(String dataSourceName, String title, String branch) {
+        DataSource target = ((BranchRoutingDataSource) dataSource).getResolvedDataSources().get(dataSourceName);
+        return new JdbcTemplate(target).queryForObject(
+                "select count(*) from books where title = ? and branch = ?", Integer.class, title, branch);
+    }
+
+    private static Book book(String title) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setAuthor("tester");
+        return book;
+    }
+}
@@ -0,0 +1,141 @@
+package com.gcc.library1.Snapshot;
+
+import com.gcc.library1.Cache.InvalidationBus;
+import com.gcc.library1.Cache.NearCache;
+import com.gcc.library1.Model.Book;
+import com.gcc.library1.Model.BorrowRecord;
+import com.gcc.library1.Service.BookService;
+import com.gcc.library1.Service.BorrowRecordService;
+import com.gcc.library1.Shard.BranchContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * 启动快照测试：写入快照后继续修改数据，清空缓存再加载，预热结果应与数据库一致。
+ * 使用独立分馆，避免与其他测试写入的数据互相影响。
+ */
+@SpringBootTest(properties = {"library.shard.branches=main,snapshot-test", "library.snapshot.interval-seconds=0"})
+@ActiveProfiles("h2")
+class CacheSnapshotTests {
+
+    private static final String BRANCH = "snapshot-test";
+
+    @DynamicPropertySource
+    static void snapshotDir(DynamicPropertyRegistry registry) throws IOException {
+        Path dir = Files.createTempDirectory("cache-snapshot");
+        registry.add("library.snapshot.enabled", () -> "true");
+        registry.add("library.snapshot.dir", dir::toString);
+    }
+
+    @Autowired
+    private CacheSnapshotService cacheSnapshotService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BorrowRecordService borrowRecordService;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @Test
+    void warmStartReplaysChangesAfterSnapshot() throws Exception {
+        awaitStartupLoad();
+        BranchContext.call(BRANCH, () -> {
+            Book borrowed = bookService.addBook(book("snapshot-borrowed"));
+            Book renamed = bookService.addBook(book("snapshot-renamed"));
+            Book cold = bookService.addBook(book("snapshot-cold"));
+            LocalDate today = LocalDate.now();
+            borrowRecordService.addBorrow(borrowed.getId(), 7L, today, today.plusDays(30));
+            // 读一次让两本书进入热点集合
+            bookService.getBookById(borrowed.getId());
+            bookService.getBookById(renamed.getId());
+            borrowRecordService.getBorrowsByBookId(borrowed.getId());
+            borrowRecordService.getBorrowsByBookId(renamed.getId());
+            writeSnapshot();
+
+            // 快照之后的变更需要在加载时回放
+            renamed.setTitle("snapshot-renamed-2");
+            bookService.updateBook(renamed.getId(), renamed);
+            borrowRecordService.deleteBorrow(borrowed.getId(), 7L);
+            borrowRecordService.addBorrow(renamed.getId(), 8L, today, today.plusDays(30));
+
+            NearCache<Book> books = invalidationBus.cache(InvalidationBus.BOOK + "@" + BRANCH, Book::copy);
+            NearCache<List<BorrowRecord>> availability = invalidationBus.cache(InvalidationBus.BORROW_RECORD + "@" + BRANCH,
+                    NearCache.listCopier(BorrowRecord::copy));
+            books.clear();
+            availability.clear();
+            cacheSnapshotService.load();
+
+            assertEquals("snapshot-borrowed", books.get(borrowed.getId(), id -> fail("应已预热")).getTitle());
+            assertEquals("snapshot-renamed-2", books.get(renamed.getId(), id -> fail("应已预热")).getTitle());
+            assertNull(books.get(cold.getId(), id -> null), "非热点图书不应预热");
+            assertTrue(availability.get(borrowed.getId(), id -> fail("应已预热")).isEmpty());
+            assertEquals(8L, availability.get(renamed.getId(), id -> fail("应已预热")).get(0).getUserId());
+            return null;
+        });
+        assertEquals("warm", cacheSnapshotService.getLoadReport().get("state"));
+    }
+
+    @Test
+    void corruptedSnapshotIsRejected(@TempDir Path dir) throws IOException {
+        Book book = book("codec");
+        book.setId(1L);
+        book.setVersion(0L);
+        book.setRevision(5L);
+        book.setDescription("简介");
+        Path file = dir.resolve("cache-snapshot.bin");
+        SnapshotCodec.write(file, List.of(new BranchSnapshot("main", 5L, List.of(book), List.of(), List.of(1L))));
+
+        BranchSnapshot read = SnapshotCodec.read(file).get(0);
+        assertEquals(5L, read.revision());
+        assertEquals("简介", read.books().get(0).getDescription());
+        assertNotNull(read.books().get(0).getBranch());
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 0x5A;
+        Files.write(file, bytes);
+        assertThrows(IOException.class, () -> SnapshotCodec.read(file));
+    }
+
+    private void awaitStartupLoad() throws InterruptedException {
+        while (!cacheSnapshotService.isReady()) {
+            Thread.sleep(10);
+        }
+    }
+
+    private void writeSnapshot() {
+        try {
+            cacheSnapshotService.write();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Book book(String title) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setAuthor("snapshot");
+        book.setCategory("general");
+        return book;
+    }
+}
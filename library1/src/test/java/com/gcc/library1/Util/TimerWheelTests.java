@@ -0,0 +1,33 @@
+package com.gcc.library1.Util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimerWheelTests {
+
+    @Test
+    void tasksScheduledFromCallbacksFireWithinOneRotation() throws InterruptedException {
+        // 一圈 100 个 tick（1s）；在 tick 回调中提交的任务不能晚一整圈执行
+        try (TimerWheel wheel = new TimerWheel("timer-wheel-test", 10, 100)) {
+            CountDownLatch fired = new CountDownLatch(20);
+            for (int i = 0; i < 20; i++) {
+                wheel.schedule(i * 5L, () -> wheel.schedule(10, fired::countDown));
+            }
+            assertTrue(fired.await(800, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Test
+    void cancelledTasksDoNotRun() throws InterruptedException {
+        try (TimerWheel wheel = new TimerWheel("timer-wheel-test", 10, 8)) {
+            CountDownLatch fired = new CountDownLatch(1);
+            wheel.schedule(30, fired::countDown).cancel();
+            assertFalse(fired.await(200, TimeUnit.MILLISECONDS));
+        }
+    }
+}